@@ -0,0 +1,55 @@
+package projecttwo;
+
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the work 'ProgramModel' does when its settings change: recalculating the total
+ *  when the date range moves, and regenerating every converted price when the locale changes.
+ *
+ * <p>Each change is made through the synchronous setter, so the time includes the hand-off to
+ *  the model's background thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class ModelBenchmark {
+  private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+  /**
+   * Moves the date range to a random span of days, recalculating the total from the daily totals.
+   *
+   * @param data the model
+   * @return the new total
+   */
+  @Benchmark
+  public double updateTotal(SalesData data) {
+    long begin = (10227 + data.random.nextInt(3650)) * DAY_MILLIS;
+    long end = begin + data.random.nextInt(3650) * DAY_MILLIS;
+    data.model.setDateRange(new Date(begin), new Date(end));
+    return data.model.getTotal();
+  }
+
+  /**
+   * Regenerates every converted price with the latest rates, switching between two currencies.
+   *
+   * @param data the model
+   * @return the new total
+   */
+  @Benchmark
+  public double generateConvertedPrices(SalesData data) {
+    Locale locale = Locale.JAPAN.equals(data.model.getUserLocale()) ? Locale.US : Locale.JAPAN;
+    data.model.setUserLocale(locale);
+    return data.model.getTotal();
+  }
+}
@@ -0,0 +1,117 @@
+package projecttwo;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of reading a 'history' response of the rate API for every known currency over a
+ *  number of days, with 'RateResponseParser' and with the regular expressions 'HttpRateProvider'
+ *  used before it, which read the whole body into a string first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateParseBenchmark {
+  private static final Pattern DAY_RATES =
+      Pattern.compile("\"(\\d{4}-\\d{2}-\\d{2})\":\\{([^{}]*)\\}");
+  private static final Pattern SYMBOL_RATE =
+      Pattern.compile("\"([A-Z]{3})\":(\\d+\\.?\\d*(?:[eE][-+]?\\d+)?)");
+
+  /** Number of days in the response. */
+  @Param({"1", "30", "365"})
+  public int days;
+
+  private byte[] response;
+  private List<String> symbols;
+
+  /**
+   * Generates the response, with rates written as the API writes them.
+   */
+  @Setup(Level.Trial)
+  public void createResponse() {
+    symbols = CurrencyConverter.getCurrencyCodes();
+    Random random = new Random(days);
+    StringBuilder json = new StringBuilder("{\"rates\":{");
+    LocalDate day = LocalDate.of(2019, 4, 26).minusDays(days - 1);
+    for (int i = 0; i < days; i++, day = day.plusDays(1)) {
+      json.append(i == 0 ? "" : ",").append('"').append(day).append("\":{");
+      for (int symbol = 0; symbol < symbols.size(); symbol++) {
+        json.append(symbol == 0 ? "" : ",").append('"').append(symbols.get(symbol))
+            .append("\":").append(Math.round(random.nextDouble() * 1e8) / 1e4);
+      }
+      json.append('}');
+    }
+    json.append("},\"start_at\":\"2019-01-01\",\"base\":\"EUR\",\"end_at\":\"2019-04-26\"}");
+    response = json.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads the response with 'RateResponseParser'.
+   *
+   * @return the rates of each day
+   * @throws IOException never
+   */
+  @Benchmark
+  public NavigableMap<Long, double[]> stream() throws IOException {
+    return new RateResponseParser(symbols)
+        .parseHistory(new ByteArrayInputStream(response), "EUR");
+  }
+
+  /**
+   * Reads the response with regular expressions.
+   *
+   * @return the rates of each day
+   * @throws IOException never
+   */
+  @Benchmark
+  public SortedMap<String, Map<String, Double>> regex() throws IOException {
+    StringBuilder json = new StringBuilder();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+        new ByteArrayInputStream(response), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        json.append(line);
+      }
+    }
+    TreeMap<String, Map<String, Double>> published = new TreeMap<String, Map<String, Double>>();
+    Matcher dayRates = DAY_RATES.matcher(json);
+    while (dayRates.find()) {
+      HashMap<String, Double> rates = new HashMap<String, Double>();
+      Matcher rate = SYMBOL_RATE.matcher(dayRates.group(2));
+      while (rate.find()) {
+        rates.put(rate.group(1), Double.parseDouble(rate.group(2)));
+      }
+      published.put(dayRates.group(1), rates);
+    }
+    return published;
+  }
+}
@@ -0,0 +1,126 @@
+package projecttwo;
+
+import java.text.DateFormat;
+import java.text.NumberFormat;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of rendering a screenful of cells of the sales list at a random position, with
+ *  prices in local currency and converted to the user's currency.
+ *
+ * <p>The cell renderers of 'ProjectTwo' belong to its window, which cannot be created without a
+ *  display, so the benchmark renders cells the same way: formatting each sale's country, date
+ *  and price into a 'DefaultListCellRenderer', and caching the text of each row in a
+ *  'CellTextCache' of the same size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g", "-Djava.awt.headless=true"})
+public class RenderBenchmark {
+  private static final int VISIBLE_CELLS = 40;
+  private static final int CELL_TEXT_CACHE_SIZE = 4096;
+
+  private final DateFormat dateFormat = DateFormat.getDateInstance(DateFormat.LONG);
+  private final HashMap<Locale, NumberFormat> currencyFormats = new HashMap<Locale, NumberFormat>();
+  private final CellTextCache localCellTexts = new CellTextCache(CELL_TEXT_CACHE_SIZE);
+  private final CellTextCache convertedCellTexts = new CellTextCache(CELL_TEXT_CACHE_SIZE);
+  private final DefaultListCellRenderer renderer = new DefaultListCellRenderer();
+  private SalesListModel listModel;
+  private JList<RealEstateSale> list;
+
+  /**
+   * Creates the list, showing the sales in date order.
+   *
+   * @param data the model
+   */
+  @Setup(Level.Trial)
+  public void createList(SalesData data) {
+    listModel = new SalesListModel(data.model.getSalesTable());
+    listModel.showInDateOrder();
+    list = new JList<RealEstateSale>(listModel);
+  }
+
+  /**
+   * Renders a screenful of cells with prices in local currency.
+   *
+   * @param data the model
+   * @param sink consumes the cells rendered
+   */
+  @Benchmark
+  public void renderLocal(SalesData data, Blackhole sink) {
+    int first = data.random.nextInt(Math.max(listModel.getSize() - VISIBLE_CELLS, 1));
+    for (int index = first; index < Math.min(first + VISIBLE_CELLS, listModel.getSize());
+        index++) {
+      RealEstateSale sale = listModel.getElementAt(index);
+      renderer.getListCellRendererComponent(list, sale, index, false, false);
+      int row = listModel.rowAt(index);
+      String text = localCellTexts.get(row);
+      if (text == null) {
+        text = String.format("%3s | %18s | %15s", sale.getCountry(),
+            dateFormat.format(sale.getDate()),
+            format(sale.getPrice(), new Locale("en", sale.getCountry())));
+        localCellTexts.put(row, text);
+      }
+      renderer.setText(text);
+      sink.consume(renderer);
+    }
+  }
+
+  /**
+   * Renders a screenful of cells with prices converted to the user's currency.
+   *
+   * @param data the model
+   * @param sink consumes the cells rendered
+   */
+  @Benchmark
+  public void renderConverted(SalesData data, Blackhole sink) {
+    ProgramModel model = data.model;
+    int first = data.random.nextInt(Math.max(listModel.getSize() - VISIBLE_CELLS, 1));
+    for (int index = first; index < Math.min(first + VISIBLE_CELLS, listModel.getSize());
+        index++) {
+      RealEstateSale sale = listModel.getElementAt(index);
+      renderer.getListCellRendererComponent(list, sale, index, false, false);
+      int row = listModel.rowAt(index);
+      String text = convertedCellTexts.get(row);
+      if (text == null) {
+        text = String.format("%3s | %18s | %15s", sale.getCountry(),
+            dateFormat.format(sale.getDate()),
+            format(model.getConvertedPrice(sale), model.getUserLocale()));
+        convertedCellTexts.put(row, text);
+      }
+      renderer.setText(text);
+      sink.consume(renderer);
+    }
+  }
+
+  /**
+   * Formats an amount in the currency of a locale, reusing one formatter per locale.
+   *
+   * @param amount the amount
+   * @param locale the locale
+   * @return the formatted amount
+   */
+  private String format(double amount, Locale locale) {
+    return currencyFormats.computeIfAbsent(locale, NumberFormat::getCurrencyInstance)
+        .format(amount);
+  }
+}
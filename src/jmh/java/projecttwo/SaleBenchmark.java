@@ -0,0 +1,73 @@
+package projecttwo;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark of validating and creating sales with 'RealEstateSale.make', a dataset of them at a
+ *  time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class SaleBenchmark {
+
+  /** Number of sales made in each operation. */
+  @Param({"1000", "10000", "100000", "1000000", "10000000"})
+  public int size;
+
+  private String[] countries;
+  private double[] prices;
+  private int[] years;
+  private int[] months;
+  private int[] days;
+
+  /**
+   * Chooses the fields of every sale up front, a few of them invalid.
+   */
+  @Setup(Level.Trial)
+  public void chooseFields() {
+    Random random = new Random(size);
+    int codes = CurrencyConverter.countryCodes.size();
+    countries = new String[size];
+    prices = new double[size];
+    years = new int[size];
+    months = new int[size];
+    days = new int[size];
+    for (int i = 0; i < size; i++) {
+      countries[i] = CurrencyConverter.countryCodes.get(random.nextInt(codes));
+      prices[i] = random.nextDouble() * 5000000 + 75000;
+      years[i] = 1998 + random.nextInt(20);
+      months[i] = random.nextInt(12);
+      days[i] = 1 + random.nextInt(31);
+    }
+  }
+
+  /**
+   * Makes every sale.
+   *
+   * @param sink consumes the sales made
+   */
+  @Benchmark
+  public void make(Blackhole sink) {
+    for (int i = 0; i < size; i++) {
+      sink.consume(RealEstateSale.make(countries[i], prices[i], years[i], months[i], days[i]));
+    }
+  }
+}
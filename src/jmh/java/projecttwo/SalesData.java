@@ -0,0 +1,51 @@
+package projecttwo;
+
+import java.util.Random;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark state holding a 'ProgramModel' of a given number of random sales, converted with
+ *  offline synthetic rates so that no benchmark touches the network.
+ *
+ * <p>No listeners are added, so only the model's own work is measured.
+ */
+@State(Scope.Benchmark)
+public class SalesData {
+  private static final long SEED = 20190426L;
+  private static final long FIRST_DAY = 10227;
+  private static final int DAYS = 7300;
+
+  /** Number of sales in the model. */
+  @Param({"1000", "10000", "100000", "1000000", "10000000"})
+  public int size;
+
+  /** The model, holding 'size' sales besides its generated ones. */
+  public ProgramModel model;
+
+  /** Random numbers for the benchmarks, seeded alike on every run. */
+  public Random random;
+
+  /**
+   * Builds the model.
+   */
+  @Setup(Level.Trial)
+  public void createModel() {
+    random = new Random(SEED);
+    model = new ProgramModel(new SyntheticRateProvider());
+    model.setNotificationExecutor(notification -> { });
+    int countries = CurrencyConverter.countryCodes.size();
+    int[] countryOrdinals = new int[size];
+    double[] prices = new double[size];
+    long[] epochDays = new long[size];
+    for (int i = 0; i < size; i++) {
+      countryOrdinals[i] = random.nextInt(countries);
+      prices[i] = random.nextDouble() * 5000000 + 75000;
+      epochDays[i] = FIRST_DAY + random.nextInt(DAYS);
+    }
+    model.addRows(countryOrdinals, prices, epochDays, size);
+  }
+}
@@ -0,0 +1,85 @@
+package projecttwo;
+
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of ordering the sales list by each of the comparators 'ProjectTwo' offers, both the
+ *  way its 'sortListBy' does, from the model's sorted indexes, and by sorting with the
+ *  comparator, as it does for any other comparator.
+ *
+ * <p>The comparators of 'ProjectTwo' belong to its window, which cannot be created without a
+ *  display, so the benchmark uses ones comparing the same fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class SortBenchmark {
+
+  /** The order to show the sales in. */
+  @Param({"DATE", "PRICE", "COUNTRY"})
+  public ProgramModel.SortOrder order;
+
+  private SalesListModel listModel;
+  private Comparator<RealEstateSale> comparator;
+
+  /**
+   * Creates the list model and the comparator for 'order'.
+   *
+   * @param data the model
+   */
+  @Setup(Level.Trial)
+  public void createList(SalesData data) {
+    ProgramModel model = data.model;
+    listModel = new SalesListModel(model.getSalesTable());
+    switch (order) {
+      case PRICE:
+        comparator = (one, two) ->
+            Double.compare(model.getConvertedPrice(one), model.getConvertedPrice(two));
+        break;
+      case COUNTRY:
+        comparator = (one, two) -> one.getCountry().compareTo(two.getCountry());
+        break;
+      default:
+        comparator = (one, two) -> one.getDate().compareTo(two.getDate());
+    }
+  }
+
+  /**
+   * Shows the sales in order from the model's index, as 'sortListBy' does.
+   *
+   * @param data the model
+   * @return the number of sales shown
+   */
+  @Benchmark
+  public int sortListBy(SalesData data) {
+    listModel.setOrder(data.model.getShownRows(order));
+    return listModel.getSize();
+  }
+
+  /**
+   * Shows the sales in order by sorting them with the comparator.
+   *
+   * @return the number of sales shown
+   */
+  @Benchmark
+  public int sortByComparator() {
+    listModel.sortBy(comparator);
+    return listModel.getSize();
+  }
+}
@@ -0,0 +1,68 @@
+package projecttwo;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size cache of the text displayed for rows of a 'SalesTable'.
+ *
+ * <p>Each row has one slot it may occupy, chosen from the low bits of its number, and a newer
+ *  row simply takes the slot over. Neither looking up nor storing text allocates, so a list can
+ *  be scrolled through without creating garbage for rows whose text is already cached.
+ *
+ * @see SalesListModel
+ */
+public class CellTextCache {
+  private final int[] rows;
+  private final String[] texts;
+  private final int mask;
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param capacity the number of slots, rounded up to a power of two
+   */
+  public CellTextCache(int capacity) {
+    int slots = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+    rows = new int[slots];
+    texts = new String[slots];
+    mask = slots - 1;
+    Arrays.fill(rows, -1);
+  }
+
+  /**
+   * Provides the cached text of a row.
+   *
+   * @param row the row
+   * @return the text, or null if it is not cached
+   */
+  public String get(int row) {
+    if (row < 0) {
+      return null;
+    }
+    int slot = row & mask;
+    return rows[slot] == row ? texts[slot] : null;
+  }
+
+  /**
+   * Caches the text of a row, replacing whatever was cached in its slot.
+   *
+   * @param row the row
+   * @param text the text to cache
+   */
+  public void put(int row, String text) {
+    if (row < 0) {
+      return;
+    }
+    int slot = row & mask;
+    rows[slot] = row;
+    texts[slot] = text;
+  }
+
+  /**
+   * Removes all cached text.
+   */
+  public void clear() {
+    Arrays.fill(rows, -1);
+    Arrays.fill(texts, null);
+  }
+}
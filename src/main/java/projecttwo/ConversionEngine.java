@@ -0,0 +1,164 @@
+package projecttwo;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+/**
+ * Converts the prices of every sale in a 'SalesTable' into a common currency, in parallel
+ *  across a bounded pool of worker threads: the common fork-join pool by default, so that
+ *  engines do not each keep threads of their own.
+ *
+ * <p>Rows are split into fixed-size chunks which the pool's workers share out between them.
+ *  Every exchange rate needed is resolved into plain arrays before the work starts, so the
+ *  workers only read arrays and never contend for a lock.
+ *
+ * @see ProgramModel
+ * @see SalesTable
+ */
+public class ConversionEngine implements AutoCloseable {
+  private static final int CHUNK_SIZE = 1 << 14;
+
+  private final ForkJoinPool pool;
+  private final boolean ownsPool;
+
+  /**
+   * Creates an engine sharing the workers of the common fork-join pool.
+   */
+  public ConversionEngine() {
+    pool = ForkJoinPool.commonPool();
+    ownsPool = false;
+  }
+
+  /**
+   * Creates an engine with a pool of its own of the given number of workers, which 'close'
+   *   shuts down.
+   *
+   * @param parallelism the greatest number of rows converted at once
+   */
+  public ConversionEngine(int parallelism) {
+    pool = new ForkJoinPool(parallelism);
+    ownsPool = true;
+  }
+
+  /**
+   * Shuts down the workers of an engine created with a pool of its own. Does nothing for an
+   *   engine sharing the common pool.
+   */
+  @Override
+  public void close() {
+    if (ownsPool) {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Converts the prices of the first 'count' rows of a table into a new price column. The
+   *   table itself is not modified.
+   *
+   * <p>If historical conversion fails for a row, contemporary conversion is used. Rows with no
+   *   exchange rate available at all are given a price of 0.0.
+   *
+   * @param table the sales to convert
+   * @param count the number of rows to convert
+   * @param capacity the length of the column to create, at least 'count'
+   * @param target the ordinal of the currency to convert into
+   * @param latest the current rate vector, or null if unavailable
+   * @param history the store of historical rates to use, or null for contemporary conversion
+   *
+   * @return the converted prices indexed by row
+   */
+  public double[] convert(SalesTable table, int count, int capacity, int target, double[] latest,
+      HistoricalRateStore history) {
+    return convert(table, count, capacity, target, latest, history, () -> false);
+  }
+
+  /**
+   * Converts the prices of the first 'count' rows of a table into a new price column, giving up
+   *   part way if asked to. The table itself is not modified.
+   *
+   * <p>If historical conversion fails for a row, contemporary conversion is used. Rows with no
+   *   exchange rate available at all are given a price of 0.0.
+   *
+   * @param table the sales to convert
+   * @param count the number of rows to convert
+   * @param capacity the length of the column to create, at least 'count'
+   * @param target the ordinal of the currency to convert into
+   * @param latest the current rate vector, or null if unavailable
+   * @param history the store of historical rates to use, or null for contemporary conversion
+   * @param cancelled checked before each chunk of rows, tells whether to give up
+   *
+   * @return the converted prices indexed by row
+   *
+   * @throws CancellationException if the conversion was given up
+   */
+  public double[] convert(SalesTable table, int count, int capacity, int target, double[] latest,
+      HistoricalRateStore history, BooleanSupplier cancelled) {
+    double[] converted = new double[capacity];
+    if (count == 0) {
+      return converted;
+    }
+    long firstDay = table.getFirstEpochDay();
+    double[][] dayRates = null;
+    if (history != null) {
+      dayRates = new double[(int) (table.getLastEpochDay() - firstDay + 1)][];
+      for (int day = 0; day < dayRates.length; day++) {
+        dayRates[day] = history.get(firstDay + day);
+      }
+    }
+    final double[][] rates = dayRates;
+    int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    try {
+      pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(chunk -> {
+        if (cancelled.getAsBoolean()) {
+          return;
+        }
+        int last = Math.min(count, (chunk + 1) * CHUNK_SIZE);
+        for (int row = chunk * CHUNK_SIZE; row < last; row++) {
+          double[] vector = rates == null ? null : rates[(int) (table.getEpochDay(row) - firstDay)];
+          converted[row] = convertRow(table, row, target, vector, latest);
+        }
+      })).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Conversion interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Conversion failed", e.getCause());
+    }
+    if (cancelled.getAsBoolean()) {
+      throw new CancellationException("Conversion superseded");
+    }
+    return converted;
+  }
+
+  /**
+   * Converts a specific sale's price using either historical or contemporary exchange rates.
+   *
+   * <p>If historical conversion fails, provides contemporary conversion.
+   *
+   * @param table the table holding the sale
+   * @param row the row of the sale
+   * @param target the ordinal of the currency to convert into
+   * @param historical the rate vector of the sale's day, or null to use contemporary rates
+   * @param latest the current rate vector, or null if unavailable
+   *
+   * @return the converted price, or 0.0 if no exchange rate is available
+   */
+  public static double convertRow(SalesTable table, int row, int target, double[] historical,
+      double[] latest) {
+    int source = CurrencyConverter.countryCurrencyOrdinal(table.getCountryOrdinal(row));
+    if (source == target) {
+      return table.getPrice(row);
+    }
+    double rate = Double.NaN;
+    if (historical != null) {
+      rate = historical[target] / historical[source];
+    }
+    if (Double.isNaN(rate) && latest != null) {
+      rate = latest[target] / latest[source];
+    }
+    return Double.isNaN(rate) ? 0.0 : table.getPrice(row) * rate;
+  }
+}
@@ -1,32 +1,53 @@
 package projecttwo;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.URL;
+import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Currency;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.TreeSet;
 
 /**
  * Utility class for CISC 3115. Uses a no-cost online currency conversion tool to convert values
  * from one currency to another.
+ *
+ * <p>Rates come from a replaceable 'RateProvider', the online API by default. They are fetched
+ * and kept as dense vectors of the rates of every known currency against a single pivot
+ * currency, indexed by currency ordinal, so that any cross rate is two array reads and a
+ * divide and a change of target currency needs no new data. The static methods use one
+ * process-wide 'ExchangeRates'; a model given its own provider uses its own instance instead.
+ *
+ * @see RateProvider
+ * @see ExchangeRates
  */
 public class CurrencyConverter {
   public static ArrayList<String> countryCodes;
 
-  /* intialize countryCodes */
+  /** ISO currency code of the currency all stored rates are given against. */
+  public static final String PIVOT_CURRENCY = "EUR";
+
+  private static final LatencyHistogram CONVERT = Metrics.histogram("converter.currConvert");
+
+  private static List<String> currencyCodes;
+  private static HashMap<String, Integer> currencyOrdinals;
+  private static HashMap<String, Integer> countryOrdinals;
+  private static int[] countryCurrencies;
+
+  private static volatile ExchangeRates exchangeRates;
+
+  /* intialize countryCodes, currency ordinals and the historical rate store */
 
   static {
-    String[] locales = {"AD", "AS", "AT", "AX", "BE", "BL", "BQ", "BR", "BV", "CA", "CC", "CH", 
-        "CK", "CN", "CX", "CY", "CZ", "DE", "DK", "EC", "EE", "ES", "FI", "FM", "FO", "FR", "GB", 
-        "GF", "GG", "GL", "GP", "GR", "GS", "GU", "HK", "HM", "HR", "HU", "ID", "IE", "IL", "IM", 
-        "IN", "IO", "IS", "IT", "JE", "JP", "KI", "KR", "LI", "LT", "LU", "LV", "MC", "ME", "MF", 
-        "MH", "MP", "MQ", "MT", "MX", "MY", "NF", "NL", "NO", "NR", "NU", "NZ", "PH", "PL", "PM", 
-        "PN", "PR", "PS", "PT", "PW", "RE", "RO", "SE", "SG", "SI", "SJ", "SK", "SM", "TC", "TF", 
+    String[] locales = {"AD", "AS", "AT", "AX", "BE", "BL", "BQ", "BR", "BV", "CA", "CC", "CH",
+        "CK", "CN", "CX", "CY", "CZ", "DE", "DK", "EC", "EE", "ES", "FI", "FM", "FO", "FR", "GB",
+        "GF", "GG", "GL", "GP", "GR", "GS", "GU", "HK", "HM", "HR", "HU", "ID", "IE", "IL", "IM",
+        "IN", "IO", "IS", "IT", "JE", "JP", "KI", "KR", "LI", "LT", "LU", "LV", "MC", "ME", "MF",
+        "MH", "MP", "MQ", "MT", "MX", "MY", "NF", "NL", "NO", "NR", "NU", "NZ", "PH", "PL", "PM",
+        "PN", "PR", "PS", "PT", "PW", "RE", "RO", "SE", "SG", "SI", "SJ", "SK", "SM", "TC", "TF",
         "TH", "TL", "TR", "TV", "UM", "US", "VA", "VG", "VI", "YT", "ZA"};
     countryCodes = new ArrayList<String>();
     for (String s : locales) {
@@ -34,6 +55,26 @@ public class CurrencyConverter {
       //      Locale l = new Locale("en", s);
       //      countryCodes.add(l.getISO3Country());
     }
+
+    TreeSet<String> currencies = new TreeSet<String>();
+    currencies.add(PIVOT_CURRENCY);
+    for (String country : countryCodes) {
+      currencies.add(getCurrency(country).toString());
+    }
+    currencyCodes = Collections.unmodifiableList(new ArrayList<String>(currencies));
+    currencyOrdinals = new HashMap<String, Integer>();
+    for (int i = 0; i < currencyCodes.size(); i++) {
+      currencyOrdinals.put(currencyCodes.get(i), i);
+    }
+    countryOrdinals = new HashMap<String, Integer>();
+    countryCurrencies = new int[countryCodes.size()];
+    for (int i = 0; i < countryCodes.size(); i++) {
+      countryOrdinals.put(countryCodes.get(i), i);
+      countryCurrencies[i] = currencyOrdinal(getCurrency(countryCodes.get(i)).toString());
+    }
+
+    exchangeRates = new ExchangeRates(new HttpRateProvider(),
+        new HistoricalRateStore(HistoricalRateStore.defaultFile()));
   }
 
   /**
@@ -49,6 +90,48 @@ public class CurrencyConverter {
     return Currency.getInstance(l);
   }
 
+  /**
+   * Accessor for the ISO codes of every currency used by a country in 'countryCodes', in
+   *   ordinal order.
+   *
+   * @return the unmodifiable list of currency codes
+   */
+  public static List<String> getCurrencyCodes() {
+    return currencyCodes;
+  }
+
+  /**
+   * Provides the position of a currency in 'getCurrencyCodes()', used to index rate vectors.
+   *
+   * @param currencyCode ISO currency code
+   * @return the currency's ordinal, or -1 if it is not used by any known country
+   */
+  public static int currencyOrdinal(String currencyCode) {
+    Integer ordinal = currencyOrdinals.get(currencyCode);
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  /**
+   * Provides the position of a country in 'countryCodes'.
+   *
+   * @param countryCode Two-character country code.
+   * @return the country's ordinal, or -1 if it is not in 'countryCodes'
+   */
+  public static int countryOrdinal(String countryCode) {
+    Integer ordinal = countryOrdinals.get(countryCode);
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  /**
+   * Provides the ordinal of the currency of a country in 'countryCodes'.
+   *
+   * @param countryOrdinal the position of the country in 'countryCodes'
+   * @return the currency's ordinal
+   */
+  public static int countryCurrencyOrdinal(int countryOrdinal) {
+    return countryCurrencies[countryOrdinal];
+  }
+
   /**
    * Highly brittle function that uses an online currency conversion API.
    *
@@ -63,24 +146,13 @@ public class CurrencyConverter {
     if (from.equals(to)) {
       return amount;    //avoids possible 400 error for same currencies
     } else {
-      try {
-        URL url = new URL("https://api.exchangeratesapi.io/latest?base=" + from + "&symbols=" + to);
-        BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream()));
-        String jsonString = reader.readLine();
-        if (jsonString.length() > 0) {
-          Pattern pattern = Pattern.compile("\\d+\\.\\d*");
-          Matcher matcher = pattern.matcher(jsonString);
-          if (matcher.find()) {
-            return Double.parseDouble(matcher.group()) * amount;
-          } else {
-            return null;
-          }
-        }
-        reader.close();
-      } catch (Exception e) {
-        System.out.println(e.getMessage());
+      long start = System.nanoTime();
+      Double rate = getRate(from, to);
+      CONVERT.recordSince(start);
+      if (rate == null) {
+        return null;
       }
-      return null;
+      return rate * amount;
     }
   }
 
@@ -100,50 +172,180 @@ public class CurrencyConverter {
     if (from.equals(to)) {
       return amount;    //avoids possible 400 error for same currencies
     } else {
-      Calendar cal = Calendar.getInstance();
-      cal.setTime(date);
-      String endDateString = stringify(cal);
-      cal.add(Calendar.DATE, -1);
-      String beginDateString = stringify(cal);
-      try {
-        URL url = new URL(
-            "https://api.exchangeratesapi.io/history?start_at=" + beginDateString + "&end_at=" 
-            + endDateString + "&base=" + from + "&symbols=" + to);
-        BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream()));
-        String jsonString = reader.readLine();
-        if (jsonString.length() > 0) {
-          Pattern pattern = Pattern.compile("\\d+\\.\\d*");
-          Matcher matcher = pattern.matcher(jsonString);
-          if (matcher.find()) {
-            return Double.parseDouble(matcher.group()) * amount;
-          } else {
-            return null;
-          }
-        }
-        reader.close();
-      } catch (Exception e) {
-        System.out.println(e.getMessage());
+      long start = System.nanoTime();
+      Double rate = getRate(from, to, date);
+      CONVERT.recordSince(start);
+      if (rate == null) {
+        return null;
       }
-      return null;
+      return rate * amount;
     }
   }
 
-  private static String stringify(Calendar cal) {
-    int month = cal.get(Calendar.MONTH);
-    int date = cal.get(Calendar.DATE);
-    month++;
-    String monthString;
-    String dateString;
-    if (month < 10) {
-      monthString = "0" + month;
-    } else {
-      monthString = "" + month;
+  /**
+   * Provides the current exchange rate between two currencies from the current rate vector.
+   *
+   * @param from ISO currency code of the source currency
+   * @param to ISO currency code of the target currency
+   * @return the number of units of "to" per unit of "from", or null if unavailable
+   */
+  public static Double getRate(String from, String to) {
+    return crossRate(getRates(), from, to);
+  }
+
+  /**
+   * Provides the exchange rate between two currencies on a given day from that day's rate
+   *   vector.
+   *
+   * @param from ISO currency code of the source currency
+   * @param to ISO currency code of the target currency
+   * @param date the date the exchange rate should be referenced to
+   * @return the number of units of "to" per unit of "from" at the time of date, or null if
+   *     unavailable
+   */
+  public static Double getRate(String from, String to, Date date) {
+    return crossRate(getRates(date), from, to);
+  }
+
+  /**
+   * Provides the current rates of every known currency against the pivot currency from the
+   *   process-wide rates.
+   *
+   * @return the rates indexed by currency ordinal, 'NaN' where unknown, or null if unavailable.
+   *     The array must not be modified.
+   *
+   * @see ExchangeRates#getRates()
+   */
+  public static double[] getRates() {
+    return exchangeRates.getRates();
+  }
+
+  /**
+   * Provides the rates of every known currency against the pivot currency on a given day from
+   *   the process-wide rates.
+   *
+   * @param date the date the rates should be referenced to
+   * @return the rates indexed by currency ordinal, 'NaN' where unknown, or null if unavailable.
+   *     The array must not be modified.
+   *
+   * @see ExchangeRates#getRates(Date)
+   */
+  public static double[] getRates(Date date) {
+    return exchangeRates.getRates(date);
+  }
+
+  /**
+   * Accessor for the process-wide rates, used by the static methods and by models not given a
+   *   rate provider of their own.
+   *
+   * @return the exchange rates in use
+   */
+  public static ExchangeRates getExchangeRates() {
+    return exchangeRates;
+  }
+
+  /**
+   * Accessor for the cache of current rate vectors of the process-wide rates, for inspection of
+   *   its counters.
+   *
+   * @return the rate cache in use
+   */
+  public static RateCache<String, double[]> getRateCache() {
+    return exchangeRates.getRateCache();
+  }
+
+  /**
+   * Replaces the cache of current rate vectors of the process-wide rates with an empty one of
+   *   the given bounds.
+   *
+   * @param maxSize the greatest number of rate vectors to hold
+   * @param ttlMillis how long, in milliseconds, fetched rates are reused
+   */
+  public static void configureRateCache(int maxSize, long ttlMillis) {
+    exchangeRates.configureRateCache(maxSize, ttlMillis);
+  }
+
+  /**
+   * Accessor for the store of historical exchange rates of the process-wide rates.
+   *
+   * @return the historical rate store in use
+   */
+  public static HistoricalRateStore getHistoricalRates() {
+    return exchangeRates.getHistoricalRates();
+  }
+
+  /**
+   * Accessor for the source of the process-wide rates.
+   *
+   * @return the rate provider in use
+   */
+  public static RateProvider getRateProvider() {
+    return exchangeRates.getRateProvider();
+  }
+
+  /**
+   * Replaces the source of the process-wide rates, used by the static methods and by every
+   *   model not given a provider of its own. Cached current rates are discarded and historical
+   *   rates are kept in memory only from then on, since the permanent store holds rates from
+   *   another source. Does nothing if 'rateProvider' is already in use.
+   *
+   * @param rateProvider the new rate provider
+   */
+  public static void setRateProvider(RateProvider rateProvider) {
+    if (rateProvider != getRateProvider()) {
+      setRateProvider(rateProvider, new HistoricalRateStore(null));
     }
-    if (date < 10) {
-      dateString = "0" + date;
-    } else {
-      dateString = "" + date;
+  }
+
+  /**
+   * Replaces the source of the process-wide rates along with the store of historical rates
+   *   taken from it. Cached current rates are discarded.
+   *
+   * @param rateProvider the new rate provider
+   * @param store the store of historical rates from 'rateProvider'
+   */
+  public static void setRateProvider(RateProvider rateProvider, HistoricalRateStore store) {
+    exchangeRates = new ExchangeRates(rateProvider, store);
+  }
+
+  /**
+   * Fills the historical rate store of the process-wide rates with the rates of the given days
+   *   not already stored.
+   *
+   * @param epochDays the days needed, counted from January 1, 1970
+   *
+   * @see ExchangeRates#prefetchDays(Collection)
+   */
+  public static void prefetchDays(Collection<Long> epochDays) {
+    exchangeRates.prefetchDays(epochDays);
+  }
+
+  /**
+   * Provides the calendar day of a date in the default time zone.
+   *
+   * @param date the date
+   * @return the number of days from January 1, 1970 to the day of 'date'
+   */
+  public static long epochDay(Date date) {
+    return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+  }
+
+  /**
+   * Derives the rate between two currencies from their rates against the pivot currency.
+   *
+   * @param rates a rate vector, or null if unavailable
+   * @param from ISO currency code of the source currency
+   * @param to ISO currency code of the target currency
+   * @return the number of units of "to" per unit of "from", or null if either rate is unknown
+   *     or the rate derived is zero or infinite
+   */
+  private static Double crossRate(double[] rates, String from, String to) {
+    int fromOrdinal = currencyOrdinal(from);
+    int toOrdinal = currencyOrdinal(to);
+    if (rates == null || fromOrdinal < 0 || toOrdinal < 0) {
+      return null;
     }
-    return cal.get(Calendar.YEAR) + "-" + monthString + "-" + dateString;
+    double rate = rates[toOrdinal] / rates[fromOrdinal];
+    return rate > 0.0 && !Double.isInfinite(rate) ? rate : null;
   }
 }
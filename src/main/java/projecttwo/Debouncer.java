@@ -0,0 +1,115 @@
+package projecttwo;
+
+import javax.swing.Timer;
+
+/**
+ * Folds a burst of rapid triggers into a single run of an action, made once the triggers have
+ *  stopped for a quiet period, or once they have gone on for a maximum wait.
+ *
+ * <p>Each trigger restarts the quiet period, so a short burst runs the action once however many
+ *  triggers it holds. A burst that does not stop, such as a spinner arrow held down, runs the
+ *  action every maximum wait instead, so the result keeps up with it rather than waiting for the
+ *  burst to end. The action runs on the Swing event dispatch thread, and 'trigger' is meant to
+ *  be called from it as well.
+ *
+ * @see javax.swing.Timer
+ */
+public class Debouncer {
+  private final Runnable action;
+  private final Timer quiet;
+  private final Timer deadline;
+
+  /**
+   * Creates a debouncer for an action which waits for a burst to stop however long it lasts.
+   *
+   * @param quietMillis how long triggers must stop, in milliseconds, before the action runs
+   * @param action the action to run once per burst
+   */
+  public Debouncer(int quietMillis, Runnable action) {
+    this(quietMillis, 0, action);
+  }
+
+  /**
+   * Creates a debouncer for an action.
+   *
+   * @param quietMillis how long triggers must stop, in milliseconds, before the action runs
+   * @param maxWaitMillis the longest, in milliseconds, the action is put off from the first
+   *     trigger after it last ran, or 0 to wait for triggers to stop however long that takes
+   * @param action the action to run once per burst
+   */
+  public Debouncer(int quietMillis, int maxWaitMillis, Runnable action) {
+    checkMillis("quiet period", quietMillis);
+    checkMillis("maximum wait", maxWaitMillis);
+    this.action = action;
+    quiet = new Timer(quietMillis, event -> run());
+    quiet.setRepeats(false);
+    deadline = new Timer(maxWaitMillis, event -> run());
+    deadline.setRepeats(false);
+  }
+
+  /**
+   * Accessor for the quiet period.
+   *
+   * @return how long triggers must stop, in milliseconds, before the action runs
+   */
+  public int getQuietMillis() {
+    return quiet.getInitialDelay();
+  }
+
+  /**
+   * Sets the quiet period, taking effect from the next trigger.
+   *
+   * @param quietMillis how long triggers must stop, in milliseconds, before the action runs
+   */
+  public void setQuietMillis(int quietMillis) {
+    checkMillis("quiet period", quietMillis);
+    quiet.setInitialDelay(quietMillis);
+  }
+
+  /**
+   * Accessor for the maximum wait.
+   *
+   * @return the longest, in milliseconds, the action is put off, or 0 if it waits for triggers
+   *     to stop however long that takes
+   */
+  public int getMaxWaitMillis() {
+    return deadline.getInitialDelay();
+  }
+
+  /**
+   * Sets the maximum wait, taking effect from the next burst.
+   *
+   * @param maxWaitMillis the longest, in milliseconds, the action is put off from the first
+   *     trigger after it last ran, or 0 to wait for triggers to stop however long that takes
+   */
+  public void setMaxWaitMillis(int maxWaitMillis) {
+    checkMillis("maximum wait", maxWaitMillis);
+    deadline.setInitialDelay(maxWaitMillis);
+  }
+
+  /**
+   * Notes a trigger, putting off the action until the quiet period has passed without another,
+   *   or the maximum wait has passed since the burst began.
+   */
+  public void trigger() {
+    quiet.restart();
+    if (deadline.getInitialDelay() > 0 && !deadline.isRunning()) {
+      deadline.start();
+    }
+  }
+
+  /**
+   * Runs the action once the quiet period or the maximum wait is over, ending the burst.
+   */
+  private void run() {
+    quiet.stop();
+    deadline.stop();
+    action.run();
+  }
+
+  private static void checkMillis(String name, int millis) {
+    if (millis < 0) {
+      throw new IllegalArgumentException("Negative " + name + ": " + millis);
+    }
+  }
+}
@@ -0,0 +1,255 @@
+package projecttwo;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The exchange rates of one source: a rate provider, together with the cache of its current
+ *  rates and the store of the historical rates taken from it.
+ *
+ * <p>Rates are kept as dense vectors of the rates of every known currency against
+ *  'CurrencyConverter.PIVOT_CURRENCY', indexed by currency ordinal. Each 'ProgramModel' given a
+ *  provider converts with its own instance, so models with different providers do not change
+ *  each other's rates; 'CurrencyConverter' holds the instance its static methods use.
+ *
+ * @see CurrencyConverter
+ * @see RateProvider
+ */
+public class ExchangeRates {
+  private static final int DEFAULT_CACHE_SIZE = 16;
+  private static final long DEFAULT_CACHE_TTL = 60 * 60 * 1000;
+  private static final int HISTORY_LOOKBACK_DAYS = 4;
+  private static final int HISTORY_LOOKAHEAD_DAYS = 4;
+  private static final int HISTORY_RUN_DAYS = 366;
+  private static final int HISTORY_GAP_DAYS = 31;
+  private static final LatencyHistogram FETCH_LATEST = Metrics.histogram("converter.fetchLatest");
+  private static final LatencyHistogram FETCH_HISTORY =
+      Metrics.histogram("converter.fetchHistory");
+  private static final Metrics.Counter FAILURES = Metrics.counter("converter.failures");
+  private static final ExecutorService fetchers =
+      Executors.newFixedThreadPool(HttpRateProvider.DEFAULT_MAX_IN_FLIGHT, runnable -> {
+        Thread thread = new Thread(runnable, "rate-fetches");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private final RateProvider provider;
+  private final HistoricalRateStore historicalRates;
+  private final Set<Long> unpublishedDays = ConcurrentHashMap.newKeySet();
+  private volatile RateCache<String, double[]> rateCache =
+      new RateCache<String, double[]>(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL);
+
+  /**
+   * Creates the rates of a provider, keeping its historical rates in memory only.
+   *
+   * @param provider the source of the rates
+   */
+  public ExchangeRates(RateProvider provider) {
+    this(provider, new HistoricalRateStore(null));
+  }
+
+  /**
+   * Creates the rates of a provider, keeping its historical rates in the given store.
+   *
+   * @param provider the source of the rates
+   * @param store the store of historical rates from 'provider'
+   */
+  public ExchangeRates(RateProvider provider, HistoricalRateStore store) {
+    this.provider = provider;
+    historicalRates = store;
+  }
+
+  /**
+   * Accessor for the source of the rates.
+   *
+   * @return the rate provider
+   */
+  public RateProvider getRateProvider() {
+    return provider;
+  }
+
+  /**
+   * Accessor for the store of historical rates.
+   *
+   * @return the historical rate store
+   */
+  public HistoricalRateStore getHistoricalRates() {
+    return historicalRates;
+  }
+
+  /**
+   * Accessor for the cache of current rate vectors, for inspection of its counters.
+   *
+   * @return the rate cache in use
+   */
+  public RateCache<String, double[]> getRateCache() {
+    return rateCache;
+  }
+
+  /**
+   * Replaces the cache of current rate vectors with an empty one of the given bounds.
+   *
+   * @param maxSize the greatest number of rate vectors to hold
+   * @param ttlMillis how long, in milliseconds, fetched rates are reused
+   */
+  public void configureRateCache(int maxSize, long ttlMillis) {
+    rateCache = new RateCache<String, double[]>(maxSize, ttlMillis);
+  }
+
+  /**
+   * Provides the current rates of every known currency against the pivot currency, consulting
+   *   the rate cache before the rate provider.
+   *
+   * @return the rates indexed by currency ordinal, 'NaN' where unknown, or null if unavailable.
+   *     The array must not be modified.
+   */
+  public double[] getRates() {
+    RateCache<String, double[]> cache = rateCache;
+    double[] rates = cache.get(CurrencyConverter.PIVOT_CURRENCY);
+    if (rates == null) {
+      rates = fetchRates();
+      if (rates != null) {
+        cache.put(CurrencyConverter.PIVOT_CURRENCY, rates);
+      }
+    }
+    return rates;
+  }
+
+  /**
+   * Provides the rates of every known currency against the pivot currency on a given day,
+   *   consulting the historical rate store before the rate provider.
+   *
+   * @param date the date the rates should be referenced to
+   * @return the rates indexed by currency ordinal, 'NaN' where unknown, or null if unavailable.
+   *     The array must not be modified.
+   */
+  public double[] getRates(Date date) {
+    long epochDay = CurrencyConverter.epochDay(date);
+    double[] rates = historicalRates.get(epochDay);
+    if (rates == null) {
+      prefetchDays(Collections.singleton(epochDay));
+      rates = historicalRates.get(epochDay);
+    }
+    return rates;
+  }
+
+  /**
+   * Fills the historical rate store with the rates of the given days not already stored. Runs of
+   *   nearby days are fetched in one range request each, up to a year long, and the requests
+   *   are made in parallel; the provider bounds how many are in flight. Days without published
+   *   rates, such as weekends, take the most recent rates published before them, as long as
+   *   rates were published after them too. Days after the last rates published are not stored,
+   *   as their rates may not be published yet, and are asked for again. Days with no rates
+   *   published shortly before them either, such as days before a currency existed, are
+   *   remembered in memory and not asked for again.
+   *
+   * @param epochDays the days needed, counted from January 1, 1970
+   */
+  public void prefetchDays(Collection<Long> epochDays) {
+    TreeSet<Long> missingDays = new TreeSet<Long>();
+    for (long epochDay : epochDays) {
+      if (historicalRates.get(epochDay) == null && !unpublishedDays.contains(epochDay)) {
+        missingDays.add(epochDay);
+      }
+    }
+    if (missingDays.isEmpty()) {
+      return;
+    }
+    ArrayList<NavigableSet<Long>> runs = new ArrayList<NavigableSet<Long>>();
+    long runStart = missingDays.first();
+    long previous = runStart;
+    for (long epochDay : missingDays) {
+      if (epochDay - runStart >= HISTORY_RUN_DAYS || epochDay - previous > HISTORY_GAP_DAYS) {
+        runs.add(missingDays.subSet(runStart, true, previous, true));
+        runStart = epochDay;
+      }
+      previous = epochDay;
+    }
+    runs.add(missingDays.subSet(runStart, true, previous, true));
+    if (runs.size() == 1) {
+      prefetchRun(missingDays);
+      return;
+    }
+    CompletableFuture<?>[] fetches = new CompletableFuture<?>[runs.size()];
+    for (int i = 0; i < fetches.length; i++) {
+      NavigableSet<Long> run = runs.get(i);
+      fetches[i] = CompletableFuture.runAsync(() -> prefetchRun(run), fetchers);
+    }
+    CompletableFuture.allOf(fetches).join();
+  }
+
+  /**
+   * Fetches the current rates of every known currency from the rate provider.
+   *
+   * @return the rate vector, or null if unavailable
+   */
+  private double[] fetchRates() {
+    long start = System.nanoTime();
+    try {
+      return provider.getLatestRateVector(CurrencyConverter.PIVOT_CURRENCY,
+          CurrencyConverter.getCurrencyCodes());
+    } catch (IOException e) {
+      FAILURES.increment();
+      System.out.println(e.getMessage());
+    } finally {
+      FETCH_LATEST.recordSince(start);
+    }
+    return null;
+  }
+
+  /**
+   * Fills the historical rate store with the rates of a run of days, in a single range request
+   *  reaching a few days either side of the run, so that the rates of a weekend are those
+   *  published before it and are known to be final once rates are published after it. Days
+   *  after the last day the response has rates for are left for a later request, unless the
+   *  response has no rates at all and the day is long past. Other days the response has no
+   *  rates for are added to 'unpublishedDays'.
+   *
+   * @param run the days needed, counted from January 1, 1970
+   */
+  private void prefetchRun(NavigableSet<Long> run) {
+    NavigableMap<Long, double[]> published;
+    long start = System.nanoTime();
+    try {
+      published = provider.getHistoricalRateVectors(CurrencyConverter.PIVOT_CURRENCY,
+          CurrencyConverter.getCurrencyCodes(),
+          LocalDate.ofEpochDay(run.first() - HISTORY_LOOKBACK_DAYS).toString(),
+          LocalDate.ofEpochDay(run.last() + HISTORY_LOOKAHEAD_DAYS).toString());
+    } catch (IOException e) {
+      FAILURES.increment();
+      System.out.println(e.getMessage());
+      return;
+    } finally {
+      FETCH_HISTORY.recordSince(start);
+    }
+    long lastPublished = published.isEmpty() ? Long.MIN_VALUE : published.lastKey();
+    long recent = LocalDate.now().toEpochDay() - HISTORY_LOOKBACK_DAYS;
+    for (long epochDay : run) {
+      if (epochDay > lastPublished) {
+        if (published.isEmpty() && epochDay < recent) {
+          unpublishedDays.add(epochDay);
+        }
+        continue;
+      }
+      Map.Entry<Long, double[]> latest = published.floorEntry(epochDay);
+      if (latest != null) {
+        historicalRates.put(epochDay, latest.getValue());
+      } else {
+        unpublishedDays.add(epochDay);
+      }
+    }
+  }
+}
@@ -0,0 +1,210 @@
+package projecttwo;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+/**
+ * Binary indexed (Fenwick) tree of sums over a range of integer keys, such as days.
+ *
+ * <p>Adding to a key and summing any range of keys both take O(log n) time for a tree spanning
+ *  n keys. The span of keys grows as needed to take in keys outside of it.
+ *
+ * <p>A tree may also be read straight from its nodes saved in a 'SalesSnapshot', so that a sum
+ *  reads only the O(log n) nodes it needs. The nodes are copied onto the heap on the first
+ *  change to the tree.
+ */
+public class FenwickTree {
+  private long firstKey;
+  private double[] values;
+  private double[] tree;
+  private DoubleBuffer savedNodes;
+
+  /**
+   * Creates a tree holding zero for every key.
+   *
+   * @param firstKey the lowest key initially spanned
+   * @param capacity the number of keys initially spanned
+   */
+  public FenwickTree(long firstKey, int capacity) {
+    this.firstKey = firstKey;
+    this.values = new double[Math.max(capacity, 1)];
+    this.tree = new double[values.length + 1];
+  }
+
+  /**
+   * Creates a tree holding the given values for consecutive keys, in time linear in their
+   *  number.
+   *
+   * @param firstKey the key of the first value
+   * @param values the values of 'firstKey' and the keys following it
+   */
+  public FenwickTree(long firstKey, double[] values) {
+    this.firstKey = firstKey;
+    this.values = values.length > 0 ? values.clone() : new double[1];
+    build();
+  }
+
+  /**
+   * Creates a tree read from its saved nodes, in constant time.
+   *
+   * @param firstKey the lowest key spanned
+   * @param nodes the nodes of the tree from 1 up, as given by 'getNode', which must not change
+   */
+  FenwickTree(long firstKey, DoubleBuffer nodes) {
+    this.firstKey = firstKey;
+    this.savedNodes = nodes;
+  }
+
+  /**
+   * Adds an amount to the value held for a key.
+   *
+   * @param key the key
+   * @param amount the amount to add
+   */
+  public void add(long key, double amount) {
+    copySavedNodes();
+    ensureSpans(key);
+    int index = (int) (key - firstKey);
+    values[index] += amount;
+    for (int i = index + 1; i < tree.length; i += i & -i) {
+      tree[i] += amount;
+    }
+  }
+
+  /**
+   * Sums the values held for a range of keys.
+   *
+   * @param fromKey the lowest key of the range
+   * @param toKey the highest key of the range
+   *
+   * @return the sum of the values of all keys from 'fromKey' to 'toKey', inclusive, or zero if
+   *     the range is empty
+   */
+  public double sum(long fromKey, long toKey) {
+    if (fromKey > toKey) {
+      return 0.0;
+    }
+    return prefixSum(toKey) - prefixSum(fromKey - 1);
+  }
+
+  /**
+   * Sets every value back to zero, keeping the current span of keys.
+   */
+  public void clear() {
+    copySavedNodes();
+    values = new double[values.length];
+    tree = new double[tree.length];
+  }
+
+  /**
+   * Accessor for the lowest key spanned.
+   *
+   * @return the key
+   */
+  long getFirstKey() {
+    return firstKey;
+  }
+
+  /**
+   * Accessor for the number of keys spanned, which is also the number of nodes.
+   *
+   * @return the span
+   */
+  int getSpan() {
+    return savedNodes != null ? savedNodes.limit() : values.length;
+  }
+
+  /**
+   * Accessor for a node of the tree, holding the sum of the values of the keys it covers: the
+   *   key at position 'index' - 1 and the ones before it, as many as the lowest set bit of
+   *   'index'.
+   *
+   * @param index the node, from 1 to 'getSpan'
+   *
+   * @return the sum held by the node
+   */
+  double getNode(int index) {
+    return savedNodes != null ? savedNodes.get(index - 1) : tree[index];
+  }
+
+  /**
+   * Sums the values of every key up to and including the given one.
+   *
+   * @param key the highest key summed
+   * @return the sum
+   */
+  private double prefixSum(long key) {
+    if (key < firstKey) {
+      return 0.0;
+    }
+    int count = (int) Math.min(key - firstKey + 1, getSpan());
+    double sum = 0.0;
+    for (int i = count; i > 0; i -= i & -i) {
+      sum += getNode(i);
+    }
+    return sum;
+  }
+
+  /**
+   * Copies saved nodes onto the heap so that the tree can be changed, recovering the value of
+   *  each key by undoing 'build' in linear time: each node, taken from the last, is taken away
+   *  from its parent, leaving every node holding only the value of its own key.
+   */
+  private void copySavedNodes() {
+    if (savedNodes == null) {
+      return;
+    }
+    int span = savedNodes.limit();
+    tree = new double[span + 1];
+    savedNodes.duplicate().get(tree, 1, span);
+    values = Arrays.copyOfRange(tree, 1, span + 1);
+    for (int i = span; i > 0; i--) {
+      int parent = i + (i & -i);
+      if (parent <= span) {
+        values[parent - 1] -= values[i - 1];
+      }
+    }
+    savedNodes = null;
+  }
+
+  /**
+   * Widens the span of keys to include 'key', at least doubling it when it must grow so that
+   *  growth costs amortized constant time per key.
+   *
+   * @param key the key to include
+   */
+  private void ensureSpans(long key) {
+    long lastKey = firstKey + values.length - 1;
+    if (key >= firstKey && key <= lastKey) {
+      return;
+    }
+    long newFirst = Math.min(firstKey, key);
+    long newLast = Math.max(lastKey, key);
+    long span = Math.max(newLast - newFirst + 1, 2L * values.length);
+    if (key < firstKey) {
+      newFirst = newLast - span + 1;
+    }
+    if (span > Integer.MAX_VALUE - 1) {
+      throw new IllegalArgumentException("Key out of supported range: " + key);
+    }
+    double[] newValues = new double[(int) span];
+    System.arraycopy(values, 0, newValues, (int) (firstKey - newFirst), values.length);
+    firstKey = newFirst;
+    values = newValues;
+    build();
+  }
+
+  /**
+   * Rebuilds the tree from 'values' in linear time.
+   */
+  private void build() {
+    tree = new double[values.length + 1];
+    for (int i = 1; i < tree.length; i++) {
+      tree[i] += values[i - 1];
+      int parent = i + (i & -i);
+      if (parent < tree.length) {
+        tree[parent] += tree[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package projecttwo;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Provides exchange rates from a local rate table, for offline use and benchmarking.
+ *
+ * <p>The table is a CSV file of 'yyyy-MM-dd,currency,rate' lines, each giving the number of
+ *  units of 'currency' per unit of a single reference currency on that day. Rates between any
+ *  two currencies in the table are derived through the reference currency. Lines that cannot be
+ *  parsed, such as a header, are skipped. The latest rates are those of the last day in the
+ *  table.
+ *
+ * @see RateProvider
+ */
+public class FileRateProvider implements RateProvider {
+  private final TreeMap<String, Map<String, Double>> table =
+      new TreeMap<String, Map<String, Double>>();
+  private final String reference;
+
+  /**
+   * Loads a rate table whose rates are given against the euro.
+   *
+   * @param file the CSV rate table
+   *
+   * @throws IOException if the file could not be read
+   */
+  public FileRateProvider(File file) throws IOException {
+    this(file, "EUR");
+  }
+
+  /**
+   * Loads a rate table.
+   *
+   * @param file the CSV rate table
+   * @param reference ISO currency code of the currency all rates in the file are given against
+   *
+   * @throws IOException if the file could not be read
+   */
+  public FileRateProvider(File file, String reference) throws IOException {
+    this.reference = reference;
+    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split(",");
+        if (fields.length != 3) {
+          continue;
+        }
+        try {
+          double rate = Double.parseDouble(fields[2].trim());
+          table.computeIfAbsent(fields[0].trim(), k -> new HashMap<String, Double>())
+              .put(fields[1].trim(), rate);
+        } catch (NumberFormatException e) {
+          //skip the line
+        }
+      }
+    }
+  }
+
+  @Override
+  public Map<String, Double> getLatestRates(String base, Collection<String> symbols) {
+    if (table.isEmpty()) {
+      return new HashMap<String, Double>();
+    }
+    return crossRates(table.lastEntry().getValue(), base, symbols);
+  }
+
+  @Override
+  public SortedMap<String, Map<String, Double>> getHistoricalRates(
+      String base, Collection<String> symbols, String beginDay, String endDay) {
+    TreeMap<String, Map<String, Double>> published = new TreeMap<String, Map<String, Double>>();
+    for (Map.Entry<String, Map<String, Double>> day
+        : table.subMap(beginDay, true, endDay, true).entrySet()) {
+      Map<String, Double> rates = crossRates(day.getValue(), base, symbols);
+      if (!rates.isEmpty()) {
+        published.put(day.getKey(), rates);
+      }
+    }
+    return published;
+  }
+
+  /**
+   * Derives rates against 'base' from one day of the table.
+   *
+   * @param day the rates of that day against the reference currency
+   * @param base ISO currency code of the wanted base currency
+   * @param symbols ISO currency codes of the currencies wanted
+   * @return the rates found, keyed by symbol
+   */
+  private Map<String, Double> crossRates(
+      Map<String, Double> day, String base, Collection<String> symbols) {
+    HashMap<String, Double> rates = new HashMap<String, Double>();
+    Double baseRate = referenceRate(day, base);
+    if (baseRate == null) {
+      return rates;
+    }
+    for (String symbol : symbols) {
+      Double symbolRate = referenceRate(day, symbol);
+      if (symbolRate != null) {
+        rates.put(symbol, symbolRate / baseRate);
+      }
+    }
+    return rates;
+  }
+
+  private Double referenceRate(Map<String, Double> day, String currency) {
+    if (currency.equals(reference)) {
+      return 1.0;
+    }
+    return day.get(currency);
+  }
+}
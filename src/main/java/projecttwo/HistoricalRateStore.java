@@ -0,0 +1,158 @@
+package projecttwo;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Permanent store of historical exchange rates keyed by calendar day.
+ *
+ * <p>Each day holds a dense vector of the rates of every known currency against the pivot
+ *  currency of 'CurrencyConverter', indexed by currency ordinal, with 'NaN' marking a rate that
+ *  is not known. Rates between any two currencies are derived from the vector.
+ *
+ * <p>Historical rates never change once published, so every rate fetched is kept for good. The
+ *  store is loaded from a plain text file when created and each new rate is appended to that
+ *  file as it arrives, one 'from,to,yyyy-MM-dd,rate' line per entry. Lines for pairs that do
+ *  not involve the pivot currency are ignored.
+ *
+ * @see CurrencyConverter
+ */
+public class HistoricalRateStore {
+  private final HashMap<Long, double[]> days = new HashMap<Long, double[]>();
+  private final File file;
+
+  /**
+   * Creates a store backed by the given file, loading any rates it already holds.
+   *
+   * @param file the file to load from and append to, or null to keep rates in memory only
+   */
+  public HistoricalRateStore(File file) {
+    this.file = file;
+    if (file != null && file.exists()) {
+      load();
+    }
+  }
+
+  /**
+   * Provides the default location of the store: the file named by the
+   *  'projecttwo.historicalRates' system property, or 'historical-rates.csv' in the
+   *  '.projecttwo' directory of the user's home.
+   *
+   * @return the default backing file
+   */
+  public static File defaultFile() {
+    String path = System.getProperty("projecttwo.historicalRates");
+    if (path != null) {
+      return new File(path);
+    }
+    return new File(new File(System.getProperty("user.home"), ".projecttwo"),
+        "historical-rates.csv");
+  }
+
+  /**
+   * Looks up the rate vector of a day.
+   *
+   * @param epochDay the day, counted from January 1, 1970
+   *
+   * @return the rates against the pivot currency indexed by currency ordinal, or null if the
+   *     day has never been stored. The array must not be modified.
+   */
+  public synchronized double[] get(long epochDay) {
+    return days.get(epochDay);
+  }
+
+  /**
+   * Stores the rates of a day and appends the ones not already known to the backing file.
+   *   Rates already stored are left as they are.
+   *
+   * @param epochDay the day, counted from January 1, 1970
+   * @param rates rates against the pivot currency indexed by currency ordinal, 'NaN' if unknown
+   */
+  public synchronized void put(long epochDay, double[] rates) {
+    double[] known = vectorFor(epochDay);
+    StringBuilder lines = new StringBuilder();
+    for (int i = 0; i < rates.length; i++) {
+      if (Double.isNaN(known[i]) && !Double.isNaN(rates[i])) {
+        known[i] = rates[i];
+        lines.append(CurrencyConverter.PIVOT_CURRENCY).append(',')
+            .append(CurrencyConverter.getCurrencyCodes().get(i)).append(',')
+            .append(LocalDate.ofEpochDay(epochDay)).append(',')
+            .append(rates[i]).append(System.lineSeparator());
+      }
+    }
+    if (file != null && lines.length() > 0) {
+      append(lines.toString());
+    }
+  }
+
+  /**
+   * Accessor for the number of days held.
+   *
+   * @return the number of stored days
+   */
+  public synchronized int size() {
+    return days.size();
+  }
+
+  private double[] vectorFor(long epochDay) {
+    double[] rates = days.get(epochDay);
+    if (rates == null) {
+      rates = new double[CurrencyConverter.getCurrencyCodes().size()];
+      Arrays.fill(rates, Double.NaN);
+      rates[CurrencyConverter.currencyOrdinal(CurrencyConverter.PIVOT_CURRENCY)] = 1.0;
+      days.put(epochDay, rates);
+    }
+    return rates;
+  }
+
+  /**
+   * Reads every well-formed line of the backing file into memory. Malformed lines, such as one
+   *  cut short by a crash, are skipped.
+   */
+  private void load() {
+    String pivot = CurrencyConverter.PIVOT_CURRENCY;
+    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split(",");
+        if (fields.length != 4) {
+          continue;
+        }
+        try {
+          long epochDay = LocalDate.parse(fields[2]).toEpochDay();
+          double rate = Double.parseDouble(fields[3]);
+          if (fields[0].equals(pivot) && CurrencyConverter.currencyOrdinal(fields[1]) >= 0) {
+            vectorFor(epochDay)[CurrencyConverter.currencyOrdinal(fields[1])] = rate;
+          } else if (fields[1].equals(pivot)
+              && CurrencyConverter.currencyOrdinal(fields[0]) >= 0) {
+            vectorFor(epochDay)[CurrencyConverter.currencyOrdinal(fields[0])] = 1.0 / rate;
+          }
+        } catch (NumberFormatException | DateTimeParseException e) {
+          //skip the line
+        }
+      }
+    } catch (IOException e) {
+      System.out.println(e.getMessage());
+    }
+  }
+
+  private void append(String lines) {
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null) {
+      parent.mkdirs();
+    }
+    try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, true))) {
+      writer.write(lines);
+    } catch (IOException e) {
+      System.out.println(e.getMessage());
+    }
+  }
+}
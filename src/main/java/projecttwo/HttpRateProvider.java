@@ -0,0 +1,301 @@
+package projecttwo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides exchange rates from the no-cost online API at https://exchangeratesapi.io/.
+ *
+ * <p>Requests go through one 'HttpClient' per provider, which keeps connections alive and reuses
+ *  them, so a run of requests pays for one TLS handshake rather than one each. Connecting,
+ *  waiting for a response and reading its body are each bounded by timeouts, and at most a fixed
+ *  number of requests are in flight at once; callers beyond that wait their turn. A caller asking
+ *  for rates another caller is already fetching shares that fetch instead of making its own.
+ *  Fetches are shared by request, that is by base, symbols and range of days as asked for: a
+ *  range overlapping one in flight but not the same is fetched on its own. Rate vectors may be
+ *  shared between callers and must not be modified.
+ *
+ * <p>Responses are read as they arrive by a 'RateResponseParser', straight into rate vectors,
+ *  and the connection is released once each is read or fails.
+ *
+ * @see RateProvider
+ */
+public class HttpRateProvider implements RateProvider {
+  public static final String DEFAULT_URL = "https://api.exchangeratesapi.io";
+  public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+  public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(15);
+  public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+  private static final LatencyHistogram NETWORK = Metrics.histogram("http.network");
+  private static final LatencyHistogram PARSE = Metrics.histogram("http.parse");
+  private static final Metrics.Counter FAILURES = Metrics.counter("http.failures");
+  private static final Metrics.Counter SHARED = Metrics.counter("http.shared");
+  private static final LatencyHistogram PERMIT = Metrics.histogram("http.permit");
+  private static final ScheduledExecutorService watchdog =
+      Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rate-timeouts");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private final String baseUrl;
+  private final Duration requestTimeout;
+  private final HttpClient client;
+  private final Semaphore permits;
+  private final ConcurrentHashMap<String, CompletableFuture<Object>> fetches =
+      new ConcurrentHashMap<String, CompletableFuture<Object>>();
+
+  /**
+   * Reader of a response body.
+   *
+   * @param <T> the class of what is read
+   */
+  private interface BodyReader<T> {
+
+    /**
+     * Reads a response body.
+     *
+     * @param body the response body
+     * @return what was read
+     * @throws IOException if the body could not be read
+     */
+    T read(InputStream body) throws IOException;
+  }
+
+  /**
+   * Creates a provider using the public API.
+   */
+  public HttpRateProvider() {
+    this(DEFAULT_URL);
+  }
+
+  /**
+   * Creates a provider using an API at the given location.
+   *
+   * @param baseUrl the scheme, host and path prefix of the API, without a trailing slash
+   */
+  public HttpRateProvider(String baseUrl) {
+    this(baseUrl, DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT, DEFAULT_MAX_IN_FLIGHT);
+  }
+
+  /**
+   * Creates a provider using an API at the given location, with the given limits.
+   *
+   * @param baseUrl the scheme, host and path prefix of the API, without a trailing slash
+   * @param connectTimeout how long to wait for a connection to be made
+   * @param requestTimeout how long to wait for a response to start once a request is sent, and
+   *     then again for its body to be read
+   * @param maxInFlight the greatest number of requests in flight at once
+   */
+  public HttpRateProvider(String baseUrl, Duration connectTimeout, Duration requestTimeout,
+      int maxInFlight) {
+    this.baseUrl = baseUrl;
+    this.requestTimeout = requestTimeout;
+    client = HttpClient.newBuilder()
+        .connectTimeout(connectTimeout)
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .build();
+    permits = new Semaphore(maxInFlight, true);
+  }
+
+  @Override
+  public Map<String, Double> getLatestRates(String base, Collection<String> symbols)
+      throws IOException {
+    List<String> wanted = new ArrayList<String>(symbols);
+    return toMap(wanted, getLatestRateVector(base, wanted));
+  }
+
+  @Override
+  public SortedMap<String, Map<String, Double>> getHistoricalRates(
+      String base, Collection<String> symbols, String beginDay, String endDay) throws IOException {
+    List<String> wanted = new ArrayList<String>(symbols);
+    TreeMap<String, Map<String, Double>> published = new TreeMap<String, Map<String, Double>>();
+    for (Map.Entry<Long, double[]> day
+        : getHistoricalRateVectors(base, wanted, beginDay, endDay).entrySet()) {
+      published.put(LocalDate.ofEpochDay(day.getKey()).toString(), toMap(wanted, day.getValue()));
+    }
+    return published;
+  }
+
+  @Override
+  public double[] getLatestRateVector(String base, List<String> symbols) throws IOException {
+    return fetch(baseUrl + "/latest?base=" + base + "&symbols="
+        + String.join(",", others(base, symbols)), symbols,
+        body -> new RateResponseParser(symbols).parseLatest(body, base));
+  }
+
+  @Override
+  public NavigableMap<Long, double[]> getHistoricalRateVectors(
+      String base, List<String> symbols, String beginDay, String endDay) throws IOException {
+    return fetch(baseUrl + "/history?start_at=" + beginDay + "&end_at=" + endDay
+        + "&base=" + base + "&symbols=" + String.join(",", others(base, symbols)), symbols,
+        body -> new RateResponseParser(symbols).parseHistory(body, base));
+  }
+
+  /**
+   * Provides the symbols other than a base currency, to ask the API for.
+   *
+   * @param base ISO currency code of the base currency
+   * @param symbols ISO currency codes
+   * @return the codes without 'base'
+   */
+  private static List<String> others(String base, List<String> symbols) {
+    ArrayList<String> others = new ArrayList<String>(symbols);
+    others.remove(base);
+    return others;
+  }
+
+  /**
+   * Collects the rates of a rate vector which are known.
+   *
+   * @param symbols ISO currency codes indexing the vector
+   * @param vector the rate vector
+   * @return the rates keyed by symbol
+   */
+  private static Map<String, Double> toMap(List<String> symbols, double[] vector) {
+    HashMap<String, Double> rates = new HashMap<String, Double>();
+    for (int i = 0; i < vector.length; i++) {
+      if (!Double.isNaN(vector[i])) {
+        rates.put(symbols.get(i), vector[i]);
+      }
+    }
+    return rates;
+  }
+
+  /**
+   * Fetches and reads a response from the API, or waits for the same fetch already in flight
+   *   and shares what it reads.
+   *
+   * @param location the URL of the request
+   * @param symbols ISO currency codes the rate vectors read are indexed by
+   * @param reader reads the response body
+   * @param <T> the class of what is read
+   * @return what was read
+   * @throws IOException if the request failed or the response could not be read
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T fetch(String location, List<String> symbols, BodyReader<T> reader)
+      throws IOException {
+    String key = location + " " + String.join(",", symbols);
+    CompletableFuture<Object> fetch = new CompletableFuture<Object>();
+    CompletableFuture<Object> shared = fetches.putIfAbsent(key, fetch);
+    if (shared != null) {
+      SHARED.increment();
+      try {
+        return (T) shared.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+        throw e;
+      }
+    }
+    try {
+      T read = send(location, reader);
+      fetch.complete(read);
+      return read;
+    } catch (IOException | RuntimeException e) {
+      fetch.completeExceptionally(e);
+      throw e;
+    } finally {
+      fetches.remove(key, fetch);
+    }
+  }
+
+  /**
+   * Sends a request to the API once fewer than the greatest number of requests are in flight,
+   *   and reads the response. The body is read to the end and closed whatever happens, so that
+   *   the connection may be reused. If the body is not read within the request timeout, it is
+   *   closed from the 'watchdog' thread, so that a stalled response cannot hold its permit for
+   *   good.
+   *
+   * @param location the URL of the request
+   * @param reader reads the response body
+   * @param <T> the class of what is read
+   * @return what was read
+   * @throws IOException if the request failed, timed out or was interrupted, or the response
+   *     could not be read
+   */
+  private <T> T send(String location, BodyReader<T> reader) throws IOException {
+    HttpRequest request = HttpRequest.newBuilder(URI.create(location))
+        .timeout(requestTimeout)
+        .GET()
+        .build();
+    long start = System.nanoTime();
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting to fetch rates");
+    }
+    try {
+      start = PERMIT.recordSince(start);
+      HttpResponse<InputStream> response;
+      try {
+        response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        FAILURES.increment();
+        throw new InterruptedIOException("Interrupted fetching rates");
+      } catch (IOException e) {
+        FAILURES.increment();
+        throw e;
+      } finally {
+        start = NETWORK.recordSince(start);
+      }
+      InputStream body = response.body();
+      ScheduledFuture<?> deadline = watchdog.schedule(() -> {
+        try {
+          body.close();
+        } catch (IOException e) {
+          // the reading thread fails either way
+        }
+      }, requestTimeout.toNanos(), TimeUnit.NANOSECONDS);
+      try (body) {
+        if (response.statusCode() != 200) {
+          throw new IOException("HTTP " + response.statusCode() + " from " + location);
+        }
+        T read = reader.read(body);
+        body.transferTo(OutputStream.nullOutputStream());
+        return read;
+      } catch (IOException e) {
+        FAILURES.increment();
+        if (deadline.isDone() && !deadline.isCancelled()) {
+          throw new HttpTimeoutException("Response from " + location + " not read within "
+              + requestTimeout.toMillis() + " ms");
+        }
+        throw e;
+      } finally {
+        deadline.cancel(false);
+        PARSE.recordSince(start);
+      }
+    } finally {
+      permits.release();
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package projecttwo;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds, in the manner of an HDR histogram: buckets are spaced
+ *  evenly within each power of two and grow with it, so any latency from a nanosecond to
+ *  centuries is held to within about 3% in a fixed 15 KB.
+ *
+ * <p>Recording takes a few atomic increments and never allocates or locks, so it is cheap enough
+ *  for hot paths and may be done from any number of threads at once. Percentiles are read from
+ *  the buckets as they stand, without stopping recorders.
+ *
+ * @see Metrics
+ */
+public class LatencyHistogram implements Metrics.HistogramMXBean {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS =
+      2 * SUB_BUCKETS + (Long.SIZE - SUB_BUCKET_BITS - 2) * SUB_BUCKETS;
+  private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final String name;
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Creates an empty histogram.
+   *
+   * @param name the name the histogram is known by
+   */
+  public LatencyHistogram(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Records a latency. Negative latencies are recorded as zero.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  public void record(long nanos) {
+    long value = Math.max(nanos, 0);
+    buckets.incrementAndGet(bucketOf(value));
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * Records the time since a start, in the manner of 'record(System.nanoTime() - startNanos)',
+   *   and provides the time now so that the next stage of some work may be timed from it.
+   *
+   * @param startNanos the start, as given by 'System.nanoTime()'
+   *
+   * @return the time now, as given by 'System.nanoTime()'
+   */
+  public long recordSince(long startNanos) {
+    long now = System.nanoTime();
+    record(now - startNanos);
+    return now;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public long getCount() {
+    return count.sum();
+  }
+
+  @Override
+  public double getMeanMillis() {
+    long recorded = count.sum();
+    return recorded == 0 ? 0.0 : sum.sum() / NANOS_PER_MILLI / recorded;
+  }
+
+  @Override
+  public double getMaxMillis() {
+    return max.get() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getP50Millis() {
+    return percentileNanos(50.0) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getP90Millis() {
+    return percentileNanos(90.0) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getP99Millis() {
+    return percentileNanos(99.0) / NANOS_PER_MILLI;
+  }
+
+  /**
+   * Provides the latency at or below which a percentage of the recorded latencies fall, as the
+   *   highest latency of its bucket.
+   *
+   * @param percentile the percentage, from 0 to 100
+   *
+   * @return the latency in nanoseconds, or 0 if nothing has been recorded
+   */
+  public long percentileNanos(double percentile) {
+    long total = 0;
+    long[] counts = new long[BUCKETS];
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      counts[bucket] = buckets.get(bucket);
+      total += counts[bucket];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max((long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total), 1);
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += counts[bucket];
+      if (seen >= rank) {
+        return Math.min(highestOf(bucket), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * Provides the bucket of a latency: latencies below '2 * SUB_BUCKETS' have a bucket each, and
+   *  each power of two above is split into 'SUB_BUCKETS' buckets of equal width.
+   *
+   * @param nanos the latency, not negative
+   * @return the bucket
+   */
+  static int bucketOf(long nanos) {
+    if (nanos < 2 * SUB_BUCKETS) {
+      return (int) nanos;
+    }
+    int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+    int mantissa = (int) (nanos >>> shift);
+    return 2 * SUB_BUCKETS + (shift - 1) * SUB_BUCKETS + mantissa - SUB_BUCKETS;
+  }
+
+  /**
+   * Provides the highest latency falling in a bucket.
+   *
+   * @param bucket the bucket
+   * @return the latency
+   */
+  static long highestOf(int bucket) {
+    if (bucket < 2 * SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = (bucket - 2 * SUB_BUCKETS) / SUB_BUCKETS + 1;
+    long mantissa = (bucket - 2 * SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+    long next = (mantissa + 1) << shift;
+    return next <= 0 ? Long.MAX_VALUE : next - 1;
+  }
+}
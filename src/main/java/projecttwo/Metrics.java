@@ -0,0 +1,246 @@
+package projecttwo;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Registry of the counters and latency histograms kept by the program, for finding where its
+ *  time goes.
+ *
+ * <p>Each metric is created on first use and kept for the life of the program, and is also
+ *  registered with the platform MBean server under the 'projecttwo' domain, so it can be watched
+ *  with any JMX console. 'dump' describes every metric as text, and 'startDump' prints that
+ *  description periodically.
+ *
+ * <p>Callers on hot paths should look a metric up once and keep it, as recording is far cheaper
+ *  than the lookup.
+ *
+ * @see LatencyHistogram
+ */
+public class Metrics {
+  private static final String DOMAIN = "projecttwo";
+
+  private static final TreeMap<String, Counter> counters = new TreeMap<String, Counter>();
+  private static final TreeMap<String, LatencyHistogram> histograms =
+      new TreeMap<String, LatencyHistogram>();
+  private static ScheduledExecutorService dumper;
+  private static ScheduledFuture<?> dumping;
+
+  /**
+   * Management interface of a counter.
+   */
+  public interface CounterMXBean {
+
+    /**
+     * Accessor for the name the counter is known by.
+     *
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * Accessor for the number counted.
+     *
+     * @return the count
+     */
+    long getCount();
+  }
+
+  /**
+   * Management interface of a latency histogram.
+   */
+  public interface HistogramMXBean {
+
+    /**
+     * Accessor for the name the histogram is known by.
+     *
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * Accessor for the number of latencies recorded.
+     *
+     * @return the count
+     */
+    long getCount();
+
+    /**
+     * Accessor for the mean of the latencies recorded.
+     *
+     * @return the mean in milliseconds, or 0 if none have been
+     */
+    double getMeanMillis();
+
+    /**
+     * Accessor for the median of the latencies recorded.
+     *
+     * @return the median in milliseconds, or 0 if none have been
+     */
+    double getP50Millis();
+
+    /**
+     * Accessor for the 90th percentile of the latencies recorded.
+     *
+     * @return the percentile in milliseconds, or 0 if none have been
+     */
+    double getP90Millis();
+
+    /**
+     * Accessor for the 99th percentile of the latencies recorded.
+     *
+     * @return the percentile in milliseconds, or 0 if none have been
+     */
+    double getP99Millis();
+
+    /**
+     * Accessor for the longest latency recorded.
+     *
+     * @return the latency in milliseconds, or 0 if none have been
+     */
+    double getMaxMillis();
+  }
+
+  /**
+   * Count of events, which may be added to from any number of threads at once without contention.
+   */
+  public static final class Counter implements CounterMXBean {
+    private final String name;
+    private final LongAdder count = new LongAdder();
+
+    private Counter(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Counts one event.
+     */
+    public void increment() {
+      count.increment();
+    }
+
+    /**
+     * Counts some events.
+     *
+     * @param events the number of events
+     */
+    public void add(long events) {
+      count.add(events);
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public long getCount() {
+      return count.sum();
+    }
+  }
+
+  /**
+   * Provides the counter of a name, creating and registering it if there is none yet.
+   *
+   * @param name the name, dot-separated by convention
+   *
+   * @return the counter
+   */
+  public static synchronized Counter counter(String name) {
+    return counters.computeIfAbsent(name, key -> register("Counter", key, new Counter(key)));
+  }
+
+  /**
+   * Provides the latency histogram of a name, creating and registering it if there is none yet.
+   *
+   * @param name the name, dot-separated by convention
+   *
+   * @return the histogram
+   */
+  public static synchronized LatencyHistogram histogram(String name) {
+    return histograms.computeIfAbsent(name,
+        key -> register("Histogram", key, new LatencyHistogram(key)));
+  }
+
+  /**
+   * Describes every metric as text, one per line in order of name: the count of each counter,
+   *   and the count, mean, median, 90th and 99th percentiles and maximum of each histogram, in
+   *   milliseconds.
+   *
+   * @return the description
+   */
+  public static synchronized String dump() {
+    StringBuilder text = new StringBuilder();
+    text.append(String.format("%-36s %9s %10s %10s %10s %10s %10s%n",
+        "histogram (ms)", "count", "mean", "p50", "p90", "p99", "max"));
+    for (LatencyHistogram histogram : histograms.values()) {
+      text.append(String.format("%-36s %9d %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+          histogram.getName(), histogram.getCount(), histogram.getMeanMillis(),
+          histogram.getP50Millis(), histogram.getP90Millis(), histogram.getP99Millis(),
+          histogram.getMaxMillis()));
+    }
+    text.append(String.format("%-36s %9s%n", "counter", "count"));
+    for (Counter counter : counters.values()) {
+      text.append(String.format("%-36s %9d%n", counter.getName(), counter.getCount()));
+    }
+    return text.toString();
+  }
+
+  /**
+   * Prints 'dump()' periodically from a background thread, replacing any periodic dump already
+   *   started.
+   *
+   * @param out where to print
+   * @param periodMillis the time between dumps in milliseconds
+   */
+  public static synchronized void startDump(PrintStream out, long periodMillis) {
+    stopDump();
+    if (dumper == null) {
+      dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "metrics-dump");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    dumping = dumper.scheduleAtFixedRate(() -> out.print(dump()), periodMillis, periodMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops printing 'dump()' periodically, if it was started.
+   */
+  public static synchronized void stopDump() {
+    if (dumping != null) {
+      dumping.cancel(false);
+      dumping = null;
+    }
+  }
+
+  /**
+   * Registers a metric with the platform MBean server. A metric which cannot be registered is
+   *  still kept and dumped.
+   *
+   * @param type the kind of metric
+   * @param name the name of the metric
+   * @param metric the metric
+   * @param <T> the class of the metric
+   * @return 'metric'
+   */
+  private static <T> T register(String type, String name, T metric) {
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(metric,
+          new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name)));
+    } catch (JMException e) {
+      System.out.println(e.getMessage());
+    }
+    return metric;
+  }
+}
@@ -0,0 +1,129 @@
+package projecttwo;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A change made to a 'ProgramModel', delivered to each 'ModelListener' by calling the method
+ *  for its kind. Events are immutable, so one instance is delivered to every listener.
+ *
+ * @see ModelListener
+ */
+public abstract class ModelEvent {
+
+  private ModelEvent() {
+  }
+
+  /**
+   * Delivers the event to a listener.
+   *
+   * @param listener the listener
+   */
+  abstract void deliverTo(ModelListener listener);
+
+  /**
+   * A single sale was added.
+   */
+  public static final class SaleAdded extends ModelEvent {
+    private final RealEstateSale sale;
+    private final int row;
+
+    SaleAdded(RealEstateSale sale, int row) {
+      this.sale = sale;
+      this.row = row;
+    }
+
+    @Override
+    void deliverTo(ModelListener listener) {
+      listener.saleAdded(sale, row);
+    }
+  }
+
+  /**
+   * Many sales were added in one step, in consecutive rows.
+   */
+  public static final class SalesAdded extends ModelEvent {
+    private final int firstRow;
+    private final int count;
+
+    SalesAdded(int firstRow, int count) {
+      this.firstRow = firstRow;
+      this.count = count;
+    }
+
+    @Override
+    void deliverTo(ModelListener listener) {
+      listener.salesAdded(firstRow, count);
+    }
+  }
+
+  /**
+   * Every converted price was regenerated.
+   */
+  public static final class PricesRegenerated extends ModelEvent {
+    private final Locale locale;
+    private final boolean historical;
+
+    PricesRegenerated(Locale locale, boolean historical) {
+      this.locale = locale;
+      this.historical = historical;
+    }
+
+    @Override
+    void deliverTo(ModelListener listener) {
+      listener.pricesRegenerated(locale, historical);
+    }
+  }
+
+  /**
+   * The range of dates totalled changed.
+   */
+  public static final class RangeChanged extends ModelEvent {
+    private final Date begin;
+    private final Date end;
+
+    RangeChanged(Date begin, Date end) {
+      this.begin = begin;
+      this.end = end;
+    }
+
+    @Override
+    void deliverTo(ModelListener listener) {
+      listener.rangeChanged(begin, end);
+    }
+  }
+
+  /**
+   * The user's locale changed.
+   */
+  public static final class LocaleChanged extends ModelEvent {
+    private final Locale locale;
+
+    LocaleChanged(Locale locale) {
+      this.locale = locale;
+    }
+
+    @Override
+    void deliverTo(ModelListener listener) {
+      listener.localeChanged(locale);
+    }
+  }
+
+  /**
+   * The countries shown and totalled changed.
+   */
+  public static final class FilterChanged extends ModelEvent {
+    private final Set<String> countries;
+
+    FilterChanged(Set<String> countries) {
+      this.countries = Collections.unmodifiableSet(countries);
+    }
+
+    @Override
+    void deliverTo(ModelListener listener) {
+      listener.filterChanged(countries);
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package projecttwo;
+
+import java.util.Date;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Receiver of the changes made to a 'ProgramModel', one method per kind of 'ModelEvent'.
+ *
+ * <p>Events are delivered in batches on the model's notification executor, the Swing event
+ *  dispatch thread by default: every change made since the last batch is delivered in order,
+ *  then 'batchEnded' is called once. A listener may therefore note what changed in each method
+ *  and bring its view up to date once per batch, however many changes were made. Every method
+ *  does nothing by default.
+ *
+ * @see ProgramModel#addModelListener(ModelListener)
+ */
+public interface ModelListener {
+
+  /**
+   * Called when a single sale has been added.
+   *
+   * @param sale the view of the new row
+   * @param row the row of the new sale in the model's 'SalesTable'
+   */
+  default void saleAdded(RealEstateSale sale, int row) {
+  }
+
+  /**
+   * Called when many sales have been added in one step.
+   *
+   * @param firstRow the row of the first new sale in the model's 'SalesTable'
+   * @param count the number of new sales, in consecutive rows
+   */
+  default void salesAdded(int firstRow, int count) {
+  }
+
+  /**
+   * Called when every converted price has been regenerated, and the total with them.
+   *
+   * @param locale the locale the prices are now converted to
+   * @param historical whether historical exchange rates were used
+   */
+  default void pricesRegenerated(Locale locale, boolean historical) {
+  }
+
+  /**
+   * Called when the range of dates totalled has changed, and the total with it.
+   *
+   * @param begin the new lowest date totalled
+   * @param end the new highest date totalled
+   */
+  default void rangeChanged(Date begin, Date end) {
+  }
+
+  /**
+   * Called when the user's locale has changed. Always followed by 'pricesRegenerated' in the
+   *   same batch.
+   *
+   * @param locale the new locale
+   */
+  default void localeChanged(Locale locale) {
+  }
+
+  /**
+   * Called when the countries shown and totalled have changed, and the total with them.
+   *
+   * @param countries the 2-letter codes of the countries, empty for every country
+   */
+  default void filterChanged(Set<String> countries) {
+  }
+
+  /**
+   * Called once every event of a batch has been delivered.
+   */
+  default void batchEnded() {
+  }
+}
@@ -0,0 +1,110 @@
+package projecttwo;
+
+/**
+ * Sorts rows by a column of prices using a least significant digit radix sort on the bits of the
+ *  prices, without comparing them or boxing them.
+ *
+ * <p>Each price is mapped to a 64-bit key whose unsigned order is that of 'Double.compare', so
+ *  negative values, both zeros, infinities and NaN all sort as they would by comparison. The keys
+ *  are then sorted one byte at a time, skipping any byte which is the same in every key. Every
+ *  pass is stable, so rows of equal price stay in row order.
+ *
+ * @see ProgramModel
+ */
+public class PriceSort {
+  private static final int RADIX_BITS = 8;
+  private static final int RADIX = 1 << RADIX_BITS;
+  private static final int PASSES = Long.SIZE / RADIX_BITS;
+
+  /**
+   * Sorts rows 0 to 'count' - 1 by their prices.
+   *
+   * @param prices the prices indexed by row, at least 'count' long
+   * @param count the number of rows to sort
+   *
+   * @return the rows in ascending order of price, rows of equal price in row order
+   */
+  public static int[] sort(double[] prices, int count) {
+    long[] keys = new long[count];
+    for (int row = 0; row < count; row++) {
+      keys[row] = sortableBits(prices[row]);
+    }
+    return sortKeys(keys);
+  }
+
+  /**
+   * Sorts rows 0 to 'count' - 1 of a table by their converted prices, reading each price once.
+   *
+   * @param table the sales
+   * @param count the number of rows to sort
+   *
+   * @return the rows in ascending order of converted price, rows of equal price in row order
+   */
+  public static int[] sort(SalesTable table, int count) {
+    long[] keys = new long[count];
+    for (int row = 0; row < count; row++) {
+      keys[row] = sortableBits(table.getConvertedPrice(row));
+    }
+    return sortKeys(keys);
+  }
+
+  /**
+   * Sorts rows by keys compared as unsigned, such as the sortable bits of their prices.
+   *
+   * @param keys the key of each row, which are reordered
+   * @return the rows in ascending order of key, rows of equal key in row order
+   */
+  static int[] sortKeys(long[] keys) {
+    int count = keys.length;
+    int[] rows = new int[count];
+    for (int row = 0; row < count; row++) {
+      rows[row] = row;
+    }
+    int[][] counts = new int[PASSES][RADIX];
+    for (int i = 0; i < count; i++) {
+      long key = keys[i];
+      for (int pass = 0; pass < PASSES; pass++) {
+        counts[pass][(int) (key >>> (pass * RADIX_BITS)) & (RADIX - 1)]++;
+      }
+    }
+    long[] keyBuffer = new long[count];
+    int[] rowBuffer = new int[count];
+    for (int pass = 0; pass < PASSES; pass++) {
+      int[] digitCounts = counts[pass];
+      if (count == 0 || digitCounts[(int) (keys[0] >>> (pass * RADIX_BITS)) & (RADIX - 1)]
+          == count) {
+        continue;
+      }
+      int offset = 0;
+      for (int digit = 0; digit < RADIX; digit++) {
+        int digitCount = digitCounts[digit];
+        digitCounts[digit] = offset;
+        offset += digitCount;
+      }
+      for (int i = 0; i < count; i++) {
+        int target = digitCounts[(int) (keys[i] >>> (pass * RADIX_BITS)) & (RADIX - 1)]++;
+        keyBuffer[target] = keys[i];
+        rowBuffer[target] = rows[i];
+      }
+      long[] swapKeys = keys;
+      keys = keyBuffer;
+      keyBuffer = swapKeys;
+      int[] swapRows = rows;
+      rows = rowBuffer;
+      rowBuffer = swapRows;
+    }
+    return rows;
+  }
+
+  /**
+   * Maps a price to a key whose unsigned order matches the order of prices under
+   *   'Double.compare'.
+   *
+   * @param price the price
+   * @return the key
+   */
+  static long sortableBits(double price) {
+    long bits = Double.doubleToLongBits(price);
+    return bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+  }
+}
@@ -1,42 +1,206 @@
 package projecttwo;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Calendar;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import javax.swing.SwingUtilities;
 
 /**
  * Model for a collection of 'RealEstateSale' instances and their totals converted to a common 
  *  currency and filterd by beginning and end dates.
  *
+ *  <p>Sales are held in a columnar 'SalesTable' of primitive arrays, and 'RealEstateSale'
+ *  instances are handed out only as views of its rows. The rows are also kept sorted by each
+ *  'SortOrder', so that the sales can be listed in any of them without sorting.
+ *
+ *  <p>The sales shown and totalled may be restricted to some countries. Converted prices are
+ *  summed by day for each country as well as overall, so the total for any countries and dates
+ *  takes a few tree lookups per country rather than a pass over the sales. Counts and sums are
+ *  also rolled up by country, year and month in a 'SalesCube' for summaries.
+ *
+ *  <p>Every change to the model is carried out in order on a single background thread, so that
+ *  network access and bulk conversions never block the caller. The asynchronous setters return
+ *  a 'CompletableFuture' for the change, and listeners are sent a 'ModelEvent' describing it on
+ *  the Swing event dispatch thread once it is done. Events raised while earlier ones wait to be
+ *  delivered join their batch, so a burst of changes costs listeners one update. A price
+ *  regeneration still waiting or running when a newer one is requested is cancelled.
+ *
+ *  <p>The sales, their converted prices and the orders and totals kept of them may be saved to
+ *  a 'SalesSnapshot' and restored from one, mapping it rather than reading it. Sales added
+ *  since may be kept in a 'SalesJournal', so that they survive a crash.
+ *
  *  @author Sanford Wilson
  *  @version 0.5 4/26/19
  *  @since 0.5
  *
  *  @see RealEstateSale
- *  @see java.util.Observable
+ *  @see ModelListener
  */
-public class ProgramModel extends java.util.Observable {
-  private ArrayList<RealEstateSale> sales;
-  private HashMap<RealEstateSale, Double> convertedPrices;
-  private Locale userLocale;
-  private boolean historical = false;
+public class ProgramModel {
+
+  /**
+   * Orderings of the sales in the model, each kept sorted by an index.
+   */
+  public enum SortOrder {
+    /** By date of sale. */
+    DATE,
+    /** By price converted to the currency of the user's locale. */
+    PRICE,
+    /** By country code. */
+    COUNTRY
+  }
+
+  private static final LatencyHistogram REGENERATE_QUEUED =
+      Metrics.histogram("model.regenerate.queued");
+  private static final LatencyHistogram REGENERATE_PREFETCH =
+      Metrics.histogram("model.regenerate.prefetch");
+  private static final LatencyHistogram REGENERATE_CONVERT =
+      Metrics.histogram("model.regenerate.convert");
+  private static final LatencyHistogram REGENERATE_SORT =
+      Metrics.histogram("model.regenerate.sort");
+  private static final LatencyHistogram REGENERATE_PUBLISH =
+      Metrics.histogram("model.regenerate.publish");
+  private static final LatencyHistogram REGENERATE = Metrics.histogram("model.regenerate");
+  private static final Metrics.Counter REGENERATE_CANCELLED =
+      Metrics.counter("model.regenerate.cancelled");
+  private static final LatencyHistogram UPDATE_TOTAL = Metrics.histogram("model.updateTotal");
+  private static final LatencyHistogram NOTIFY_QUEUED = Metrics.histogram("model.notify.queued");
+  private static final LatencyHistogram NOTIFY = Metrics.histogram("model.notify");
+
+  private SalesTable table;
+  private FenwickTree dailyTotals;
+  private FenwickTree[] countryTotals;
+  private SalesCube cube;
+  private volatile BitSet countryFilter;
+  private final int[] shownCounts = new int[SortOrder.values().length];
+  private final BitSet[] shownFilters = new BitSet[SortOrder.values().length];
+  private final int[][] shownRows = new int[SortOrder.values().length][];
+  private SortedIndex dateIndex;
+  private SortedIndex priceIndex;
+  private SortedIndex countryIndex;
+  private final ConversionEngine engine = new ConversionEngine();
+  private final ExchangeRates exchangeRates;
+  private final ExecutorService updater = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "model-updates");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private Executor notifier = SwingUtilities::invokeLater;
+  private final CopyOnWriteArrayList<ModelListener> listeners =
+      new CopyOnWriteArrayList<ModelListener>();
+  private final List<ModelEvent> pendingEvents = new ArrayList<ModelEvent>();
+  private volatile SalesJournal journal;
+  private long snapshotGeneration;
+  private final AtomicLong regenerations = new AtomicLong();
+
+  private volatile Locale userLocale;
+  private volatile boolean historical = false;
+  private volatile Locale requestedLocale;
+  private volatile boolean requestedHistorical = false;
   
-  private Date beginDate;
-  private Date endDate;
+  private volatile Date beginDate;
+  private volatile Date endDate;
   private final Date now = new Date();
 
-  private double total;
+  private volatile double total;
 
   /**
-   * Constructor. In current form provides a generated data set for demonstration purposes.
+   * Constructor. In current form provides a generated data set for demonstration purposes,
+   *   converted with the process-wide rates of 'CurrencyConverter'.
    */
   public ProgramModel() {
+    exchangeRates = CurrencyConverter.getExchangeRates();
     setup();
   }
 
+  /**
+   * Constructor taking the source of exchange rates to use. In current form provides a
+   *   generated data set for demonstration purposes.
+   *
+   * @param rateProvider the source of exchange rates for this model alone, or that of
+   *     'CurrencyConverter' to share its rates
+   *
+   * @see RateProvider
+   */
+  public ProgramModel(RateProvider rateProvider) {
+    exchangeRates = exchangeRatesOf(rateProvider);
+    setup();
+  }
+
+  /**
+   * Constructor taking the source of exchange rates and a snapshot to restore the sales from.
+   *   The snapshot is mapped rather than read, along with the sorted orders, daily and
+   *   per-country totals and monthly rollups saved in it, so this returns at once whatever its
+   *   size and reads only what is then asked for. If there is no snapshot yet, a generated data
+   *   set is provided instead.
+   *
+   * @param rateProvider the source of exchange rates for this model alone, or that of
+   *     'CurrencyConverter' to share its rates
+   * @param snapshot the snapshot file, which may not exist
+   *
+   * @throws IOException if the snapshot exists but cannot be opened
+   *
+   * @see SalesSnapshot
+   */
+  public ProgramModel(RateProvider rateProvider, Path snapshot) throws IOException {
+    exchangeRates = exchangeRatesOf(rateProvider);
+    if (Files.exists(snapshot)) {
+      restore(SalesSnapshot.open(snapshot));
+    } else {
+      setup();
+    }
+  }
+
+  /**
+   * Constructor taking the source of exchange rates, a snapshot to restore the sales from and a
+   *   journal of the sales added since. The sales in the journal are replayed on top of the
+   *   snapshot, and every sale added afterwards is appended to the journal. A journal older than
+   *   the snapshot, left behind if saving the snapshot was cut short before the journal could be
+   *   emptied, holds only sales the snapshot already has, so it is emptied instead.
+   *
+   * @param rateProvider the source of exchange rates for this model alone, or that of
+   *     'CurrencyConverter' to share its rates
+   * @param snapshot the snapshot file, which may not exist
+   * @param journal the journal, not yet replayed
+   *
+   * @throws IOException if the snapshot exists but cannot be opened, or if the journal cannot
+   *     be read
+   *
+   * @see SalesJournal
+   */
+  public ProgramModel(RateProvider rateProvider, Path snapshot, SalesJournal journal)
+      throws IOException {
+    this(rateProvider, snapshot);
+    if (journal.getGeneration() < snapshotGeneration) {
+      journal.reset(snapshotGeneration);
+    } else {
+      journal.replay((countryOrdinals, prices, epochDays, count) ->
+          updater.execute(() -> appendRows(countryOrdinals, prices, epochDays, count)));
+    }
+    this.journal = journal;
+  }
+
   /**
    * Accesses the final date in the range used to calculate 'total'.
    *
@@ -63,14 +227,225 @@ public class ProgramModel extends java.util.Observable {
   /**
    * Accessor for all sales in the model.
    *
-   * @return An 'ArrayList' containing all of the RealEstateSale objects under consideration.
+   * @return An 'ArrayList' containing views of all of the RealEstateSale objects under
+   *     consideration, in date order.
    *
    * @see ArrayList
    */
-  public ArrayList<RealEstateSale> getSales() {
+  public synchronized ArrayList<RealEstateSale> getSales() {
+    ArrayList<RealEstateSale> sales = new ArrayList<RealEstateSale>(table.size());
+    for (int i = 0; i < table.size(); i++) {
+      sales.add(table.view(table.rowInDateOrder(i)));
+    }
     return sales;
   }
 
+  /**
+   * Accessor for the columnar store backing the model, for tight loops over its rows.
+   *
+   * @return the 'SalesTable' holding every sale and its converted price
+   */
+  public SalesTable getSalesTable() {
+    return table;
+  }
+
+  /**
+   * Accessor for the exchange rates the model converts with.
+   *
+   * @return the rates of the model's rate provider
+   */
+  public ExchangeRates getExchangeRates() {
+    return exchangeRates;
+  }
+
+  /**
+   * Accessor for the rows of 'getSalesTable()' sorted in an order. Sales which are equal in that
+   *   order are sorted by the order in which they were added.
+   *
+   * @param order the order of the rows
+   *
+   * @return the rows in order, in an array which must not be modified and which will not change
+   */
+  public int[] getSortedRows(SortOrder order) {
+    return index(order).rows();
+  }
+
+  /**
+   * Accessor for the rows of 'getSalesTable()' passing the country filter, sorted in an order.
+   *   Sales which are equal in that order are sorted by the order in which they were added.
+   *
+   * <p>The rows shown for each order are kept from one call to the next. Sales are only ever
+   *   appended, so the rows added since the last call are the rows numbered from the count
+   *   then on; only those are filtered and merged in. All rows are filtered afresh only when
+   *   the filter changes or the order is rebuilt.
+   *
+   * @param order the order of the rows
+   *
+   * @return the rows in order, in an array which must not be modified and which will not change
+   */
+  public int[] getShownRows(SortOrder order) {
+    BitSet filter = countryFilter;
+    if (filter == null) {
+      return getSortedRows(order);
+    }
+    synchronized (shownRows) {
+      int[] rows = getSortedRows(order);
+      int slot = order.ordinal();
+      if (shownFilters[slot] != filter || shownRows[slot] == null
+          || rows.length < shownCounts[slot]) {
+        shownFilters[slot] = filter;
+        shownRows[slot] = null;
+        shownCounts[slot] = 0;
+      }
+      int covered = shownCounts[slot];
+      if (shownRows[slot] == null || rows.length > covered) {
+        int[] shown = new int[rows.length - covered];
+        int count = 0;
+        if (covered == 0) {
+          for (int row : rows) {
+            if (filter.get(table.getCountryOrdinal(row))) {
+              shown[count++] = row;
+            }
+          }
+          shownRows[slot] = Arrays.copyOf(shown, count);
+        } else {
+          for (int row = covered; row < rows.length; row++) {
+            if (filter.get(table.getCountryOrdinal(row))) {
+              shown[count++] = row;
+            }
+          }
+          shownRows[slot] = index(order).merge(shownRows[slot], shown, count);
+        }
+        shownCounts[slot] = rows.length;
+      }
+      return shownRows[slot];
+    }
+  }
+
+  /**
+   * Totals the sales of a country over a range of months.
+   *
+   * @param country the 2-letter code of the country
+   * @param from the first month of the range
+   * @param to the last month of the range, inclusive
+   *
+   * @return the number of sales and their sums in local currency and in the currency of the
+   *     current locale
+   * @throws IllegalArgumentException if the country is not one of 'CurrencyConverter.countryCodes'
+   *
+   * @see SalesCube
+   */
+  public synchronized SalesCube.Rollup getRollup(String country, YearMonth from, YearMonth to) {
+    return cube.rollup(knownCountryOrdinal(country), from, to);
+  }
+
+  /**
+   * Totals the sales of each country over a range of months.
+   *
+   * @param from the first month of the range
+   * @param to the last month of the range, inclusive
+   *
+   * @return the totals indexed by position in 'CurrencyConverter.countryCodes'
+   *
+   * @see SalesCube
+   */
+  public synchronized SalesCube.Rollup[] getRollupsByCountry(YearMonth from, YearMonth to) {
+    return cube.rollupByCountry(from, to);
+  }
+
+  /**
+   * Totals the sales of a country in each month of a range.
+   *
+   * @param country the 2-letter code of the country
+   * @param from the first month of the range
+   * @param to the last month of the range, inclusive
+   *
+   * @return the totals of each month in order
+   * @throws IllegalArgumentException if the country is not one of 'CurrencyConverter.countryCodes'
+   *
+   * @see SalesCube
+   */
+  public synchronized SalesCube.Rollup[] getRollupsByMonth(
+      String country, YearMonth from, YearMonth to) {
+    return cube.rollupByMonth(knownCountryOrdinal(country), from, to);
+  }
+
+  /**
+   * Provides the rates a model converts with. The process-wide rates of 'CurrencyConverter' are
+   *  shared, with their permanent store of historical rates, when their provider is given;
+   *  any other provider gets rates of its own, with historical rates kept in memory only.
+   *
+   * @param rateProvider the source of exchange rates
+   * @return the rates of 'rateProvider'
+   */
+  private static ExchangeRates exchangeRatesOf(RateProvider rateProvider) {
+    ExchangeRates shared = CurrencyConverter.getExchangeRates();
+    return rateProvider == shared.getRateProvider() ? shared : new ExchangeRates(rateProvider);
+  }
+
+  /**
+   * Finds the position of a country in 'CurrencyConverter.countryCodes'.
+   *
+   * @param country the 2-letter code of the country
+   *
+   * @return the position
+   * @throws IllegalArgumentException if the country is not listed
+   */
+  private static int knownCountryOrdinal(String country) {
+    int ordinal = CurrencyConverter.countryOrdinal(country);
+    if (ordinal < 0) {
+      throw new IllegalArgumentException("Unknown country: " + country);
+    }
+    return ordinal;
+  }
+
+  /**
+   * Checks sales before they are journaled or added, as a sale the table cannot hold would
+   *  leave it out of step with the indexes and totals, and be replayed from the journal again
+   *  at every start.
+   *
+   * @param countryOrdinals positions of the sales' countries in 'CurrencyConverter.countryCodes'
+   * @param prices the amounts of the sales in local currency
+   * @param epochDays the days of the sales, counted from January 1, 1970
+   * @param count the number of sales to take from the start of the arrays
+   *
+   * @throws IllegalArgumentException if any of the sales is not valid
+   */
+  private static void checkRows(int[] countryOrdinals, double[] prices, long[] epochDays,
+      int count) {
+    if (count < 0 || count > countryOrdinals.length || count > prices.length
+        || count > epochDays.length) {
+      throw new IllegalArgumentException("Count does not fit the arrays: " + count);
+    }
+    int countries = CurrencyConverter.countryCodes.size();
+    for (int i = 0; i < count; i++) {
+      if (countryOrdinals[i] < 0 || countryOrdinals[i] >= countries) {
+        throw new IllegalArgumentException("Unknown country ordinal: " + countryOrdinals[i]);
+      }
+      if (!(prices[i] >= 0.0) || Double.isInfinite(prices[i])) {
+        throw new IllegalArgumentException("Invalid price: " + prices[i]);
+      }
+    }
+  }
+
+  /**
+   * Accessor for the countries the shown sales and total are restricted to.
+   *
+   * @return the 2-letter codes of the countries, or an empty set if sales of every country are
+   *     shown
+   */
+  public Set<String> getCountryFilter() {
+    Set<String> countries = new HashSet<String>();
+    BitSet filter = countryFilter;
+    if (filter != null) {
+      for (int country = filter.nextSetBit(0); country >= 0;
+          country = filter.nextSetBit(country + 1)) {
+        countries.add(CurrencyConverter.countryCodes.get(country));
+      }
+    }
+    return countries;
+  }
+
   /**
    * Accessor for the current Locale used for determining RealEstateSale values and total.
    *
@@ -82,6 +457,16 @@ public class ProgramModel extends java.util.Observable {
     return userLocale;
   }
 
+  /**
+   * Accessor for whether historical exchange rates are used for determining RealEstateSale
+   *   values and total.
+   *
+   * @return true if the rate on the day of each sale is used, false if the latest rate is
+   */
+  public boolean isHistorical() {
+    return historical;
+  }
+
   /**
    * Provides the cached value of an individual sale in the data set in the currency
    *   of the currently selected 'Locale'.
@@ -89,13 +474,14 @@ public class ProgramModel extends java.util.Observable {
    * @param sale the RealEstateSale under consideration
    *
    * @return The price of 'sale' in the current Locale's currency, or 0.0 if 'sale' is not
-   *     an element of the data set
+   *     a view of the data set
    *
    * @see CurrencyConverter
    */
   public double getConvertedPrice(RealEstateSale sale) {
-    if (convertedPrices.containsKey(sale)) {
-      return convertedPrices.get(sale);
+    int row = table.rowOf(sale);
+    if (row >= 0) {
+      return table.getConvertedPrice(row);
     } else {
       return 0.0;
     }
@@ -103,8 +489,8 @@ public class ProgramModel extends java.util.Observable {
 
   /**
    * Assigns a new 'Locale' for the instance. Converts the prices of all sales into the currency
-   *   of the new 'Locale' and caches the values, then updates the total. Future improvements
-   *   would include longer-term caching to improve performance.
+   *   of the new 'Locale' and caches the values, then updates the total. Waits for the change
+   *   to be made.
    *
    * @param locale The new 'Locale' to be set.
    *
@@ -112,74 +498,432 @@ public class ProgramModel extends java.util.Observable {
    * @see CurrencyConverter
    */
   public void setUserLocale(Locale locale) {
-    if (userLocale != locale) {
-      userLocale = locale;
-      generateConvertedPrices();
-      updateTotal();
-      setChanged();
-      notifyObservers(locale);
+    await(setUserLocaleAsync(locale));
+  }
+
+  /**
+   * Assigns a new 'Locale' for the instance in the background. Converts the prices of all sales
+   *   into the currency of the new 'Locale' and caches the values, then updates the total and
+   *   notifies listeners of the new 'Locale' and prices.
+   *
+   * <p>The new 'Locale' takes effect only once all prices are converted. If another locale or
+   *   historical setting is requested first, this change is abandoned in favor of that one.
+   *
+   * @param locale The new 'Locale' to be set.
+   *
+   * @return a future completed once the change is made, or cancelled if it is superseded
+   */
+  public CompletableFuture<Void> setUserLocaleAsync(Locale locale) {
+    if (locale.equals(requestedLocale)) {
+      return CompletableFuture.completedFuture(null);
     }
+    requestedLocale = locale;
+    return regenerate();
   }
   
   /**
    * Sets the property for using historical exchange rates in calculations.
    *
-   * <p>Causes all prices and total to be re-calculated and cached, notifies observers.
+   * <p>Causes all prices and total to be re-calculated and cached, notifies listeners. Waits for
+   *   the change to be made.
    *
    * @param toSet the new state of historical
    */
   public void setHistorical(boolean toSet) {
-    if (historical != toSet) {
-      historical = toSet;
-      generateConvertedPrices();
-      updateTotal();
-      setChanged();
-      notifyObservers();
+    await(setHistoricalAsync(toSet));
+  }
+
+  /**
+   * Sets the property for using historical exchange rates in calculations in the background.
+   *
+   * <p>Causes all prices and total to be re-calculated and cached, notifies listeners. If
+   *   another locale or historical setting is requested first, this change is abandoned in favor
+   *   of that one.
+   *
+   * @param toSet the new state of historical
+   *
+   * @return a future completed once the change is made, or cancelled if it is superseded
+   */
+  public CompletableFuture<Void> setHistoricalAsync(boolean toSet) {
+    if (requestedHistorical == toSet) {
+      return CompletableFuture.completedFuture(null);
     }
+    requestedHistorical = toSet;
+    return regenerate();
   }
 
   /**
    * Sets a new lower date threshold for calculating totals. Updates the total
-   *   and notifies observers.
+   *   and notifies listeners. Waits for the change to be made.
    *
    * @param date The new lowest Date for total calculation.
    *
    * @see Date
    */
   public void setBeginDate(Date date) {
-    beginDate = date;
-    updateTotal();
-    setChanged();
-    notifyObservers();
+    await(setBeginDateAsync(date));
+  }
+
+  /**
+   * Sets a new lower date threshold for calculating totals in the background. Updates the total
+   *   and notifies listeners.
+   *
+   * @param date The new lowest Date for total calculation.
+   *
+   * @return a future completed once the change is made
+   */
+  public CompletableFuture<Void> setBeginDateAsync(Date date) {
+    return CompletableFuture.runAsync(() -> {
+      beginDate = date;
+      updateTotal();
+      notifyLater(new ModelEvent.RangeChanged(beginDate, endDate));
+    }, updater);
   }
 
   /**
   * Sets a new upper date threshold for calculating totals. Updates the total
-  *   and notifies observers.
+  *   and notifies listeners. Waits for the change to be made.
   *
   * @param date The new highest Date for total calculation.
   *
   * @see Date
   */
   public void setEndDate(Date date) {
-    endDate = date;
-    updateTotal();
-    setChanged();
-    notifyObservers();
+    await(setEndDateAsync(date));
+  }
+
+  /**
+   * Sets a new upper date threshold for calculating totals in the background. Updates the total
+   *   and notifies listeners.
+   *
+   * @param date The new highest Date for total calculation.
+   *
+   * @return a future completed once the change is made
+   */
+  public CompletableFuture<Void> setEndDateAsync(Date date) {
+    return CompletableFuture.runAsync(() -> {
+      endDate = date;
+      updateTotal();
+      notifyLater(new ModelEvent.RangeChanged(beginDate, endDate));
+    }, updater);
+  }
+
+  /**
+   * Restricts the shown sales and the total to sales of some countries. Updates the total and
+   *   notifies listeners. Waits for the change to be made.
+   *
+   * @param countries the 2-letter codes of the countries, or an empty collection for every
+   *     country
+   */
+  public void setCountryFilter(Collection<String> countries) {
+    await(setCountryFilterAsync(countries));
+  }
+
+  /**
+   * Restricts the shown sales and the total to sales of some countries in the background.
+   *   Updates the total and notifies listeners.
+   *
+   * @param countries the 2-letter codes of the countries, or an empty collection for every
+   *     country
+   *
+   * @return a future completed once the change is made
+   */
+  public CompletableFuture<Void> setCountryFilterAsync(Collection<String> countries) {
+    BitSet filter = null;
+    if (!countries.isEmpty()) {
+      filter = new BitSet(CurrencyConverter.countryCodes.size());
+      for (String country : countries) {
+        int ordinal = CurrencyConverter.countryOrdinal(country);
+        if (ordinal >= 0) {
+          filter.set(ordinal);
+        }
+      }
+    }
+    BitSet newFilter = filter;
+    return CompletableFuture.runAsync(() -> {
+      countryFilter = newFilter;
+      updateTotal();
+      notifyLater(new ModelEvent.FilterChanged(getCountryFilter()));
+    }, updater);
+  }
+
+  /**
+   * Sets new lower and upper date thresholds for calculating totals together. Updates the total
+   *   once and notifies listeners. Waits for the change to be made.
+   *
+   * @param begin The new lowest Date for total calculation.
+   * @param end The new highest Date for total calculation.
+   */
+  public void setDateRange(Date begin, Date end) {
+    await(setDateRangeAsync(begin, end));
+  }
+
+  /**
+   * Sets new lower and upper date thresholds for calculating totals together in the background.
+   *   Updates the total once and notifies listeners.
+   *
+   * @param begin The new lowest Date for total calculation.
+   * @param end The new highest Date for total calculation.
+   *
+   * @return a future completed once the change is made
+   */
+  public CompletableFuture<Void> setDateRangeAsync(Date begin, Date end) {
+    return CompletableFuture.runAsync(() -> {
+      beginDate = begin;
+      endDate = end;
+      updateTotal();
+      notifyLater(new ModelEvent.RangeChanged(beginDate, endDate));
+    }, updater);
   }
 
   /**
    * Enters the provided RealEstateSale into the data set. Calculates and caches the sale's
-   *   price in the currency of the current userLocale. Updates total and notifies observers.
+   *   price in the currency of the current userLocale. Updates total and notifies listeners
+   *   of the new row. Waits for the sale to be entered and, if the model keeps a
+   *   journal, committed to it.
    *
    * @param sale The sale to be added
    */
   public void addSale(RealEstateSale sale) {
-    sales.add(sale);
-    convertedPrices.put(sale, convertPrice(sale, historical));
+    await(addSaleAsync(sale));
+  }
+
+  /**
+   * Enters the provided RealEstateSale into the data set in the background. Calculates and
+   *   caches the sale's price in the currency of the current userLocale. Updates total and
+   *   notifies listeners of the new row.
+   *
+   * @param sale The sale to be added
+   *
+   * @return a future completed with the view of the new row once the sale is entered and, if the
+   *     model keeps a journal, committed to it
+   */
+  public CompletableFuture<RealEstateSale> addSaleAsync(RealEstateSale sale) {
+    return CompletableFuture.supplyAsync(() -> {
+      int row;
+      synchronized (this) {
+        row = table.add(CurrencyConverter.countryOrdinal(sale.getCountry()), sale.getPrice(),
+            CurrencyConverter.epochDay(sale.getDate()));
+      }
+      SalesJournal log = journal;
+      CompletableFuture<Void> commit = log == null ? CompletableFuture.completedFuture(null)
+          : log.append(table.getCountryOrdinal(row), table.getPrice(row), table.getEpochDay(row));
+      prefetchRates(row, row + 1, historical);
+      convertRows(row, row + 1);
+      dateIndex.insert(row);
+      priceIndex.insert(row);
+      countryIndex.insert(row);
+      updateTotal();
+      RealEstateSale view = table.view(row);
+      notifyLater(new ModelEvent.SaleAdded(view, row));
+      return commit.thenApply(committed -> view);
+    }, updater).thenCompose(entered -> entered);
+  }
+
+  /**
+   * Enters many RealEstateSales into the data set in one step, in the manner of 'addRows'.
+   *   Waits for the sales to be entered and, if the model keeps a journal, committed to it.
+   *
+   * @param sales the sales to be added, in order
+   *
+   * @return the row of the first new sale, the others following it in order
+   */
+  public int addSales(Collection<RealEstateSale> sales) {
+    try {
+      return addSalesAsync(sales).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Enters many RealEstateSales into the data set in one step in the background, in the manner
+   *   of 'addRowsAsync'. The fields of the sales are copied before this returns, so a feed may
+   *   reuse the collection at once. Rates are fetched once per day the sales fall on rather than
+   *   once per sale, the total is updated once and listeners are sent a single 'SalesAdded'.
+   *
+   * @param sales the sales to be added, in order
+   *
+   * @return a future completed with the row of the first new sale once they are entered and, if
+   *     the model keeps a journal, committed to it
+   */
+  public CompletableFuture<Integer> addSalesAsync(Collection<RealEstateSale> sales) {
+    int count = sales.size();
+    int[] countryOrdinals = new int[count];
+    double[] prices = new double[count];
+    long[] epochDays = new long[count];
+    int i = 0;
+    for (RealEstateSale sale : sales) {
+      countryOrdinals[i] = CurrencyConverter.countryOrdinal(sale.getCountry());
+      prices[i] = sale.getPrice();
+      epochDays[i] = CurrencyConverter.epochDay(sale.getDate());
+      i++;
+    }
+    return addRowsAsync(countryOrdinals, prices, epochDays, count);
+  }
+
+  /**
+   * Appends many sales to the data set in one step. Calculates and caches their prices in the
+   *   currency of the current userLocale, merges them into every sorted index at once, then
+   *   updates total and notifies listeners a single time. Waits for the sales to be entered and,
+   *   if the model keeps a journal, committed to it.
+   *
+   * @param countryOrdinals positions of the sales' countries in 'CurrencyConverter.countryCodes'
+   * @param prices the amounts of the sales in local currency
+   * @param epochDays the days of the sales, counted from January 1, 1970
+   * @param count the number of sales to take from the start of the arrays
+   *
+   * @return the row of the first new sale, the others following it in order
+   *
+   * @throws IllegalArgumentException if a country ordinal is not a position in
+   *     'CurrencyConverter.countryCodes', a price is negative or not finite, or 'count' does not
+   *     fit the arrays; nothing is journaled or added then
+   */
+  public int addRows(int[] countryOrdinals, double[] prices, long[] epochDays, int count) {
+    try {
+      return addRowsAsync(countryOrdinals, prices, epochDays, count).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Appends many sales to the data set in one step in the background. Calculates and caches
+   *   their prices in the currency of the current userLocale, merges them into every sorted index
+   *   at once, then updates total and notifies listeners a single time.
+   *
+   * <p>The arrays are read once the sales are entered, so they must not be changed until the
+   *   future completes.
+   *
+   * @param countryOrdinals positions of the sales' countries in 'CurrencyConverter.countryCodes'
+   * @param prices the amounts of the sales in local currency
+   * @param epochDays the days of the sales, counted from January 1, 1970
+   * @param count the number of sales to take from the start of the arrays
+   *
+   * @return a future completed with the row of the first new sale once they are entered and, if
+   *     the model keeps a journal, committed to it
+   *
+   * @throws IllegalArgumentException if a country ordinal is not a position in
+   *     'CurrencyConverter.countryCodes', a price is negative or not finite, or 'count' does not
+   *     fit the arrays; nothing is journaled or added then
+   */
+  public CompletableFuture<Integer> addRowsAsync(
+      int[] countryOrdinals, double[] prices, long[] epochDays, int count) {
+    checkRows(countryOrdinals, prices, epochDays, count);
+    return CompletableFuture.supplyAsync(() -> {
+      SalesJournal log = journal;
+      CompletableFuture<Void> commit = log == null ? CompletableFuture.completedFuture(null)
+          : log.appendAll(countryOrdinals, prices, epochDays, count);
+      int first = appendRows(countryOrdinals, prices, epochDays, count);
+      return commit.thenApply(committed -> first);
+    }, updater).thenCompose(entered -> entered);
+  }
+
+  /**
+   * Saves every sale, its converted price and the locale and historical setting they are for to
+   *   a snapshot file, then empties the journal if the model keeps one. Waits for the snapshot
+   *   to be written.
+   *
+   * @param snapshot the snapshot file, replaced if it exists
+   *
+   * @throws IOException if the snapshot cannot be written
+   *
+   * @see SalesSnapshot
+   */
+  public void saveSnapshot(Path snapshot) throws IOException {
+    try {
+      await(saveSnapshotAsync(snapshot));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Saves every sale, its converted price and the locale and historical setting they are for to
+   *   a snapshot file in the background, after every change already requested, then empties the
+   *   journal if the model keeps one.
+   *
+   * @param snapshot the snapshot file, replaced if it exists
+   *
+   * @return a future completed once the snapshot is written, or completed exceptionally with an
+   *     'UncheckedIOException' if it cannot be
+   */
+  public CompletableFuture<Void> saveSnapshotAsync(Path snapshot) {
+    return CompletableFuture.runAsync(() -> {
+      try {
+        SalesJournal log = journal;
+        long generation = log == null ? 0 : log.getGeneration() + 1;
+        SalesSnapshot.write(table, priceIndex.rows(), countryIndex.rows(), dailyTotals,
+            countryTotals, cube, userLocale, historical, generation, snapshot);
+        if (log != null) {
+          log.reset(generation);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }, updater);
+  }
+
+  /**
+   * Replaces the means by which listeners are notified of changes, the Swing event dispatch
+   *   thread by default.
+   *
+   * @param executor runs each delivery of a batch of events to listeners
+   */
+  public void setNotificationExecutor(Executor executor) {
+    notifier = executor;
+  }
+
+  /**
+   * Registers a listener to be sent every change made to the model from now on.
+   *
+   * @param listener the listener
+   *
+   * @see ModelEvent
+   */
+  public void addModelListener(ModelListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Unregisters a listener, which is sent no batch begun after this returns.
+   *
+   * @param listener the listener, ignored if it is not registered
+   */
+  public void removeModelListener(ModelListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Appends many sales to the data set, converting their prices, merging them into every sorted
+   *   index and updating total, then notifies listeners. Runs on the background thread.
+   *
+   * @param countryOrdinals positions of the sales' countries in 'CurrencyConverter.countryCodes'
+   * @param prices the amounts of the sales in local currency
+   * @param epochDays the days of the sales, counted from January 1, 1970
+   * @param count the number of sales to take from the start of the arrays
+   *
+   * @return the row of the first new sale, the others following it in order
+   */
+  private int appendRows(int[] countryOrdinals, double[] prices, long[] epochDays, int count) {
+    int first;
+    synchronized (this) {
+      first = table.addAll(countryOrdinals, prices, epochDays, count);
+    }
+    prefetchRates(first, first + count, historical);
+    convertRows(first, first + count);
+    dateIndex.insertAll(first, count);
+    priceIndex.insertAll(first, count);
+    countryIndex.insertAll(first, count);
     updateTotal();
-    setChanged();
-    notifyObservers(sale);
+    notifyLater(new ModelEvent.SalesAdded(first, count));
+    return first;
   }
 
   /**
@@ -191,25 +935,195 @@ public class ProgramModel extends java.util.Observable {
     beginDate = cal.getTime();
     endDate = now;
     
-    sales = new ArrayList<RealEstateSale>();
-    sales.addAll(makeTestData());
-    setUserLocale(Locale.getDefault());
+    table = new SalesTable();
+    for (RealEstateSale sale : makeTestData()) {
+      table.add(CurrencyConverter.countryOrdinal(sale.getCountry()), sale.getPrice(),
+          CurrencyConverter.epochDay(sale.getDate()));
+    }
+    createIndexes();
+    dateIndex.rebuild(table.size());
+    countryIndex.rebuild(table.size());
+    requestedLocale = Locale.getDefault();
+    generateConvertedPrices(() -> false);
+    updateTotal();
+  }
+
+  /**
+   * Takes the sales, converted prices, sorted orders, totals, rollups, locale and historical
+   *   setting from a snapshot, all of them left in the mapped file until they are read or
+   *   changed.
+   *
+   * @param snapshot the snapshot, already opened
+   */
+  private void restore(SalesSnapshot snapshot) {
+    Calendar cal = Calendar.getInstance();
+    cal.set(1980, 0, 1);
+    beginDate = cal.getTime();
+    endDate = now;
+
+    table = snapshot.getTable();
+    snapshotGeneration = snapshot.getJournalGeneration();
+    createIndexes();
+    dateIndex.set(snapshot.getDateOrder());
+    priceIndex.set(snapshot.getPriceOrder());
+    countryIndex.set(snapshot.getCountryOrder());
+    requestedLocale = snapshot.getLocale();
+    userLocale = requestedLocale;
+    requestedHistorical = snapshot.isHistorical();
+    historical = requestedHistorical;
+    dailyTotals = snapshot.getDailyTotals();
+    countryTotals = snapshot.getCountryTotals();
+    cube = snapshot.getCube();
     updateTotal();
   }
 
   /**
-   * Recalculates the total value of all RealEstateSale objects in the data set from cached values.
+   * Provides the sorted index of an order.
+   *
+   * @param order the order
+   * @return the index keeping the rows in that order
+   */
+  private SortedIndex index(SortOrder order) {
+    switch (order) {
+      case PRICE:
+        return priceIndex;
+      case COUNTRY:
+        return countryIndex;
+      default:
+        return dateIndex;
+    }
+  }
+
+  /**
+   * Creates the empty sorted indexes over 'table'.
+   */
+  private void createIndexes() {
+    dateIndex = new SortedIndex(table::getEpochDay);
+    priceIndex = new SortedIndex(
+        row -> PriceSort.sortableBits(table.getConvertedPrice(row)) ^ Long.MIN_VALUE);
+    countryIndex = new SortedIndex(table::getCountryOrdinal);
+  }
+
+  /**
+   * Schedules regeneration of all converted prices with the requested locale and historical
+   *   setting, superseding any regeneration scheduled before. Listeners are told of the new
+   *   prices, and of the new locale if it changed.
+   *
+   * @return a future completed once the regeneration is done, or cancelled if it is superseded
+   */
+  private CompletableFuture<Void> regenerate() {
+    long regeneration = regenerations.incrementAndGet();
+    BooleanSupplier superseded = () -> regenerations.get() != regeneration;
+    CompletableFuture<Void> result = new CompletableFuture<Void>();
+    long requested = System.nanoTime();
+    updater.execute(() -> {
+      REGENERATE_QUEUED.recordSince(requested);
+      try {
+        Locale previous = userLocale;
+        generateConvertedPrices(superseded);
+        updateTotal();
+        if (!userLocale.equals(previous)) {
+          notifyLater(new ModelEvent.LocaleChanged(userLocale));
+        }
+        notifyLater(new ModelEvent.PricesRegenerated(userLocale, historical));
+        result.complete(null);
+      } catch (CancellationException e) {
+        REGENERATE_CANCELLED.increment();
+        result.cancel(false);
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Queues an event for delivery to listeners through the notification executor. Only the first
+   *   event queued since the last delivery schedules one; the others join its batch. Events are
+   *   dropped if there are no listeners.
+   *
+   * @param event the event
+   */
+  private void notifyLater(ModelEvent event) {
+    if (listeners.isEmpty()) {
+      return;
+    }
+    synchronized (pendingEvents) {
+      pendingEvents.add(event);
+      if (pendingEvents.size() > 1) {
+        return;
+      }
+    }
+    long posted = System.nanoTime();
+    notifier.execute(() -> deliverEvents(posted));
+  }
+
+  /**
+   * Delivers every queued event to every listener in order, then ends the batch.
+   *
+   * @param posted when the batch was scheduled, as given by 'System.nanoTime()'
+   */
+  private void deliverEvents(long posted) {
+    long start = NOTIFY_QUEUED.recordSince(posted);
+    ModelEvent[] batch;
+    synchronized (pendingEvents) {
+      batch = pendingEvents.toArray(new ModelEvent[pendingEvents.size()]);
+      pendingEvents.clear();
+    }
+    for (ModelListener listener : listeners) {
+      for (ModelEvent event : batch) {
+        event.deliverTo(listener);
+      }
+      listener.batchEnded();
+    }
+    NOTIFY.recordSince(start);
+  }
+
+  /**
+   * Waits for a change to the model to be made. A change superseded by a newer one is not
+   *   treated as a failure.
+   *
+   * @param change the future of the change
+   */
+  private static void await(CompletableFuture<?> change) {
+    try {
+      change.join();
+    } catch (CancellationException e) {
+      //superseded by a newer change
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Recalculates the total value of all RealEstateSale objects in the data set passing the
+   *   country filter from cached daily totals. Sales are counted by calendar day, so every sale
+   *   on the days of 'beginDate' and 'endDate' is included.
    */
   private void updateTotal() {
-    double newTotal = 0.0;
-    for (RealEstateSale sale : sales) {
-      if (sale.getDate().compareTo(beginDate) >= 0 && sale.getDate().compareTo(endDate) <= 0) {
-        newTotal += convertedPrices.get(sale);
+    long start = System.nanoTime();
+    long firstDay = CurrencyConverter.epochDay(beginDate);
+    long lastDay = CurrencyConverter.epochDay(endDate);
+    BitSet filter = countryFilter;
+    if (filter == null) {
+      total = dailyTotals.sum(firstDay, lastDay);
+      UPDATE_TOTAL.recordSince(start);
+      return;
+    }
+    double sum = 0.0;
+    for (int country = filter.nextSetBit(0); country >= 0;
+        country = filter.nextSetBit(country + 1)) {
+      if (countryTotals[country] != null) {
+        sum += countryTotals[country].sum(firstDay, lastDay);
       }
     }
-    total = newTotal;
+    total = sum;
+    UPDATE_TOTAL.recordSince(start);
   }
-  
+
   /**
    * Generates a random data set for testing purposes.
    *
@@ -244,43 +1158,174 @@ public class ProgramModel extends java.util.Observable {
   }
 
   /**
-   * Converts a specific sale's price using either historical or contemporary exchange rates.
+   * Generates cache of converted prices of all sales in model, along with their totals by day,
+   *   for the requested locale and historical setting. The exchange rates needed are fetched up
+   *   front in batches, so the conversions themselves need no further requests and are spread
+   *   across the conversion engine's workers. The new prices, price order, locale and setting
+   *   replace the old ones in a single step once all prices are ready. The time taken by each
+   *   stage is recorded in 'Metrics'.
    *
-   * <p>If historical conversion fails, provides contemporary conversion.
+   * @param cancelled tells whether the regeneration should be abandoned
    *
-   * @param sale The sale.
-   * @param historical whether to use the exchange rate at the time of sale.
+   * @throws CancellationException if abandoned, leaving the model unchanged
+   */
+  private void generateConvertedPrices(BooleanSupplier cancelled) {
+    if (cancelled.getAsBoolean()) {
+      throw new CancellationException();
+    }
+    long begun = System.nanoTime();
+    Locale locale = requestedLocale;
+    boolean useHistory = requestedHistorical;
+    int count = table.size();
+    prefetchRates(0, count, useHistory);
+    long stage = REGENERATE_PREFETCH.recordSince(begun);
+    double[] prices = engine.convert(table, count, table.capacity(), targetCurrency(locale),
+        exchangeRates.getRates(), useHistory ? exchangeRates.getHistoricalRates() : null,
+        cancelled);
+    stage = REGENERATE_CONVERT.recordSince(stage);
+    int[] byPrice = PriceSort.sort(prices, count);
+    stage = REGENERATE_SORT.recordSince(stage);
+    if (cancelled.getAsBoolean()) {
+      throw new CancellationException();
+    }
+    synchronized (this) {
+      table.setConvertedPrices(prices);
+      synchronized (shownRows) {
+        priceIndex.set(byPrice);
+        shownRows[SortOrder.PRICE.ordinal()] = null;
+      }
+      userLocale = locale;
+      historical = useHistory;
+      dailyTotals = buildDailyTotals();
+      countryTotals = buildCountryTotals();
+      cube = SalesCube.of(table, CurrencyConverter.countryCodes.size());
+    }
+    REGENERATE_PUBLISH.recordSince(stage);
+    REGENERATE.recordSince(begun);
+  }
+
+  /**
+   * Sums the converted prices of all sales by day.
    *
-   * @return the price of sale converted to the current locale's currency
+   * @return a tree of the daily totals spanning every day with a sale
    */
-  private double convertPrice(RealEstateSale sale, boolean historical) {
-    double price = 0.0;
-    String currencyCode = CurrencyConverter.getCurrency(userLocale.getCountry()).toString();
-    if (historical) {
-      try {
-        price = CurrencyConverter.currConvert(
-          CurrencyConverter.getCurrency(
-              sale.getCountry()).toString(), currencyCode, sale.getPrice(), sale.getDate()
-          );
-      } catch (NullPointerException e) {
-        return convertPrice(sale, false);
+  private FenwickTree buildDailyTotals() {
+    if (table.size() == 0) {
+      return new FenwickTree(CurrencyConverter.epochDay(beginDate), 1);
+    }
+    long firstDay = table.getFirstEpochDay();
+    double[] sums = new double[(int) (table.getLastEpochDay() - firstDay + 1)];
+    for (int row = 0; row < table.size(); row++) {
+      sums[(int) (table.getEpochDay(row) - firstDay)] += table.getConvertedPrice(row);
+    }
+    return new FenwickTree(firstDay, sums);
+  }
+
+  /**
+   * Sums the converted prices of all sales by country and day.
+   *
+   * @return a tree of the daily totals of each country indexed by country ordinal, spanning
+   *     every day with a sale in that country, or null for countries without sales
+   */
+  private FenwickTree[] buildCountryTotals() {
+    int countries = CurrencyConverter.countryCodes.size();
+    long[] firstDays = new long[countries];
+    long[] lastDays = new long[countries];
+    Arrays.fill(firstDays, Long.MAX_VALUE);
+    Arrays.fill(lastDays, Long.MIN_VALUE);
+    for (int row = 0; row < table.size(); row++) {
+      int country = table.getCountryOrdinal(row);
+      firstDays[country] = Math.min(firstDays[country], table.getEpochDay(row));
+      lastDays[country] = Math.max(lastDays[country], table.getEpochDay(row));
+    }
+    double[][] sums = new double[countries][];
+    for (int country = 0; country < countries; country++) {
+      if (firstDays[country] <= lastDays[country]) {
+        sums[country] = new double[(int) (lastDays[country] - firstDays[country] + 1)];
       }
-    } else {
-      price = CurrencyConverter.currConvert(
-      CurrencyConverter.getCurrency(
-          sale.getCountry()).toString(), currencyCode, sale.getPrice()
-      );
     }
-    return price;
+    for (int row = 0; row < table.size(); row++) {
+      int country = table.getCountryOrdinal(row);
+      sums[country][(int) (table.getEpochDay(row) - firstDays[country])]
+          += table.getConvertedPrice(row);
+    }
+    FenwickTree[] trees = new FenwickTree[countries];
+    for (int country = 0; country < countries; country++) {
+      if (sums[country] != null) {
+        trees[country] = new FenwickTree(firstDays[country], sums[country]);
+      }
+    }
+    return trees;
   }
 
   /**
-   * Generates cache of converted prices of all sales in model.
+   * Converts the prices of a range of rows into the currency of the current locale, caching
+   *   them in the table and adding them to the daily totals overall and by country, and to the
+   *   rollups.
+   *
+   * @param first the first row to convert
+   * @param last one past the last row to convert
    */
-  private void generateConvertedPrices() {
-    convertedPrices = new HashMap<RealEstateSale, Double>();
-    for (RealEstateSale sale : sales) {
-      convertedPrices.put(sale, convertPrice(sale, historical));
+  private void convertRows(int first, int last) {
+    int target = targetCurrency(userLocale);
+    double[] latest = exchangeRates.getRates();
+    for (int row = first; row < last; row++) {
+      double[] rates = null;
+      if (historical) {
+        rates = exchangeRates.getHistoricalRates().get(table.getEpochDay(row));
+      }
+      double price = ConversionEngine.convertRow(table, row, target, rates, latest);
+      table.setConvertedPrice(row, price);
+      dailyTotals.add(table.getEpochDay(row), price);
+      int country = table.getCountryOrdinal(row);
+      if (countryTotals[country] == null) {
+        countryTotals[country] = new FenwickTree(table.getEpochDay(row), 1);
+      }
+      countryTotals[country].add(table.getEpochDay(row), price);
+      synchronized (this) {
+        cube.add(country, table.getEpochDay(row), table.getPrice(row), price);
+      }
+    }
+  }
+
+  /**
+   * Provides the ordinal of the currency of a locale.
+   *
+   * @param locale the locale
+   * @return the currency ordinal
+   */
+  private static int targetCurrency(Locale locale) {
+    return CurrencyConverter.currencyOrdinal(
+        CurrencyConverter.getCurrency(locale.getCountry()).toString());
+  }
+
+  /**
+   * Fetches, in as few requests as possible, every exchange rate needed to convert a range of
+   *   rows into the currency of the current locale.
+   *
+   * @param first the first row about to be converted
+   * @param last one past the last row about to be converted
+   * @param useHistory whether historical rates will be used
+   *
+   * @see ExchangeRates#prefetchDays(java.util.Collection)
+   */
+  private void prefetchRates(int first, int last, boolean useHistory) {
+    exchangeRates.getRates();
+    if (!useHistory || first >= last) {
+      return;
+    }
+    long firstDay = Long.MAX_VALUE;
+    for (int row = first; row < last; row++) {
+      firstDay = Math.min(firstDay, table.getEpochDay(row));
+    }
+    BitSet days = new BitSet();
+    for (int row = first; row < last; row++) {
+      days.set((int) (table.getEpochDay(row) - firstDay));
+    }
+    ArrayList<Long> epochDays = new ArrayList<Long>(days.cardinality());
+    for (int day = days.nextSetBit(0); day >= 0; day = days.nextSetBit(day + 1)) {
+      epochDays.add(firstDay + day);
     }
+    exchangeRates.prefetchDays(epochDays);
   }
 }
@@ -6,30 +6,39 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.text.DateFormat;
 import java.text.NumberFormat;
 import java.util.Calendar;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Locale;
-import java.util.Observable;
+import java.util.Set;
 import javax.swing.BoxLayout;
 import javax.swing.DefaultComboBoxModel;
 import javax.swing.DefaultListCellRenderer;
-import javax.swing.DefaultListModel;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JList;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSpinner;
 import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
 
 /**
  * Main program and GUI for real estate transaction summary program.
@@ -41,22 +50,38 @@ import javax.swing.event.ChangeListener;
  * @see ProgramModel
  * @see RealEstateSale
  */
-public final class ProjectTwo extends JFrame implements java.util.Observer {
+public final class ProjectTwo extends JFrame implements ModelListener {
+  private static final int DEFAULT_DATE_QUIET_MILLIS = 150;
+  private static final int DEFAULT_DATE_MAX_WAIT_MILLIS = 400;
+  private static final double PROTOTYPE_PRICE = 999999999.99;
+  private static final Font CELL_FONT = new Font("Courier New", Font.PLAIN, 14);
+  private static final int CELL_TEXT_CACHE_SIZE = 4096;
+  private static final LatencyHistogram SORT_LIST = Metrics.histogram("ui.sortListBy");
 
   private ProgramModel model;
   private JComboBox localeSelector;
   private DateFormat dateFormat = DateFormat.getDateInstance(DateFormat.LONG);
+  private final HashMap<Locale, DateFormat> dateFormats = new HashMap<Locale, DateFormat>();
+  private final HashMap<Locale, NumberFormat> currencyFormats = new HashMap<Locale, NumberFormat>();
+  private final HashMap<String, Locale> countryLocales = new HashMap<String, Locale>();
+  private final CellTextCache localCellTexts = new CellTextCache(CELL_TEXT_CACHE_SIZE);
+  private final CellTextCache convertedCellTexts = new CellTextCache(CELL_TEXT_CACHE_SIZE);
 
   private JList<RealEstateSale> salesList;
-  private DefaultListModel<RealEstateSale> listModel;
+  private SalesListModel listModel;
   private JLabel totalLabel;
-  private JComboBox countryFilter;
+  private JList<String> countryFilter;
   
   private JComboBox sortByBox;
   private JCheckBox currencyMatchingCheck;
   private JCheckBox historicalCheck;
   private JSpinner beginDateSelector;
   private JSpinner endDateSelector;
+  private Debouncer dateRangeUpdates;
+  private boolean listStale;
+  private boolean listGrown;
+  private boolean pricesStale;
+  private boolean totalStale;
 
   private JSpinner creationDatePicker;
   private JTextField creationPriceField;
@@ -67,19 +92,72 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
   /**
    * Entry point for program execution.
    *
+   * <p>The source of exchange rates may be chosen with the 'projecttwo.rates' system property:
+   *    'synthetic' for made-up offline rates, 'file:' followed by the path of a CSV rate table,
+   *    or anything else for the online API.
+   *
+   * <p>How long the date selectors must rest before the total is recalculated may be set in
+   *    milliseconds with the 'projecttwo.dateQuietMillis' system property, and how often it is
+   *    recalculated while they keep changing, such as while an arrow is held down, with the
+   *    'projecttwo.dateMaxWaitMillis' system property.
+   *
+   * <p>The sales are restored from the snapshot named by the 'projecttwo.snapshot' system
+   *    property, or '.projecttwo/sales.snapshot' in the user's home, and saved back to it when
+   *    the window is closed. Sales added in between are kept in the journal named by the
+   *    'projecttwo.journal' system property, or '.projecttwo/sales.journal' in the user's home,
+   *    committed at least every 'projecttwo.journalFlushMillis' milliseconds or every
+   *    'projecttwo.journalBatchSize' sales.
+   *
+   * <p>Timings and counts of the program's work are published over JMX, and may also be printed
+   *    every so many milliseconds with the 'projecttwo.metricsDumpMillis' system property.
+   *
    * @param args Not used.
+   *
+   * @throws IOException if a rate table was named but could not be read, or if the snapshot or
+   *     journal could not be opened
    */
-  public static void main(String[] args) {
-    ProjectTwo gui = new ProjectTwo();
+  public static void main(String[] args) throws IOException {
+    long dumpMillis = Long.getLong("projecttwo.metricsDumpMillis", 0);
+    if (dumpMillis > 0) {
+      Metrics.startDump(System.out, dumpMillis);
+    }
+    SalesJournal journal = new SalesJournal(SalesJournal.defaultFile(),
+        Long.getLong("projecttwo.journalFlushMillis", SalesJournal.DEFAULT_FLUSH_MILLIS),
+        Integer.getInteger("projecttwo.journalBatchSize", SalesJournal.DEFAULT_BATCH_SIZE));
+    ProjectTwo gui = new ProjectTwo(rateProviderFor(System.getProperty("projecttwo.rates", "")),
+        SalesSnapshot.defaultFile(), journal);
   }
 
   /**
    * Creates instance of main program and sets up views.
+   *
+   * @param rateProvider the source of exchange rates for the model
+   * @param snapshot the file the sales are restored from and saved to
+   * @param journal the journal of sales added since the snapshot was saved
+   *
+   * @throws IOException if the snapshot exists but could not be opened, or the journal could
+   *     not be read
    */
-  private ProjectTwo() {
+  private ProjectTwo(RateProvider rateProvider, Path snapshot, SalesJournal journal)
+      throws IOException {
     super("Sales Records");
-    model = new ProgramModel();
-    model.addObserver(this);
+    model = new ProgramModel(rateProvider, snapshot, journal);
+    model.addModelListener(this);
+    addWindowListener(new WindowAdapter() {
+      @Override
+      public void windowClosing(WindowEvent e) {
+        try {
+          model.saveSnapshot(snapshot);
+        } catch (IOException ex) {
+          System.out.println(ex.getMessage());
+        }
+        try {
+          journal.close();
+        } catch (IOException ex) {
+          System.out.println(ex.getMessage());
+        }
+      }
+    });
 
     createComponents();
     setupNorthView();
@@ -96,19 +174,120 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
   }
 
   /**
-   * Responds to changes in the model. Updates the displayed total and, if necessary, the
-   *  'DefaultListModel' for the displayed list of sales.
+   * Notes that a sale was added, so it must be inserted into the list where the model's order
+   *  puts it.
    *
-   *  @param o The sending object, should be the model.
-   *  @param arg Optional object sent by 'o'. If arg is a collection, 'listModel' will be updated
-   *      to reflect the contents of 'arg'.
+   * @param sale the view of the new row
+   * @param row the row of the new sale
    */
-  public void update(Observable o, Object arg) {
-    if (arg instanceof RealEstateSale) {
-      listModel.addElement((RealEstateSale) arg);
-      sortListBy((Comparator<RealEstateSale>)sortByBox.getSelectedItem());
+  @Override
+  public void saleAdded(RealEstateSale sale, int row) {
+    listGrown = true;
+    totalStale = true;
+  }
+
+  /**
+   * Notes that sales were added, so they must be inserted into the list where the model's order
+   *  puts them.
+   *
+   * @param firstRow the row of the first new sale
+   * @param count the number of new sales
+   */
+  @Override
+  public void salesAdded(int firstRow, int count) {
+    listGrown = true;
+    totalStale = true;
+  }
+
+  /**
+   * Notes that every converted price changed, so the list must be given the model's new order
+   *  and the text of cells showing converted prices forgotten.
+   *
+   * @param locale the locale the prices are converted to
+   * @param historical whether historical exchange rates were used
+   */
+  @Override
+  public void pricesRegenerated(Locale locale, boolean historical) {
+    listStale = true;
+    pricesStale = true;
+    totalStale = true;
+  }
+
+  /**
+   * Notes that the total changed with the range of dates. The list shows sales of every date, so
+   *  it is left as it is.
+   *
+   * @param begin the new lowest date totalled
+   * @param end the new highest date totalled
+   */
+  @Override
+  public void rangeChanged(Date begin, Date end) {
+    totalStale = true;
+  }
+
+  /**
+   * Notes that the countries shown changed, so the list must be given the model's new order.
+   *
+   * @param countries the countries shown, empty for every country
+   */
+  @Override
+  public void filterChanged(Set<String> countries) {
+    listStale = true;
+    totalStale = true;
+  }
+
+  /**
+   * Brings the view up to date with every change of a batch at once. Gives 'listModel' the
+   *  model's current order of the sales shown only if it changed, or only inserts the sales
+   *  added if nothing else about the order changed, forgets the text of cells
+   *  showing converted prices only if the prices changed, and updates the displayed total.
+   *  Cell texts are kept by row, so those of sales already shown stay valid as sales are added.
+   *  Called on the event dispatch thread.
+   */
+  @Override
+  public void batchEnded() {
+    Comparator<RealEstateSale> sortMethod =
+        (Comparator<RealEstateSale>) sortByBox.getSelectedItem();
+    if (listStale) {
+      sortListBy(sortMethod);
+    } else if (listGrown && sortMethod instanceof SaleComparator) {
+      listModel.insertRows(model.getShownRows(((SaleComparator) sortMethod).getSortOrder()));
+    } else if (listGrown) {
+      sortListBy(sortMethod);
+    }
+    if (pricesStale) {
+      convertedCellTexts.clear();
+    }
+    if (totalStale) {
+      updateTotalLabel();
+    }
+    if (listStale || pricesStale) {
+      salesList.repaint();
+    }
+    listStale = false;
+    listGrown = false;
+    pricesStale = false;
+    totalStale = false;
+  }
+
+  /**
+   * Chooses a source of exchange rates from a short description.
+   *
+   * @param spec 'synthetic', 'file:' followed by the path of a CSV rate table, or anything else
+   *     for the default online API
+   *
+   * @return the matching rate provider
+   *
+   * @throws IOException if the rate table could not be read
+   */
+  private static RateProvider rateProviderFor(String spec) throws IOException {
+    if (spec.equals("synthetic")) {
+      return new SyntheticRateProvider();
+    } else if (spec.startsWith("file:")) {
+      return new FileRateProvider(new File(spec.substring("file:".length())));
+    } else {
+      return CurrencyConverter.getRateProvider();
     }
-    updateTotalLabel();
   }
 
   /**
@@ -147,17 +326,24 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
         new javax.swing.SpinnerDateModel(earliestDate, null, endDate, Calendar.DAY_OF_MONTH));
     endDateSelector = new JSpinner(
         new javax.swing.SpinnerDateModel(endDate, earliestDate, endDate, Calendar.DAY_OF_MONTH));
+    dateRangeUpdates = new Debouncer(
+        Integer.getInteger("projecttwo.dateQuietMillis", DEFAULT_DATE_QUIET_MILLIS),
+        Integer.getInteger("projecttwo.dateMaxWaitMillis", DEFAULT_DATE_MAX_WAIT_MILLIS),
+        () -> model.setDateRangeAsync(
+            (Date) beginDateSelector.getValue(), (Date) endDateSelector.getValue()));
   }
 
   /**
-   * Handles instantiation of components involved in displaying list of RealEstateSales.
+   * Handles instantiation of components involved in displaying list of RealEstateSales. Every
+   *   cell is given the size of a prototype cell, so that the list never measures its cells.
    */
   private void setupList() {
-    listModel = new DefaultListModel<RealEstateSale>();
-    listModel.addAll(model.getSales());
+    listModel = new SalesListModel(model.getSalesTable());
     sortListBy(new DateComparator());
     salesList = new JList<RealEstateSale>(listModel);
     salesList.setCellRenderer(new RealEstateSaleListCellRenderer());
+    salesList.setFont(CELL_FONT);
+    salesList.setPrototypeCellValue(RealEstateSale.make("US", PROTOTYPE_PRICE, new Date()));
   }
 
   /**
@@ -171,7 +357,12 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
     localeSelector.setSelectedItem(model.getUserLocale().getCountry());
     localeSelector.setEditable(false);
 
-    historicalCheck = new JCheckBox("Use historical exchange rates when available");
+    historicalCheck = new JCheckBox("Use historical exchange rates when available",
+        model.isHistorical());
+
+    countryFilter = new JList<String>(CurrencyConverter.countryCodes.toArray(new String[0]));
+    countryFilter.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+    countryFilter.setVisibleRowCount(4);
 
     DefaultComboBoxModel<Comparator> sortByModel = new DefaultComboBoxModel(
         new Comparator[] {new DateComparator(), new PriceComparator(), new CountryComparator()});
@@ -184,13 +375,14 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
    * Creates and adds instances of appropriate listeners to GUI elements.
    */
   private void attachListeners() {
-    beginDateSelector.addChangeListener(new BeginDateListener());
-    endDateSelector.addChangeListener(new EndDateListener());
+    beginDateSelector.addChangeListener(new DateRangeListener());
+    endDateSelector.addChangeListener(new DateRangeListener());
     submit.addActionListener(new EntryCreationListener());
     currencyMatchingCheck.addItemListener(new ConvertAllPricesListener());
     sortByBox.addItemListener(new SortingListener());
     localeSelector.addItemListener(new LocaleSelectionListener());
     historicalCheck.addItemListener(new HistoricalListener());
+    countryFilter.addListSelectionListener(new CountryFilterListener());
   }
 
   /**
@@ -221,6 +413,8 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
     JPanel statsPanel = new JPanel();
     statsPanel.setLayout(new BoxLayout(statsPanel, BoxLayout.Y_AXIS));
     statsPanel.add(spinnerPanel);
+    statsPanel.add(new JLabel("Countries (none for all):"));
+    statsPanel.add(new JScrollPane(countryFilter));
     statsPanel.add(new JLabel("Total:"));
     statsPanel.add(totalLabel);
     add(statsPanel, BorderLayout.EAST);
@@ -269,7 +463,7 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
    * Provides a formatted string to properly display amount in local style for the currency of
    *    specified country.
    *
-   * <p>Includes appropriate currency symbol. 
+   * <p>Includes appropriate currency symbol. Reuses one formatter per locale.
    *
    * @param amount the amount of currency
    * @param countryCode 2-letter code for the country.
@@ -285,7 +479,7 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
    * Provides a formatted String to properly display in local style amount
    *    in the currency of locale.
    *
-   * <p>Includes appropriate currency symbol. 
+   * <p>Includes appropriate currency symbol. Reuses one formatter per locale.
    *
    * @param amount the number to be formatted
    * @param locale the Locale of the desired currency
@@ -295,28 +489,33 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
    * @see Locale
    */
   private String formatForLocale(double amount, Locale locale) {
-    NumberFormat formatter = NumberFormat.getCurrencyInstance(locale);
-    return formatter.format(amount);
+    return currencyFormats.computeIfAbsent(locale, NumberFormat::getCurrencyInstance)
+        .format(amount);
   }
 
   /**
-   * Sorts entries in main display list by the provided method.
+   * Sorts entries in main display list by the provided method. The model keeps its sales sorted
+   *   in every order offered, so the list is given the matching index of the sales shown rather
+   *   than sorted.
    *
    * @param sortMethod the Comparator used to determine sort order
    *
    * @see Comparator
    */
   private void sortListBy(Comparator<RealEstateSale> sortMethod) {
-    java.util.ArrayList<RealEstateSale> tempList = Collections.list(listModel.elements());
-    Collections.sort(tempList, sortMethod);
-    listModel.clear();
-    listModel.addAll(tempList);
+    long start = System.nanoTime();
+    if (sortMethod instanceof SaleComparator) {
+      listModel.setOrder(model.getShownRows(((SaleComparator) sortMethod).getSortOrder()));
+    } else {
+      listModel.sortBy(sortMethod);
+    }
+    SORT_LIST.recordSince(start);
   }
 
   /**
    * Provides a best-guess locale for a given country code.
    *
-   * <p>Uses jdk-provided constants when available.
+   * <p>Uses jdk-provided constants when available. Each country's guess is made only once.
    *
    * @param country The 2-letter country code of the desired country
    *
@@ -325,6 +524,17 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
    * @see Locale
    */
   private Locale bestLocaleFor(String country) {
+    return countryLocales.computeIfAbsent(country, ProjectTwo::guessLocaleFor);
+  }
+
+  /**
+   * Makes a best guess at the locale for a given country code.
+   *
+   * @param country The 2-letter country code of the desired country
+   *
+   * @return a best-guess instance of Locale
+   */
+  private static Locale guessLocaleFor(String country) {
     Locale bestGuess;
     switch (country) {
       case "CA":
@@ -402,14 +612,17 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
       super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
       if (value instanceof RealEstateSale) {
         RealEstateSale sale = (RealEstateSale) value;
-        String date = dateFormat.format(sale.getDate());
-
-        setText(String.format("%3s | %18s | %15s", 
-              sale.getCountry(), date, 
+        int row = model.getSalesTable().rowOf(sale);
+        String text = localCellTexts.get(row);
+        if (text == null) {
+          text = String.format("%3s | %18s | %15s", 
+              sale.getCountry(), dateFormat.format(sale.getDate()), 
               formatForLocale(sale.getPrice(), bestLocaleFor(sale.getCountry()))
-            ));
+            );
+          localCellTexts.put(row, text);
+        }
+        setText(text);
       }
-      setFont(new Font("Courier New", Font.PLAIN, 14));
       return this;
     }
   }
@@ -436,47 +649,37 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
       super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
       if (value instanceof RealEstateSale) {
         RealEstateSale sale = (RealEstateSale) value;
-        String date = dateFormat.format(sale.getDate());
-
-        setText(String.format("%3s | %18s | %15s", 
+        int row = model.getSalesTable().rowOf(sale);
+        String text = convertedCellTexts.get(row);
+        if (text == null) {
+          text = String.format("%3s | %18s | %15s", 
                sale.getCountry(), 
-               date, 
+               dateFormat.format(sale.getDate()), 
                formatForLocale(model.getConvertedPrice(sale), 
                model.getUserLocale())
-              ));
+              );
+          convertedCellTexts.put(row, text);
+        }
+        setText(text);
       }
-      setFont(new Font("Courier New", Font.PLAIN, 14));
       return this;
     }
   }
 
 
   /**
-   * Listener for manipulation of the model's beginning date.
+   * Listener for manipulation of the model's beginning or ending date.
    */
-  private class BeginDateListener implements ChangeListener {
+  private class DateRangeListener implements ChangeListener {
 
     /**
-     * Sets the model's beginning date to the currently displayed value of 'beginDateSelector'.
+     * Sets the model's date range to the currently displayed values of 'beginDateSelector' and
+     *    'endDateSelector', once they have stopped changing for a moment.
      *
      * @param event unused
      */
     public void stateChanged(ChangeEvent event) {
-      model.setBeginDate((Date) beginDateSelector.getValue());
-    }
-  }
-
-  /**
-   * Listener for manipulation of the model's ending date.
-   */
-  private class EndDateListener implements ChangeListener {
-
-    /**
-     * Sets the model's ending date to the currently displayed date of 'endDateSelector'.
-     * @param event unused
-     */
-    public void stateChanged(ChangeEvent event) {
-      model.setEndDate((Date) endDateSelector.getValue());
+      dateRangeUpdates.trigger();
     }
   }
 
@@ -487,7 +690,7 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
 
     /**
      * Creates and adds a new RealEstateSale to the model and resets entry fields
-     *    if fields contain valid information.
+     *    if fields contain valid information. Tells the user if the sale could not be saved.
      *
      * @param event unused
      */
@@ -500,7 +703,14 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
             (Date) creationDatePicker.getValue()
         );
         if (sale != null) {
-          model.addSale(sale);
+          model.addSaleAsync(sale).whenComplete((view, failure) -> {
+            if (failure != null) {
+              Throwable cause = failure.getCause() == null ? failure : failure.getCause();
+              SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(ProjectTwo.this,
+                  "The sale could not be saved: " + cause.getMessage(), "Sales Records",
+                  JOptionPane.ERROR_MESSAGE));
+            }
+          });
           creationDatePicker.setValue(new Date());
           creationPriceField.setText("");
         }
@@ -514,10 +724,24 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
     }
   }
 
+  /**
+   * Comparison of 'RealEstateSale' instances matching one of the orders the model keeps its
+   *    sales sorted in.
+   */
+  abstract class SaleComparator implements Comparator<RealEstateSale> {
+
+    /**
+     * Provides the order of the model's sorted index matching this comparison.
+     *
+     * @return the order
+     */
+    abstract ProgramModel.SortOrder getSortOrder();
+  }
+
   /**
    * Allows comparison of 'RealEstateSale' instances by their 'Date'.
    */
-  class DateComparator implements Comparator<RealEstateSale> {
+  class DateComparator extends SaleComparator {
 
     /**
      * Compares 'RealEstateSale' instances by the values of their respective 'getDate()' methods.
@@ -532,6 +756,10 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
       return one.getDate().compareTo(two.getDate());
     }
 
+    ProgramModel.SortOrder getSortOrder() {
+      return ProgramModel.SortOrder.DATE;
+    }
+
     public String toString() {
       return "Date";
     }
@@ -540,7 +768,7 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
   /**
    * Allows comparison of 'RealEstateSale' instances by country.
    */
-  class CountryComparator implements Comparator<RealEstateSale> {
+  class CountryComparator extends SaleComparator {
 
     /**
      * Compares 'RealEstateSale' instances by the value of their respective 'getCountry()' methods.
@@ -555,6 +783,10 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
       return one.getCountry().compareTo(two.getCountry());
     }
 
+    ProgramModel.SortOrder getSortOrder() {
+      return ProgramModel.SortOrder.COUNTRY;
+    }
+
     public String toString() {
       return "Country";
     }
@@ -563,7 +795,7 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
   /**
    * Allows comparison of 'RealEstateSale' instances by price.
    */
-  class PriceComparator implements Comparator<RealEstateSale> {
+  class PriceComparator extends SaleComparator {
 
     /**
      * Compares 'RealEstateSale' instances by the value of their respective prices under the 
@@ -572,10 +804,15 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
      * @param one The first sale to compare
      * @param two The second sale to compare
      *
-     * @return The result of the comparison of the RealEstateSales converted prices.
+     * @return The result of the comparison of the RealEstateSales converted prices, as by
+     *     'Double.compare'.
      */
     public int compare(RealEstateSale one, RealEstateSale two) {
-      return (int) (model.getConvertedPrice(one) - model.getConvertedPrice(two));
+      return Double.compare(model.getConvertedPrice(one), model.getConvertedPrice(two));
+    }
+
+    ProgramModel.SortOrder getSortOrder() {
+      return ProgramModel.SortOrder.PRICE;
     }
 
     public String toString() {
@@ -620,10 +857,12 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
     public void itemStateChanged(ItemEvent event) {
       String country = (String) localeSelector.getSelectedItem();
       Locale toSet = bestLocaleFor(country);
-      model.setUserLocale(toSet);
-      dateFormat = DateFormat.getDateInstance(DateFormat.LONG, toSet);
+      model.setUserLocaleAsync(toSet);
+      dateFormat = dateFormats.computeIfAbsent(
+          toSet, locale -> DateFormat.getDateInstance(DateFormat.LONG, locale));
+      localCellTexts.clear();
+      convertedCellTexts.clear();
       setDateSpinnerFormats(dateFormat);
-      salesList.repaint();
     }
   }
 
@@ -633,9 +872,26 @@ public final class ProjectTwo extends JFrame implements java.util.Observer {
   class HistoricalListener implements ItemListener {
     public void itemStateChanged(ItemEvent event) {
       if (event.getStateChange() == ItemEvent.SELECTED) {
-        model.setHistorical(true);
+        model.setHistoricalAsync(true);
       } else {
-        model.setHistorical(false);
+        model.setHistoricalAsync(false);
+      }
+    }
+  }
+
+  /**
+   * Listener for selection of the countries to show sales of.
+   */
+  class CountryFilterListener implements ListSelectionListener {
+
+    /**
+     * Restricts the model to the selected countries once the selection has settled.
+     *
+     * @param event reflects whether the selection is still being adjusted
+     */
+    public void valueChanged(ListSelectionEvent event) {
+      if (!event.getValueIsAdjusting()) {
+        model.setCountryFilterAsync(countryFilter.getSelectedValuesList());
       }
     }
   }
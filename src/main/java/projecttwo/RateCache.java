@@ -0,0 +1,176 @@
+package projecttwo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, time-limited cache of exchange rates. Entries are evicted in least-recently-used
+ *  order once 'maxSize' is exceeded, and are treated as absent once they are older than the
+ *  configured time-to-live.
+ *
+ * <p>Hit, miss and eviction counts are kept so the effectiveness of the cache can be checked.
+ *
+ * @param <K> the key type, normally a currency pair
+ * @param <V> the cached rate type
+ *
+ * @see CurrencyConverter
+ */
+public class RateCache<K, V> {
+  private final LinkedHashMap<K, Entry<V>> entries;
+  private final LongSupplier clock;
+  private final int maxSize;
+  private final long ttlMillis;
+
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param maxSize the greatest number of entries held before the eldest is evicted
+   * @param ttlMillis how long, in milliseconds, an entry stays valid after being stored
+   */
+  public RateCache(int maxSize, long ttlMillis) {
+    this(maxSize, ttlMillis, System::currentTimeMillis);
+  }
+
+  /**
+   * Creates an empty cache using the given source of the current time.
+   *
+   * @param maxSize the greatest number of entries held before the eldest is evicted
+   * @param ttlMillis how long, in milliseconds, an entry stays valid after being stored
+   * @param clock supplies the current time in milliseconds
+   */
+  RateCache(int maxSize, long ttlMillis, LongSupplier clock) {
+    if (maxSize < 1 || ttlMillis < 0) {
+      throw new IllegalArgumentException("maxSize must be positive and ttlMillis non-negative");
+    }
+    this.maxSize = maxSize;
+    this.ttlMillis = ttlMillis;
+    this.clock = clock;
+    this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+        if (size() > RateCache.this.maxSize) {
+          evictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Looks up a cached value, counting the lookup as a hit or a miss.
+   *
+   * @param key the key to look up
+   *
+   * @return the cached value, or null if absent or expired
+   */
+  public synchronized V get(K key) {
+    Entry<V> entry = entries.get(key);
+    if (entry != null && clock.getAsLong() - entry.storedAt > ttlMillis) {
+      entries.remove(key);
+      entry = null;
+    }
+    if (entry == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return entry.value;
+  }
+
+  /**
+   * Stores a value, evicting the least recently used entry if the cache is full.
+   *
+   * @param key the key to store under
+   * @param value the value to store
+   */
+  public synchronized void put(K key, V value) {
+    entries.put(key, new Entry<V>(value, clock.getAsLong()));
+  }
+
+  /**
+   * Removes every entry. Counters are left untouched.
+   */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Accessor for the number of entries currently held, including any that have expired but
+   *  have not yet been looked up.
+   *
+   * @return the number of entries
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Accessor for the number of lookups that found a valid entry.
+   *
+   * @return the hit count
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * Accessor for the number of lookups that found no valid entry.
+   *
+   * @return the miss count
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Accessor for the number of entries removed to keep the cache within 'maxSize'.
+   *
+   * @return the eviction count
+   */
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * Accessor for the maximum number of entries.
+   *
+   * @return the maximum size
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Accessor for the time-to-live of entries.
+   *
+   * @return the time-to-live in milliseconds
+   */
+  public long getTtlMillis() {
+    return ttlMillis;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "RateCache[size=" + entries.size() + ", hits=" + hits + ", misses=" + misses
+        + ", evictions=" + evictions + "]";
+  }
+
+  /**
+   * A cached value and the time it was stored.
+   */
+  private static final class Entry<V> {
+    private final V value;
+    private final long storedAt;
+
+    private Entry(V value, long storedAt) {
+      this.value = value;
+      this.storedAt = storedAt;
+    }
+  }
+}
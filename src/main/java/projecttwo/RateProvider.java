@@ -0,0 +1,131 @@
+package projecttwo;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Source of exchange rates for 'CurrencyConverter'.
+ *
+ * <p>Rates are expressed as the number of units of a symbol currency per unit of a base
+ *  currency. Days are given in 'yyyy-MM-dd' form.
+ *
+ * <p>Rates may also be provided as rate vectors: arrays of the rates of a list of symbols,
+ *  indexed by position in the list, with 'NaN' for symbols without a rate. By default these are
+ *  built from the maps of rates, but a provider may read them more directly.
+ *
+ * @see CurrencyConverter
+ * @see HttpRateProvider
+ * @see FileRateProvider
+ * @see SyntheticRateProvider
+ */
+public interface RateProvider {
+
+  /**
+   * Provides the most recent rates of the given symbols against a base currency.
+   *
+   * @param base ISO currency code of the base currency
+   * @param symbols ISO currency codes of the currencies wanted
+   *
+   * @return the rates found, keyed by symbol; symbols without a rate are left out
+   *
+   * @throws IOException if the rates could not be read
+   */
+  Map<String, Double> getLatestRates(String base, Collection<String> symbols) throws IOException;
+
+  /**
+   * Provides every rate published over a range of days for the given symbols against a base
+   *  currency. Days without published rates, such as weekends, may be left out.
+   *
+   * @param base ISO currency code of the base currency
+   * @param symbols ISO currency codes of the currencies wanted
+   * @param beginDay the first day of the range
+   * @param endDay the last day of the range
+   *
+   * @return the rates found, keyed by day and then by symbol
+   *
+   * @throws IOException if the rates could not be read
+   */
+  SortedMap<String, Map<String, Double>> getHistoricalRates(
+      String base, Collection<String> symbols, String beginDay, String endDay) throws IOException;
+
+  /**
+   * Provides the most recent rates of the given symbols against a base currency as a vector.
+   *
+   * @param base ISO currency code of the base currency
+   * @param symbols ISO currency codes of the currencies wanted, which may include 'base'
+   *
+   * @return the rate of each symbol by position in 'symbols', 1 for 'base' and 'NaN' for
+   *     symbols without a rate
+   *
+   * @throws IOException if the rates could not be read
+   */
+  default double[] getLatestRateVector(String base, List<String> symbols) throws IOException {
+    return vectorOf(base, symbols, getLatestRates(base, others(base, symbols)));
+  }
+
+  /**
+   * Provides every rate published over a range of days for the given symbols against a base
+   *  currency as vectors. Days without published rates, such as weekends, may be left out.
+   *
+   * @param base ISO currency code of the base currency
+   * @param symbols ISO currency codes of the currencies wanted, which may include 'base'
+   * @param beginDay the first day of the range
+   * @param endDay the last day of the range
+   *
+   * @return the rate vector of each day found, as 'getLatestRateVector' gives it, keyed by days
+   *     from January 1, 1970
+   *
+   * @throws IOException if the rates could not be read
+   */
+  default NavigableMap<Long, double[]> getHistoricalRateVectors(
+      String base, List<String> symbols, String beginDay, String endDay) throws IOException {
+    TreeMap<Long, double[]> vectors = new TreeMap<Long, double[]>();
+    for (Map.Entry<String, Map<String, Double>> day
+        : getHistoricalRates(base, others(base, symbols), beginDay, endDay).entrySet()) {
+      vectors.put(LocalDate.parse(day.getKey()).toEpochDay(),
+          vectorOf(base, symbols, day.getValue()));
+    }
+    return vectors;
+  }
+
+  /**
+   * Provides the symbols other than a base currency.
+   *
+   * @param base ISO currency code of the base currency
+   * @param symbols ISO currency codes
+   * @return the codes without 'base'
+   */
+  private static List<String> others(String base, List<String> symbols) {
+    ArrayList<String> others = new ArrayList<String>(symbols);
+    others.remove(base);
+    return others;
+  }
+
+  /**
+   * Builds the rate vector of a map of rates.
+   *
+   * @param base ISO currency code of the base currency
+   * @param symbols ISO currency codes indexing the vector
+   * @param rates the rates keyed by symbol
+   * @return the vector
+   */
+  private static double[] vectorOf(String base, List<String> symbols, Map<String, Double> rates) {
+    double[] vector = new double[symbols.size()];
+    Arrays.fill(vector, Double.NaN);
+    for (int i = 0; i < vector.length; i++) {
+      Double rate = symbols.get(i).equals(base) ? Double.valueOf(1.0) : rates.get(symbols.get(i));
+      if (rate != null) {
+        vector[i] = rate;
+      }
+    }
+    return vector;
+  }
+}
@@ -0,0 +1,480 @@
+package projecttwo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Streaming parser of the JSON responses of the exchange rate API, reading the bytes of a
+ *  response straight into rate vectors: arrays of rates indexed by the position of each symbol
+ *  in a fixed list, with 'NaN' for symbols the response has no rate for.
+ *
+ * <p>Two shapes of response are read. 'latest' responses hold an object of symbol/rate pairs
+ *  under "rates". 'history' responses hold an object of days in 'yyyy-MM-dd' form under "rates",
+ *  each holding an object of symbol/rate pairs. Every other member, such as "base" or "date", is
+ *  skipped wherever it appears, as are symbols not in the list.
+ *
+ * <p>Symbols are matched against the raw bytes of each key, and rates of up to 15 significant
+ *  digits with a small exponent, which is all the API sends, are converted without creating any
+ *  objects and rounded exactly as 'Double.parseDouble' would. Longer numbers fall back to it.
+ *
+ * <p>A parser reuses its buffer between responses, so it is not thread-safe. Streams are read to
+ *  the end of the JSON value but not closed.
+ *
+ * @see HttpRateProvider
+ */
+public class RateResponseParser {
+  private static final int BUFFER_SIZE = 8192;
+  private static final int KEY_SIZE = 16;
+  private static final int FAST_DIGITS = 15;
+  private static final int MAX_EXPONENT = 9999;
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15,
+      1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+  private static final byte[] RATES = {'r', 'a', 't', 'e', 's'};
+
+  private final int symbolCount;
+  private final int[] symbolKeys;
+  private final int[] symbolPositions;
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private final byte[] key = new byte[KEY_SIZE];
+  private final StringBuilder digits = new StringBuilder();
+  private InputStream in;
+  private int position;
+  private int limit;
+  private int keyLength;
+
+  /**
+   * Creates a parser for rates of the given symbols.
+   *
+   * @param symbols ISO currency codes, whose positions index the rate vectors
+   */
+  public RateResponseParser(List<String> symbols) {
+    symbolCount = symbols.size();
+    long[] sorted = new long[symbolCount];
+    for (int i = 0; i < symbolCount; i++) {
+      sorted[i] = (long) pack(symbols.get(i)) << 32 | i;
+    }
+    Arrays.sort(sorted);
+    symbolKeys = new int[symbolCount];
+    symbolPositions = new int[symbolCount];
+    for (int i = 0; i < symbolCount; i++) {
+      symbolKeys[i] = (int) (sorted[i] >> 32);
+      symbolPositions[i] = (int) sorted[i];
+    }
+  }
+
+  /**
+   * Reads a 'latest' response.
+   *
+   * @param stream the response body
+   * @param base ISO currency code of the currency the rates are given against, whose rate is 1
+   *
+   * @return the rate vector
+   *
+   * @throws IOException if the response could not be read, is not well-formed JSON or holds no
+   *     rates
+   */
+  public double[] parseLatest(InputStream stream, String base) throws IOException {
+    start(stream);
+    double[] rates = null;
+    expect('{');
+    if (!endOf('}')) {
+      do {
+        readKey();
+        expect(':');
+        if (keyIs(RATES)) {
+          rates = newVector(base);
+          readRates(rates);
+        } else {
+          skipValue();
+        }
+      } while (nextMember('}'));
+    }
+    if (rates == null) {
+      throw new IOException("No rates in response");
+    }
+    return rates;
+  }
+
+  /**
+   * Reads a 'history' response.
+   *
+   * @param stream the response body
+   * @param base ISO currency code of the currency the rates are given against, whose rate is 1
+   *
+   * @return the rate vector of each day published, keyed by days from January 1, 1970
+   *
+   * @throws IOException if the response could not be read, is not well-formed JSON, holds no
+   *     rates or has a day which is not a date
+   */
+  public NavigableMap<Long, double[]> parseHistory(InputStream stream, String base)
+      throws IOException {
+    start(stream);
+    TreeMap<Long, double[]> days = null;
+    expect('{');
+    if (!endOf('}')) {
+      do {
+        readKey();
+        expect(':');
+        if (keyIs(RATES)) {
+          days = new TreeMap<Long, double[]>();
+          expect('{');
+          if (!endOf('}')) {
+            do {
+              readKey();
+              expect(':');
+              long day = keyDay();
+              double[] rates = newVector(base);
+              readRates(rates);
+              days.put(day, rates);
+            } while (nextMember('}'));
+          }
+        } else {
+          skipValue();
+        }
+      } while (nextMember('}'));
+    }
+    if (days == null) {
+      throw new IOException("No rates in response");
+    }
+    return days;
+  }
+
+  /**
+   * Reads an object of symbol/rate pairs into a vector. Rates which are not numbers, such as
+   *  'null', are left out.
+   *
+   * @param rates the vector
+   * @throws IOException if the object could not be read
+   */
+  private void readRates(double[] rates) throws IOException {
+    expect('{');
+    if (endOf('}')) {
+      return;
+    }
+    do {
+      readKey();
+      expect(':');
+      int symbol = keyLength == 3
+          ? positionOf((key[0] & 0xFF) << 16 | (key[1] & 0xFF) << 8 | key[2] & 0xFF) : -1;
+      int c = next();
+      if (symbol >= 0 && (c == '-' || (c >= '0' && c <= '9'))) {
+        rates[symbol] = readNumber(c);
+      } else {
+        unread(c);
+        skipValue();
+      }
+    } while (nextMember('}'));
+  }
+
+  /**
+   * Reads a JSON number.
+   *
+   * @param first the first byte of the number, already read
+   * @return the number
+   * @throws IOException if the number is malformed
+   */
+  private double readNumber(int first) throws IOException {
+    digits.setLength(0);
+    boolean negative = first == '-';
+    int c = first;
+    if (negative) {
+      digits.append('-');
+      c = read();
+    }
+    if (c < '0' || c > '9') {
+      throw malformed(c);
+    }
+    long mantissa = 0;
+    int significant = 0;
+    int scale = 0;
+    for (; c >= '0' && c <= '9'; c = read()) {
+      digits.append((char) c);
+      mantissa = mantissa * 10 + (c - '0');
+      if (mantissa != 0) {
+        significant++;
+      }
+    }
+    if (c == '.') {
+      digits.append('.');
+      for (c = read(); c >= '0' && c <= '9'; c = read()) {
+        digits.append((char) c);
+        mantissa = mantissa * 10 + (c - '0');
+        scale--;
+        if (mantissa != 0) {
+          significant++;
+        }
+      }
+    }
+    int exponent = 0;
+    if (c == 'e' || c == 'E') {
+      digits.append('e');
+      c = read();
+      boolean negativeExponent = c == '-';
+      if (c == '-' || c == '+') {
+        digits.append((char) c);
+        c = read();
+      }
+      if (c < '0' || c > '9') {
+        throw malformed(c);
+      }
+      for (; c >= '0' && c <= '9'; c = read()) {
+        digits.append((char) c);
+        exponent = Math.min(exponent * 10 + (c - '0'), MAX_EXPONENT);
+      }
+      if (negativeExponent) {
+        exponent = -exponent;
+      }
+    }
+    unread(c);
+    int power = scale + exponent;
+    if (significant == 0) {
+      return negative ? -0.0 : 0.0;
+    }
+    if (significant > FAST_DIGITS || power < -22 || power > 22) {
+      return Double.parseDouble(digits.toString());
+    }
+    double value = power < 0 ? mantissa / POWERS_OF_TEN[-power] : mantissa * POWERS_OF_TEN[power];
+    return negative ? -value : value;
+  }
+
+  /**
+   * Skips a JSON value of any kind.
+   *
+   * @throws IOException if the value is malformed
+   */
+  private void skipValue() throws IOException {
+    int c = next();
+    if (c == '{') {
+      if (!endOf('}')) {
+        do {
+          readKey();
+          expect(':');
+          skipValue();
+        } while (nextMember('}'));
+      }
+    } else if (c == '[') {
+      if (!endOf(']')) {
+        do {
+          skipValue();
+        } while (nextMember(']'));
+      }
+    } else if (c == '"') {
+      skipString();
+    } else if (c == '-' || (c >= '0' && c <= '9')) {
+      readNumber(c);
+    } else if (c >= 'a' && c <= 'z') {
+      do {
+        c = read();
+      } while (c >= 'a' && c <= 'z');
+      unread(c);
+    } else {
+      throw malformed(c);
+    }
+  }
+
+  /**
+   * Reads an object key, keeping up to its first 'KEY_SIZE' bytes in 'key' and its full length
+   *  in 'keyLength'. Escaped characters are kept as the character after the backslash.
+   *
+   * @throws IOException if the key is malformed
+   */
+  private void readKey() throws IOException {
+    int c = next();
+    if (c != '"') {
+      throw malformed(c);
+    }
+    keyLength = 0;
+    for (c = read(); c != '"'; c = read()) {
+      if (c == '\\') {
+        c = read();
+      }
+      if (c < 0) {
+        throw malformed(c);
+      }
+      if (keyLength < KEY_SIZE) {
+        key[keyLength] = (byte) c;
+      }
+      keyLength++;
+    }
+  }
+
+  /**
+   * Skips the rest of a string whose opening quote has been read.
+   *
+   * @throws IOException if the string is not closed
+   */
+  private void skipString() throws IOException {
+    for (int c = read(); c != '"'; c = read()) {
+      if (c == '\\') {
+        c = read();
+      }
+      if (c < 0) {
+        throw malformed(c);
+      }
+    }
+  }
+
+  private boolean keyIs(byte[] name) {
+    if (keyLength != name.length) {
+      return false;
+    }
+    for (int i = 0; i < keyLength; i++) {
+      if (key[i] != name[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reads the current key as a day in 'yyyy-MM-dd' form.
+   *
+   * @return the number of days from January 1, 1970
+   * @throws IOException if the key is not a date
+   */
+  private long keyDay() throws IOException {
+    if (keyLength != 10 || key[4] != '-' || key[7] != '-') {
+      throw new IOException("Malformed day in response");
+    }
+    try {
+      return LocalDate.of(keyDigits(0, 4), keyDigits(5, 7), keyDigits(8, 10)).toEpochDay();
+    } catch (DateTimeException e) {
+      throw new IOException("Malformed day in response", e);
+    }
+  }
+
+  private int keyDigits(int from, int to) throws IOException {
+    int value = 0;
+    for (int i = from; i < to; i++) {
+      if (key[i] < '0' || key[i] > '9') {
+        throw new IOException("Malformed day in response");
+      }
+      value = value * 10 + (key[i] - '0');
+    }
+    return value;
+  }
+
+  private double[] newVector(String base) {
+    double[] rates = new double[symbolCount];
+    Arrays.fill(rates, Double.NaN);
+    int basePosition = base.length() == 3 ? positionOf(pack(base)) : -1;
+    if (basePosition >= 0) {
+      rates[basePosition] = 1.0;
+    }
+    return rates;
+  }
+
+  private int positionOf(int packed) {
+    int found = Arrays.binarySearch(symbolKeys, packed);
+    return found >= 0 ? symbolPositions[found] : -1;
+  }
+
+  /**
+   * Packs a 3-letter code into an int, in the manner of the bytes of a key.
+   *
+   * @param code the code
+   * @return the packed code, or -1 for codes of any other length
+   */
+  private static int pack(String code) {
+    if (code.length() != 3) {
+      return -1;
+    }
+    return (code.charAt(0) & 0xFF) << 16 | (code.charAt(1) & 0xFF) << 8 | code.charAt(2) & 0xFF;
+  }
+
+  /**
+   * Ends a member of an object or array: reads the ',' before the next one, or its closing
+   *  bracket.
+   *
+   * @param close the closing bracket
+   * @return true if another member follows
+   * @throws IOException if neither is found
+   */
+  private boolean nextMember(int close) throws IOException {
+    int c = next();
+    if (c == ',') {
+      return true;
+    } else if (c == close) {
+      return false;
+    }
+    throw malformed(c);
+  }
+
+  /**
+   * Reads the closing bracket of an object or array just opened, if it is empty.
+   *
+   * @param close the closing bracket
+   * @return true if it was empty
+   * @throws IOException if the stream could not be read
+   */
+  private boolean endOf(int close) throws IOException {
+    int c = next();
+    if (c == close) {
+      return true;
+    }
+    unread(c);
+    return false;
+  }
+
+  private void expect(int expected) throws IOException {
+    int c = next();
+    if (c != expected) {
+      throw malformed(c);
+    }
+  }
+
+  private void start(InputStream stream) {
+    in = stream;
+    position = 0;
+    limit = 0;
+  }
+
+  /**
+   * Reads the next byte which is not whitespace.
+   *
+   * @return the byte, or -1 at the end of the stream
+   * @throws IOException if the stream could not be read
+   */
+  private int next() throws IOException {
+    int c;
+    do {
+      c = read();
+    } while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+    return c;
+  }
+
+  private int read() throws IOException {
+    if (position == limit) {
+      int read = in.read(buffer, 0, BUFFER_SIZE);
+      if (read <= 0) {
+        return -1;
+      }
+      position = 0;
+      limit = read;
+    }
+    return buffer[position++] & 0xFF;
+  }
+
+  /**
+   * Steps back over the byte just read, unless it was the end of the stream.
+   *
+   * @param c the byte
+   */
+  private void unread(int c) {
+    if (c >= 0) {
+      position--;
+    }
+  }
+
+  private static IOException malformed(int c) {
+    return new IOException(c < 0 ? "Unexpected end of response"
+        : "Unexpected '" + (char) c + "' in response");
+  }
+}
@@ -0,0 +1,430 @@
+package projecttwo;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Rollups of sales by country, year and month: the number of sales, their sum in local currency
+ *  and their sum converted to a common currency.
+ *
+ * <p>Each sale is added to the cell of its country and month and to the cell of its country and
+ *  year, in constant time. A total over any range of months is then combined from at most 22
+ *  month cells and one cell per whole year in between, however many sales there are.
+ *
+ * <p>The years spanned grow as needed to take in sales outside of them. Not thread-safe.
+ *
+ * <p>A cube may also be read straight from its cells saved in a 'SalesSnapshot', so that a
+ *  rollup reads only the cells of the country it is for. The cells of a country are copied onto
+ *  the heap on the first sale added to it, and those of every country once the years spanned
+ *  must grow.
+ *
+ * @see ProgramModel
+ */
+public class SalesCube {
+  /** Number of months in a year, and of month cells in each year of a country. */
+  static final int MONTHS = 12;
+
+  /**
+   * Totals of the sales falling in part of a cube.
+   */
+  public static final class Rollup {
+    private final int count;
+    private final double localSum;
+    private final double convertedSum;
+
+    private Rollup(int count, double localSum, double convertedSum) {
+      this.count = count;
+      this.localSum = localSum;
+      this.convertedSum = convertedSum;
+    }
+
+    /**
+     * Accessor for the number of sales.
+     *
+     * @return the count
+     */
+    public int getCount() {
+      return count;
+    }
+
+    /**
+     * Accessor for the sum of prices in local currency. Only meaningful within one country.
+     *
+     * @return the sum
+     */
+    public double getLocalSum() {
+      return localSum;
+    }
+
+    /**
+     * Accessor for the sum of prices converted to the common currency.
+     *
+     * @return the sum
+     */
+    public double getConvertedSum() {
+      return convertedSum;
+    }
+  }
+
+  private final int countries;
+  private int firstYear;
+  private int years;
+  private int[][] monthCounts;
+  private double[][] monthLocal;
+  private double[][] monthConverted;
+  private int[][] yearCounts;
+  private double[][] yearLocal;
+  private double[][] yearConverted;
+  private IntBuffer savedCounts;
+  private DoubleBuffer savedLocal;
+  private DoubleBuffer savedConverted;
+
+  /**
+   * Creates an empty cube.
+   *
+   * @param countries the number of countries, whose ordinals run from 0
+   * @param firstYear the earliest year initially spanned
+   * @param years the number of years initially spanned
+   */
+  public SalesCube(int countries, int firstYear, int years) {
+    this.countries = countries;
+    this.firstYear = firstYear;
+    this.years = Math.max(years, 1);
+    monthCounts = new int[countries][this.years * MONTHS];
+    monthLocal = new double[countries][this.years * MONTHS];
+    monthConverted = new double[countries][this.years * MONTHS];
+    yearCounts = new int[countries][this.years];
+    yearLocal = new double[countries][this.years];
+    yearConverted = new double[countries][this.years];
+  }
+
+  /**
+   * Creates a cube read from its saved cells, in constant time. Each column holds the cells of
+   *   every country in turn, numbered as for 'getCount'.
+   *
+   * @param countries the number of countries, whose ordinals run from 0
+   * @param firstYear the earliest year spanned
+   * @param years the number of years spanned
+   * @param counts the number of sales in each cell, which must not change
+   * @param localSums the sum in local currency of each cell, which must not change
+   * @param convertedSums the converted sum of each cell, which must not change
+   */
+  SalesCube(int countries, int firstYear, int years, IntBuffer counts, DoubleBuffer localSums,
+      DoubleBuffer convertedSums) {
+    this.countries = countries;
+    this.firstYear = firstYear;
+    this.years = years;
+    monthCounts = new int[countries][];
+    monthLocal = new double[countries][];
+    monthConverted = new double[countries][];
+    yearCounts = new int[countries][];
+    yearLocal = new double[countries][];
+    yearConverted = new double[countries][];
+    savedCounts = counts;
+    savedLocal = localSums;
+    savedConverted = convertedSums;
+  }
+
+  /**
+   * Creates a cube of every sale in a table, using its converted prices.
+   *
+   * @param table the sales
+   * @param countries the number of countries, whose ordinals run from 0
+   *
+   * @return the new cube
+   */
+  public static SalesCube of(SalesTable table, int countries) {
+    if (table.size() == 0) {
+      return new SalesCube(countries, YearMonth.now().getYear(), 1);
+    }
+    int first = LocalDate.ofEpochDay(table.getFirstEpochDay()).getYear();
+    int last = LocalDate.ofEpochDay(table.getLastEpochDay()).getYear();
+    SalesCube cube = new SalesCube(countries, first, last - first + 1);
+    for (int row = 0; row < table.size(); row++) {
+      cube.add(table.getCountryOrdinal(row), table.getEpochDay(row), table.getPrice(row),
+          table.getConvertedPrice(row));
+    }
+    return cube;
+  }
+
+  /**
+   * Adds a sale to its cells.
+   *
+   * @param country the ordinal of the sale's country
+   * @param epochDay the day of the sale, counted from January 1, 1970
+   * @param localPrice the price in local currency
+   * @param convertedPrice the price converted to the common currency
+   */
+  public void add(int country, long epochDay, double localPrice, double convertedPrice) {
+    LocalDate date = LocalDate.ofEpochDay(epochDay);
+    ensureSpans(date.getYear());
+    copySaved(country);
+    int year = date.getYear() - firstYear;
+    int month = year * MONTHS + date.getMonthValue() - 1;
+    monthCounts[country][month]++;
+    monthLocal[country][month] += localPrice;
+    monthConverted[country][month] += convertedPrice;
+    yearCounts[country][year]++;
+    yearLocal[country][year] += localPrice;
+    yearConverted[country][year] += convertedPrice;
+  }
+
+  /**
+   * Totals the sales of a country over a range of months.
+   *
+   * @param country the ordinal of the country
+   * @param from the first month of the range
+   * @param to the last month of the range, inclusive
+   *
+   * @return the totals, all zero if the range is empty
+   */
+  public Rollup rollup(int country, YearMonth from, YearMonth to) {
+    int count = 0;
+    double local = 0.0;
+    double converted = 0.0;
+    int month = Math.max(monthIndex(from), 0);
+    int last = Math.min(monthIndex(to), years * MONTHS - 1);
+    while (month <= last) {
+      int year = month / MONTHS;
+      int cell = month;
+      if (month % MONTHS == 0 && month + MONTHS - 1 <= last) {
+        cell = years * MONTHS + year;
+        month += MONTHS;
+      } else {
+        month++;
+      }
+      count += getCount(country, cell);
+      local += getLocalSum(country, cell);
+      converted += getConvertedSum(country, cell);
+    }
+    return new Rollup(count, local, converted);
+  }
+
+  /**
+   * Totals the sales of each country over a range of months.
+   *
+   * @param from the first month of the range
+   * @param to the last month of the range, inclusive
+   *
+   * @return the totals indexed by country ordinal
+   */
+  public Rollup[] rollupByCountry(YearMonth from, YearMonth to) {
+    Rollup[] rollups = new Rollup[countries];
+    for (int country = 0; country < countries; country++) {
+      rollups[country] = rollup(country, from, to);
+    }
+    return rollups;
+  }
+
+  /**
+   * Totals the sales of a country in each month of a range.
+   *
+   * @param country the ordinal of the country
+   * @param from the first month of the range
+   * @param to the last month of the range, inclusive
+   *
+   * @return the totals of each month in order, empty if the range is empty
+   */
+  public Rollup[] rollupByMonth(int country, YearMonth from, YearMonth to) {
+    int first = monthIndex(from);
+    Rollup[] rollups = new Rollup[Math.max(monthIndex(to) - first + 1, 0)];
+    for (int i = 0; i < rollups.length; i++) {
+      int month = first + i;
+      if (month < 0 || month >= years * MONTHS) {
+        rollups[i] = new Rollup(0, 0.0, 0.0);
+      } else {
+        rollups[i] = new Rollup(getCount(country, month), getLocalSum(country, month),
+            getConvertedSum(country, month));
+      }
+    }
+    return rollups;
+  }
+
+  /**
+   * Accessor for the number of countries.
+   *
+   * @return the number of countries, whose ordinals run from 0
+   */
+  int getCountries() {
+    return countries;
+  }
+
+  /**
+   * Accessor for the earliest year spanned.
+   *
+   * @return the year
+   */
+  int getFirstYear() {
+    return firstYear;
+  }
+
+  /**
+   * Accessor for the number of years spanned.
+   *
+   * @return the number of years
+   */
+  int getYears() {
+    return years;
+  }
+
+  /**
+   * Accessor for the number of cells of each country: one for each month spanned, followed by
+   *   one for each year.
+   *
+   * @return the number of cells
+   */
+  int getCells() {
+    return years * (MONTHS + 1);
+  }
+
+  /**
+   * Accessor for the number of sales in a cell.
+   *
+   * @param country the ordinal of the country
+   * @param cell the month spanned, counted from January of 'getFirstYear', or else 'getYears'
+   *     * 12 plus the year spanned, counted from 'getFirstYear'
+   *
+   * @return the count
+   */
+  int getCount(int country, int cell) {
+    if (monthCounts[country] != null) {
+      return cell < years * MONTHS ? monthCounts[country][cell]
+          : yearCounts[country][cell - years * MONTHS];
+    }
+    return savedCounts.get(country * getCells() + cell);
+  }
+
+  /**
+   * Accessor for the sum in local currency of a cell.
+   *
+   * @param country the ordinal of the country
+   * @param cell the cell, numbered as for 'getCount'
+   *
+   * @return the sum
+   */
+  double getLocalSum(int country, int cell) {
+    if (monthLocal[country] != null) {
+      return cell < years * MONTHS ? monthLocal[country][cell]
+          : yearLocal[country][cell - years * MONTHS];
+    }
+    return savedLocal.get(country * getCells() + cell);
+  }
+
+  /**
+   * Accessor for the converted sum of a cell.
+   *
+   * @param country the ordinal of the country
+   * @param cell the cell, numbered as for 'getCount'
+   *
+   * @return the sum
+   */
+  double getConvertedSum(int country, int cell) {
+    if (monthConverted[country] != null) {
+      return cell < years * MONTHS ? monthConverted[country][cell]
+          : yearConverted[country][cell - years * MONTHS];
+    }
+    return savedConverted.get(country * getCells() + cell);
+  }
+
+  /**
+   * Copies the saved cells of a country onto the heap so that they can be changed, unless they
+   *  already have been.
+   *
+   * @param country the ordinal of the country
+   */
+  private void copySaved(int country) {
+    if (monthCounts[country] != null) {
+      return;
+    }
+    int months = years * MONTHS;
+    int start = country * getCells();
+    monthCounts[country] = new int[months];
+    monthLocal[country] = new double[months];
+    monthConverted[country] = new double[months];
+    yearCounts[country] = new int[years];
+    yearLocal[country] = new double[years];
+    yearConverted[country] = new double[years];
+    IntBuffer counts = savedCounts.duplicate();
+    counts.position(start);
+    counts.get(monthCounts[country]).get(yearCounts[country]);
+    DoubleBuffer local = savedLocal.duplicate();
+    local.position(start);
+    local.get(monthLocal[country]).get(yearLocal[country]);
+    DoubleBuffer converted = savedConverted.duplicate();
+    converted.position(start);
+    converted.get(monthConverted[country]).get(yearConverted[country]);
+  }
+
+  /**
+   * Provides the position of a month in the month cells, which may be outside of them.
+   *
+   * @param month the month
+   * @return the position
+   */
+  private int monthIndex(YearMonth month) {
+    return (month.getYear() - firstYear) * MONTHS + month.getMonthValue() - 1;
+  }
+
+  /**
+   * Widens the span of years to include 'year', at least doubling it when it must grow.
+   *
+   * @param year the year to include
+   */
+  private void ensureSpans(int year) {
+    int lastYear = firstYear + years - 1;
+    if (year >= firstYear && year <= lastYear) {
+      return;
+    }
+    int newFirst = Math.min(firstYear, year);
+    int newLast = Math.max(lastYear, year);
+    int span = Math.max(newLast - newFirst + 1, 2 * years);
+    if (year < firstYear) {
+      newFirst = newLast - span + 1;
+    }
+    int shift = firstYear - newFirst;
+    for (int country = 0; country < countries; country++) {
+      copySaved(country);
+      monthCounts[country] = shifted(monthCounts[country], shift * MONTHS, span * MONTHS);
+      monthLocal[country] = shifted(monthLocal[country], shift * MONTHS, span * MONTHS);
+      monthConverted[country] = shifted(monthConverted[country], shift * MONTHS, span * MONTHS);
+      yearCounts[country] = shifted(yearCounts[country], shift, span);
+      yearLocal[country] = shifted(yearLocal[country], shift, span);
+      yearConverted[country] = shifted(yearConverted[country], shift, span);
+    }
+    firstYear = newFirst;
+    years = span;
+    savedCounts = null;
+    savedLocal = null;
+    savedConverted = null;
+  }
+
+  /**
+   * Copies cells into a longer array, moved along by some positions.
+   *
+   * @param cells the cells
+   * @param shift the number of positions to move the cells along
+   * @param length the length of the new array
+   * @return the new array
+   */
+  private static int[] shifted(int[] cells, int shift, int length) {
+    int[] moved = new int[length];
+    System.arraycopy(cells, 0, moved, shift, cells.length);
+    return moved;
+  }
+
+  /**
+   * Copies cells into a longer array, moved along by some positions.
+   *
+   * @param cells the cells
+   * @param shift the number of positions to move the cells along
+   * @param length the length of the new array
+   * @return the new array
+   */
+  private static double[] shifted(double[] cells, int shift, int length) {
+    double[] moved = new double[length];
+    System.arraycopy(cells, 0, moved, shift, cells.length);
+    return moved;
+  }
+}
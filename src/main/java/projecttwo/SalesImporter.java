@@ -0,0 +1,441 @@
+package projecttwo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streams sales from files into a 'ProgramModel' in chunks, holding no more than one buffer of
+ *  the file and one chunk of sales in memory at a time.
+ *
+ * <p>Two formats are read. CSV files hold 'yyyy-MM-dd,country,price' lines, where 'country' is a
+ *  2-letter code from 'CurrencyConverter.countryCodes' and 'price' a plain decimal number in
+ *  local currency. Binary files start with the four bytes 'PTS1', followed by 14-byte records of
+ *  the country code in ASCII, the day as a 4-byte count of days from January 1, 1970 and the
+ *  price as an 8-byte double, all big-endian.
+ *
+ * <p>Files are read through a reusable buffer, and dates, countries and prices are parsed
+ *  straight from its bytes into primitive arrays, so no objects are created per sale. Sales that
+ *  fail validation, such as a header line, are skipped and counted. Each full chunk of valid
+ *  sales is appended to the model in one step, with one event for its listeners.
+ *
+ * <p>An importer is not thread-safe, and its methods block until the sales read are in the
+ *  model, so they should not be called on the event dispatch thread.
+ *
+ * @see ProgramModel#addRows(int[], double[], long[], int)
+ */
+public class SalesImporter {
+  /** Number of sales appended to the model at a time by default. */
+  public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+  private static final int BUFFER_SIZE = 1 << 20;
+  private static final byte[] BINARY_MAGIC = "PTS1".getBytes(StandardCharsets.US_ASCII);
+  private static final int RECORD_SIZE = 14;
+  private static final long LONGEST_EXACT = 1L << 53;
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+  };
+  private static final short[] COUNTRY_ORDINALS = new short[26 * 26];
+
+  static {
+    Arrays.fill(COUNTRY_ORDINALS, (short) -1);
+    for (int ordinal = 0; ordinal < CurrencyConverter.countryCodes.size(); ordinal++) {
+      String code = CurrencyConverter.countryCodes.get(ordinal);
+      if (code.length() == 2 && countrySlot(code.charAt(0), code.charAt(1)) >= 0) {
+        COUNTRY_ORDINALS[countrySlot(code.charAt(0), code.charAt(1))] = (short) ordinal;
+      }
+    }
+  }
+
+  private final ProgramModel model;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+  private final int[] countryOrdinals;
+  private final double[] prices;
+  private final long[] epochDays;
+  private int pending;
+  private long imported;
+  private long rejected;
+
+  /**
+   * Creates an importer appending the default number of sales at a time.
+   *
+   * @param model the model to add sales to
+   */
+  public SalesImporter(ProgramModel model) {
+    this(model, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Creates an importer.
+   *
+   * @param model the model to add sales to
+   * @param chunkSize the number of sales to append to the model at a time
+   */
+  public SalesImporter(ProgramModel model, int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+    }
+    this.model = model;
+    countryOrdinals = new int[chunkSize];
+    prices = new double[chunkSize];
+    epochDays = new long[chunkSize];
+  }
+
+  /**
+   * Accessor for the number of sales added to the model so far.
+   *
+   * @return the count across all files imported
+   */
+  public long getImported() {
+    return imported;
+  }
+
+  /**
+   * Accessor for the number of lines or records skipped as invalid so far.
+   *
+   * @return the count across all files imported
+   */
+  public long getRejected() {
+    return rejected;
+  }
+
+  /**
+   * Imports a file, choosing the format from its first bytes.
+   *
+   * @param file the CSV or binary file
+   *
+   * @throws IOException if the file could not be read
+   */
+  public void importFile(Path file) throws IOException {
+    byte[] start = new byte[BINARY_MAGIC.length];
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer head = ByteBuffer.wrap(start);
+      while (head.hasRemaining() && channel.read(head) >= 0) {
+        //keep reading until the head is full or the file ends
+      }
+    }
+    if (Arrays.equals(start, BINARY_MAGIC)) {
+      importBinary(file);
+    } else {
+      importCsv(file);
+    }
+  }
+
+  /**
+   * Imports a CSV file of 'yyyy-MM-dd,country,price' lines.
+   *
+   * @param file the CSV file
+   *
+   * @throws IOException if the file could not be read or has a line longer than the buffer
+   */
+  public void importCsv(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      buffer.clear();
+      boolean ended = false;
+      while (!ended) {
+        ended = channel.read(buffer) < 0;
+        buffer.flip();
+        int lineStart = buffer.position();
+        for (int i = lineStart; i < buffer.limit(); i++) {
+          if (buffer.get(i) == '\n') {
+            parseCsvLine(lineStart, i);
+            lineStart = i + 1;
+          }
+        }
+        if (ended && lineStart < buffer.limit()) {
+          parseCsvLine(lineStart, buffer.limit());
+          lineStart = buffer.limit();
+        }
+        if (lineStart == 0 && buffer.limit() == buffer.capacity()) {
+          throw new IOException("Line longer than " + BUFFER_SIZE + " bytes in " + file);
+        }
+        buffer.position(lineStart);
+        buffer.compact();
+      }
+    }
+    flush();
+  }
+
+  /**
+   * Imports a binary file of sale records.
+   *
+   * @param file the binary file
+   *
+   * @throws IOException if the file could not be read, or is not a complete file of records
+   */
+  public void importBinary(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      buffer.clear();
+      boolean ended = false;
+      boolean started = false;
+      while (!ended) {
+        ended = channel.read(buffer) < 0;
+        buffer.flip();
+        if (!started && buffer.remaining() >= BINARY_MAGIC.length) {
+          for (byte expected : BINARY_MAGIC) {
+            if (buffer.get() != expected) {
+              throw new IOException("Not a binary sales file: " + file);
+            }
+          }
+          started = true;
+        }
+        while (started && buffer.remaining() >= RECORD_SIZE) {
+          int country = countryOrdinal(buffer.get(), buffer.get());
+          long epochDay = buffer.getInt();
+          double price = buffer.getDouble();
+          if (country < 0 || !(price >= 0.0)) {
+            rejected++;
+          } else {
+            append(country, price, epochDay);
+          }
+        }
+        if (ended && (!started || buffer.hasRemaining())) {
+          throw new IOException("Truncated binary sales file: " + file);
+        }
+        buffer.compact();
+      }
+    }
+    flush();
+  }
+
+  /**
+   * Writes every sale of a table to a binary file, in row order.
+   *
+   * @param table the sales to write
+   * @param file the file to create or replace
+   *
+   * @throws IOException if the file could not be written
+   */
+  public static void exportBinary(SalesTable table, Path file) throws IOException {
+    ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      out.put(BINARY_MAGIC);
+      for (int row = 0; row < table.size(); row++) {
+        if (out.remaining() < RECORD_SIZE) {
+          out.flip();
+          while (out.hasRemaining()) {
+            channel.write(out);
+          }
+          out.clear();
+        }
+        String country = CurrencyConverter.countryCodes.get(table.getCountryOrdinal(row));
+        out.put((byte) country.charAt(0));
+        out.put((byte) country.charAt(1));
+        out.putInt((int) table.getEpochDay(row));
+        out.putDouble(table.getPrice(row));
+      }
+      out.flip();
+      while (out.hasRemaining()) {
+        channel.write(out);
+      }
+    }
+  }
+
+  /**
+   * Counts the days from January 1, 1970 to a date, without creating any objects.
+   *
+   * @param year the year
+   * @param month the month, from 1 for January
+   * @param day the day of the month
+   *
+   * @return the count of days, or Long.MIN_VALUE if there is no such date
+   */
+  static long epochDay(int year, int month, int day) {
+    if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+      return Long.MIN_VALUE;
+    }
+    long shiftedYear = month <= 2 ? year - 1 : year;
+    long era = Math.floorDiv(shiftedYear, 400);
+    long yearOfEra = shiftedYear - era * 400;
+    long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  /**
+   * Provides the number of days in a month.
+   *
+   * @param year the year
+   * @param month the month, from 1 for January
+   * @return the number of days
+   */
+  private static int lengthOfMonth(int year, int month) {
+    if (month == 2) {
+      boolean leap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+      return leap ? 29 : 28;
+    }
+    return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+  }
+
+  /**
+   * Parses a line of the buffer as a sale, appending it if valid and counting it as rejected
+   *   otherwise.
+   *
+   * @param start the position of the first byte of the line
+   * @param end the position just past the last byte of the line, excluding the line feed
+   */
+  private void parseCsvLine(int start, int end) {
+    if (end > start && buffer.get(end - 1) == '\r') {
+      end--;
+    }
+    if (end == start) {
+      return;
+    }
+    long epochDay = Long.MIN_VALUE;
+    int country = -1;
+    double price = Double.NaN;
+    if (end - start > 14 && buffer.get(start + 4) == '-' && buffer.get(start + 7) == '-'
+        && buffer.get(start + 10) == ',' && buffer.get(start + 13) == ',') {
+      int year = digits(start, 4);
+      int month = digits(start + 5, 2);
+      int day = digits(start + 8, 2);
+      if (year >= 0 && month >= 0 && day >= 0) {
+        epochDay = epochDay(year, month, day);
+      }
+      country = countryOrdinal(buffer.get(start + 11), buffer.get(start + 12));
+      price = parsePrice(start + 14, end);
+    }
+    if (epochDay == Long.MIN_VALUE || country < 0 || !(price >= 0.0)) {
+      rejected++;
+    } else {
+      append(country, price, epochDay);
+    }
+  }
+
+  /**
+   * Parses a run of decimal digits from the buffer.
+   *
+   * @param start the position of the first digit
+   * @param count the number of digits
+   * @return the value, or -1 if any byte is not a digit
+   */
+  private int digits(int start, int count) {
+    int value = 0;
+    for (int i = start; i < start + count; i++) {
+      int digit = buffer.get(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      value = value * 10 + digit;
+    }
+    return value;
+  }
+
+  /**
+   * Parses a plain decimal number, such as '1250000' or '99500.50', from the buffer. Numbers
+   *   with up to 15 significant digits are parsed exactly from the bytes; longer ones fall back
+   *   to 'Double.parseDouble'.
+   *
+   * @param start the position of the first byte of the number
+   * @param end the position just past the last byte of the number
+   * @return the number, or NaN if the bytes are not a plain decimal number
+   */
+  private double parsePrice(int start, int end) {
+    long mantissa = 0;
+    int fractionDigits = -1;
+    int digitCount = 0;
+    for (int i = start; i < end; i++) {
+      byte next = buffer.get(i);
+      if (next == '.' && fractionDigits < 0) {
+        fractionDigits = 0;
+      } else if (next >= '0' && next <= '9') {
+        if (mantissa >= LONGEST_EXACT / 10) {
+          return slowParse(start, end);
+        }
+        mantissa = mantissa * 10 + next - '0';
+        digitCount++;
+        if (fractionDigits >= 0) {
+          fractionDigits++;
+        }
+      } else {
+        return Double.NaN;
+      }
+    }
+    if (digitCount == 0) {
+      return Double.NaN;
+    }
+    if (fractionDigits >= POWERS_OF_TEN.length) {
+      return slowParse(start, end);
+    }
+    return fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+  }
+
+  /**
+   * Parses a number too long to parse exactly from the bytes.
+   *
+   * @param start the position of the first byte of the number
+   * @param end the position just past the last byte of the number
+   * @return the number, or NaN if it cannot be parsed
+   */
+  private double slowParse(int start, int end) {
+    byte[] bytes = new byte[end - start];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = buffer.get(start + i);
+    }
+    try {
+      return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+    } catch (NumberFormatException e) {
+      return Double.NaN;
+    }
+  }
+
+  /**
+   * Adds a valid sale to the current chunk, appending the chunk to the model once full.
+   *
+   * @param country the ordinal of the sale's country
+   * @param price the price in local currency
+   * @param epochDay the day of the sale
+   */
+  private void append(int country, double price, long epochDay) {
+    countryOrdinals[pending] = country;
+    prices[pending] = price;
+    epochDays[pending] = epochDay;
+    pending++;
+    if (pending == prices.length) {
+      flush();
+    }
+  }
+
+  /**
+   * Appends the current chunk to the model, waiting until it is in so the chunk's arrays can be
+   *   reused.
+   */
+  private void flush() {
+    if (pending > 0) {
+      model.addRows(countryOrdinals, prices, epochDays, pending);
+      imported += pending;
+      pending = 0;
+    }
+  }
+
+  /**
+   * Provides the ordinal of a country from the bytes of its code.
+   *
+   * @param first the first letter of the code
+   * @param second the second letter of the code
+   * @return the ordinal, or -1 if there is no such country
+   */
+  private static int countryOrdinal(byte first, byte second) {
+    int slot = countrySlot((char) first, (char) second);
+    return slot < 0 ? -1 : COUNTRY_ORDINALS[slot];
+  }
+
+  /**
+   * Provides the slot of a 2-letter country code in the country lookup table.
+   *
+   * @param first the first letter of the code
+   * @param second the second letter of the code
+   * @return the slot, or -1 if the code is not two capital letters
+   */
+  private static int countrySlot(char first, char second) {
+    if (first < 'A' || first > 'Z' || second < 'A' || second > 'Z') {
+      return -1;
+    }
+    return (first - 'A') * 26 + second - 'A';
+  }
+}
@@ -0,0 +1,480 @@
+package projecttwo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of the sales added since the last 'SalesSnapshot', written with
+ *  group commit.
+ *
+ * <p>Sales appended are buffered and written out in batches by a background thread, with a
+ *  single 'force' for each batch, so the cost of making them durable is shared by every sale in
+ *  the batch. A batch is committed once it holds 'batchSize' sales or once 'flushMillis' have
+ *  passed since the first of them, whichever is sooner, which bounds how many sales a crash may
+ *  lose. Each append returns a future completed once its batch is on disk.
+ *
+ * <p>A journal is a header of the magic bytes "PTWL", the format version and the generation of
+ *  the journal, followed by batches, all little-endian. Each batch is the number of sales in it,
+ *  the CRC-32 of its sales and then the sales themselves, each the day, price and country ordinal
+ *  of a sale. A batch cut short or damaged by a crash ends the journal, and is cut off when it is
+ *  replayed.
+ *
+ * <p>The generation goes up each time the journal is emptied by 'reset'. A snapshot records the
+ *  generation of the journal which holds the first sales it does not, so a journal of an earlier
+ *  generation, whose sales the snapshot already holds, can be told apart and is not replayed on
+ *  top of it.
+ *
+ * @see ProgramModel
+ * @see SalesSnapshot
+ */
+public class SalesJournal implements Closeable {
+  /** Version of the format written, the only one read. */
+  public static final int VERSION = 2;
+  /** Longest time, in milliseconds, a sale is held before its batch is committed by default. */
+  public static final long DEFAULT_FLUSH_MILLIS = 10;
+  /** Number of sales which commit a batch at once by default. */
+  public static final int DEFAULT_BATCH_SIZE = 8192;
+
+  private static final byte[] MAGIC = "PTWL".getBytes(StandardCharsets.US_ASCII);
+  private static final int HEADER_BYTES = 16;
+  private static final int BATCH_HEADER_BYTES = 8;
+  private static final int RECORD_BYTES = Long.BYTES + Double.BYTES + Short.BYTES;
+  private static final int INITIAL_BUFFER_BYTES = 1 << 16;
+
+  /**
+   * Receives the sales of a journal as it is replayed, a batch at a time.
+   */
+  public interface RowSink {
+
+    /**
+     * Takes a batch of sales.
+     *
+     * @param countryOrdinals positions of the sales' countries in 'CurrencyConverter.countryCodes'
+     * @param prices the amounts of the sales in local currency
+     * @param epochDays the days of the sales, counted from January 1, 1970
+     * @param count the number of sales, the length of the arrays
+     */
+    void accept(int[] countryOrdinals, double[] prices, long[] epochDays, int count);
+  }
+
+  private final FileChannel channel;
+  private final long flushMillis;
+  private final int batchSize;
+  private final Thread flusher;
+  private final Object lock = new Object();
+  private final Object writeLock = new Object();
+  private ByteBuffer pending = newBuffer(INITIAL_BUFFER_BYTES);
+  private int pendingCount;
+  private CompletableFuture<Void> pendingCommit = new CompletableFuture<Void>();
+  private long generation;
+  private boolean closed;
+  private IOException failure;
+
+  /**
+   * Opens a journal, creating it if need be, and starts committing the sales appended to it.
+   *   'replay' should be called before anything is appended.
+   *
+   * @param path the journal file
+   * @param flushMillis the longest time, in milliseconds, a sale is held before its batch is
+   *     committed
+   * @param batchSize the number of sales which commit a batch at once
+   *
+   * @throws IOException if the file cannot be opened or is not a journal of this version
+   */
+  public SalesJournal(Path path, long flushMillis, int batchSize) throws IOException {
+    if (flushMillis < 0 || batchSize < 1) {
+      throw new IllegalArgumentException("Flush interval and batch size must be positive");
+    }
+    this.flushMillis = flushMillis;
+    this.batchSize = batchSize;
+    Path parent = path.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    ByteBuffer header = newBuffer(HEADER_BYTES);
+    if (channel.size() == 0) {
+      writeHeader();
+      channel.force(false);
+    } else {
+      readFully(header, 0);
+      byte[] magic = new byte[MAGIC.length];
+      if (header.remaining() == HEADER_BYTES) {
+        header.get(magic);
+      }
+      if (!Arrays.equals(magic, MAGIC) || header.getInt(MAGIC.length) != VERSION) {
+        channel.close();
+        throw new IOException(path + " is not a version " + VERSION + " sales journal");
+      }
+      generation = header.getLong(MAGIC.length + Integer.BYTES);
+    }
+    channel.position(channel.size());
+    flusher = new Thread(this::commitBatches, "journal-commits");
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  /**
+   * Provides the file the journal is kept in, named by the 'projecttwo.journal' system property
+   *   or else 'sales.journal' in the '.projecttwo' directory of the user's home.
+   *
+   * @return the path of the journal, which may not exist yet
+   */
+  public static Path defaultFile() {
+    String path = System.getProperty("projecttwo.journal");
+    if (path != null) {
+      return Paths.get(path);
+    }
+    return Paths.get(System.getProperty("user.home"), ".projecttwo", "sales.journal");
+  }
+
+  /**
+   * Reads every whole batch in the journal, in the order they were committed. Anything after the
+   *   last whole batch, left by a crash part way through a commit, is cut off.
+   *
+   * @param sink receives the sales of each batch
+   *
+   * @return the number of sales replayed
+   *
+   * @throws IOException if the journal cannot be read
+   */
+  public int replay(RowSink sink) throws IOException {
+    synchronized (writeLock) {
+      long end = channel.size();
+      long position = HEADER_BYTES;
+      int replayed = 0;
+      ByteBuffer batchHeader = newBuffer(BATCH_HEADER_BYTES);
+      CRC32 crc = new CRC32();
+      while (position + BATCH_HEADER_BYTES <= end) {
+        batchHeader.clear();
+        readFully(batchHeader, position);
+        int count = batchHeader.getInt(0);
+        long bytes = (long) count * RECORD_BYTES;
+        if (count <= 0 || position + BATCH_HEADER_BYTES + bytes > end) {
+          break;
+        }
+        ByteBuffer records = newBuffer((int) bytes);
+        readFully(records, position + BATCH_HEADER_BYTES);
+        crc.reset();
+        crc.update(records.duplicate());
+        if ((int) crc.getValue() != batchHeader.getInt(Integer.BYTES)) {
+          break;
+        }
+        int[] countries = new int[count];
+        double[] prices = new double[count];
+        long[] days = new long[count];
+        for (int i = 0; i < count; i++) {
+          days[i] = records.getLong();
+          prices[i] = records.getDouble();
+          countries[i] = records.getShort();
+        }
+        sink.accept(countries, prices, days, count);
+        replayed += count;
+        position += BATCH_HEADER_BYTES + bytes;
+      }
+      if (position < end) {
+        channel.truncate(position);
+        channel.force(false);
+      }
+      channel.position(position);
+      return replayed;
+    }
+  }
+
+  /**
+   * Appends a sale to the next batch.
+   *
+   * @param countryOrdinal position of the sale's country in 'CurrencyConverter.countryCodes'
+   * @param price the amount of the sale in local currency
+   * @param epochDay the day of the sale, counted from January 1, 1970
+   *
+   * @return a future completed once the sale is on disk, or completed exceptionally with an
+   *     'UncheckedIOException' if its batch could not be written
+   */
+  public CompletableFuture<Void> append(int countryOrdinal, double price, long epochDay) {
+    synchronized (lock) {
+      ensureOpen();
+      reserve(1).putLong(epochDay).putDouble(price).putShort((short) countryOrdinal);
+      return added(1);
+    }
+  }
+
+  /**
+   * Appends many sales to the next batch at once.
+   *
+   * @param countryOrdinals positions of the sales' countries in 'CurrencyConverter.countryCodes'
+   * @param prices the amounts of the sales in local currency
+   * @param epochDays the days of the sales, counted from January 1, 1970
+   * @param count the number of sales to take from the start of the arrays
+   *
+   * @return a future completed once the sales are on disk, or completed exceptionally with an
+   *     'UncheckedIOException' if their batch could not be written
+   */
+  public CompletableFuture<Void> appendAll(
+      int[] countryOrdinals, double[] prices, long[] epochDays, int count) {
+    synchronized (lock) {
+      ensureOpen();
+      ByteBuffer buffer = reserve(count);
+      for (int i = 0; i < count; i++) {
+        buffer.putLong(epochDays[i]).putDouble(prices[i]).putShort((short) countryOrdinals[i]);
+      }
+      return added(count);
+    }
+  }
+
+  /**
+   * Accessor for the generation of the journal, the number given to the last 'reset', or 0 if
+   *   it has never been reset.
+   *
+   * @return the generation
+   */
+  public long getGeneration() {
+    synchronized (lock) {
+      return generation;
+    }
+  }
+
+  /**
+   * Empties the journal, once every sale in it has been saved some other way, such as in a
+   *   snapshot, and moves it on to a new generation. Sales still waiting for their batch are
+   *   dropped too, and their futures completed.
+   *
+   * @param newGeneration the new generation, greater than the current one
+   *
+   * @throws IOException if the journal cannot be cut short
+   */
+  public void reset(long newGeneration) throws IOException {
+    synchronized (writeLock) {
+      CompletableFuture<Void> dropped;
+      synchronized (lock) {
+        if (newGeneration <= generation) {
+          throw new IllegalArgumentException("Generation " + newGeneration + " is not after "
+              + generation);
+        }
+        pending.clear();
+        pendingCount = 0;
+        dropped = pendingCommit;
+        pendingCommit = new CompletableFuture<Void>();
+        generation = newGeneration;
+      }
+      channel.truncate(HEADER_BYTES);
+      writeHeader();
+      channel.position(HEADER_BYTES);
+      channel.force(false);
+      failure = null;
+      dropped.complete(null);
+    }
+  }
+
+  /**
+   * Commits every sale appended so far and closes the journal.
+   *
+   * @throws IOException if the journal cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      lock.notifyAll();
+    }
+    try {
+      flusher.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    channel.close();
+  }
+
+  /**
+   * Takes batches from the sales appended and writes them out, until the journal is closed and
+   *  nothing is left. Runs on the 'flusher' thread.
+   */
+  private void commitBatches() {
+    while (true) {
+      ByteBuffer batch;
+      int count;
+      long batchGeneration;
+      CompletableFuture<Void> commit;
+      synchronized (lock) {
+        try {
+          while (pendingCount == 0 && !closed) {
+            lock.wait();
+          }
+          long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMillis);
+          long left = deadline - System.nanoTime();
+          while (pendingCount > 0 && pendingCount < batchSize && !closed && left > 0) {
+            TimeUnit.NANOSECONDS.timedWait(lock, left);
+            left = deadline - System.nanoTime();
+          }
+        } catch (InterruptedException e) {
+          return;
+        }
+        if (pendingCount == 0) {
+          if (closed) {
+            return;
+          }
+          continue;
+        }
+        batch = pending;
+        count = pendingCount;
+        commit = pendingCommit;
+        batchGeneration = generation;
+        pending = newBuffer(Math.max(INITIAL_BUFFER_BYTES, batch.capacity() / 2));
+        pendingCount = 0;
+        pendingCommit = new CompletableFuture<Void>();
+      }
+      try {
+        write(batch, count, batchGeneration);
+        commit.complete(null);
+      } catch (IOException e) {
+        commit.completeExceptionally(new UncheckedIOException(e));
+      }
+    }
+  }
+
+  /**
+   * Writes a batch and forces it to disk, unless the journal has been reset since the batch was
+   *  taken, its sales then being saved already. A batch which cannot be written is cut off again,
+   *  so the batches after it are not lost behind it when the journal is replayed; if even that
+   *  fails, every later batch is refused until the journal is reset.
+   *
+   * @param records the sales of the batch, from the start of the buffer to its position
+   * @param count the number of sales in the batch
+   * @param batchGeneration the generation of the journal when the batch was taken
+   * @throws IOException if the batch cannot be written
+   */
+  private void write(ByteBuffer records, int count, long batchGeneration) throws IOException {
+    records.flip();
+    CRC32 crc = new CRC32();
+    crc.update(records.duplicate());
+    ByteBuffer batchHeader = newBuffer(BATCH_HEADER_BYTES);
+    batchHeader.putInt(count).putInt((int) crc.getValue()).flip();
+    synchronized (writeLock) {
+      synchronized (lock) {
+        if (generation != batchGeneration) {
+          return;
+        }
+      }
+      if (failure != null) {
+        throw new IOException("Journal failed on an earlier batch", failure);
+      }
+      long start = channel.position();
+      try {
+        ByteBuffer[] parts = {batchHeader, records};
+        while (records.hasRemaining()) {
+          channel.write(parts);
+        }
+        channel.force(false);
+      } catch (IOException e) {
+        try {
+          channel.truncate(start);
+          channel.position(start);
+        } catch (IOException truncateFailure) {
+          e.addSuppressed(truncateFailure);
+          failure = e;
+        }
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Writes the header, with the current generation, at the start of the file.
+   *
+   * @throws IOException if the header cannot be written
+   */
+  private void writeHeader() throws IOException {
+    ByteBuffer header = newBuffer(HEADER_BYTES);
+    header.put(MAGIC).putInt(VERSION).putLong(generation).flip();
+    long position = 0;
+    while (header.hasRemaining()) {
+      position += channel.write(header, position);
+    }
+  }
+
+  /**
+   * Makes room in the pending buffer for some more sales, growing it if need be.
+   *
+   * @param count the number of sales
+   * @return the pending buffer
+   */
+  private ByteBuffer reserve(int count) {
+    int bytes = count * RECORD_BYTES;
+    if (pending.remaining() < bytes) {
+      ByteBuffer grown = newBuffer(Math.max(pending.capacity() * 2, pending.position() + bytes));
+      pending.flip();
+      grown.put(pending);
+      pending = grown;
+    }
+    return pending;
+  }
+
+  /**
+   * Counts sales just put in the pending buffer, waking the committing thread if they start a
+   *  batch or fill it.
+   *
+   * @param count the number of sales
+   * @return the future of the batch they are in
+   */
+  private CompletableFuture<Void> added(int count) {
+    boolean wasEmpty = pendingCount == 0;
+    pendingCount += count;
+    if (wasEmpty || pendingCount >= batchSize) {
+      lock.notifyAll();
+    }
+    return pendingCommit;
+  }
+
+  /**
+   * Checks that the journal is still open for appends.
+   */
+  private void ensureOpen() {
+    if (closed) {
+      throw new IllegalStateException("Journal is closed");
+    }
+  }
+
+  /**
+   * Reads from the journal until a buffer is full or the file ends, leaving the buffer ready to
+   *  be read.
+   *
+   * @param buffer the buffer
+   * @param position the position in the file to read from
+   * @throws IOException if the journal cannot be read
+   */
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        break;
+      }
+      position += read;
+    }
+    buffer.flip();
+  }
+
+  /**
+   * Creates a little-endian buffer.
+   *
+   * @param bytes the capacity
+   * @return the buffer
+   */
+  private static ByteBuffer newBuffer(int bytes) {
+    return ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+  }
+}
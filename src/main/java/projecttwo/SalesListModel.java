@@ -0,0 +1,150 @@
+package projecttwo;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import javax.swing.AbstractListModel;
+
+/**
+ * 'ListModel' showing the sales of a 'SalesTable' in any order, without copying them.
+ *
+ * <p>The model holds only a permutation of row numbers. Elements are created as views of their
+ *  rows when a list asks for them, so only the visible cells ever have an element. Reordering
+ *  replaces the permutation and fires a single 'contentsChanged' event; rows inserted into the
+ *  order shown fire only 'intervalAdded' events for where they go.
+ *
+ * <p>Meant to be used on the Swing event dispatch thread.
+ *
+ * @see SalesTable
+ * @see javax.swing.JList
+ */
+public class SalesListModel extends AbstractListModel<RealEstateSale> {
+  private static final long serialVersionUID = 1L;
+
+  private final SalesTable table;
+  private int[] order = new int[0];
+
+  /**
+   * Creates an empty model over a table. Call 'setOrder', 'showInDateOrder' or
+   *   'sortBy' to take in its rows.
+   *
+   * @param table the sales to show
+   */
+  public SalesListModel(SalesTable table) {
+    this.table = table;
+  }
+
+  /**
+   * Accessor for the number of sales shown.
+   *
+   * @return the length of the list
+   */
+  public int getSize() {
+    return order.length;
+  }
+
+  /**
+   * Provides a view of the sale at a position in the list.
+   *
+   * @param index the position in the list
+   * @return the sale
+   */
+  public RealEstateSale getElementAt(int index) {
+    return table.view(order[index]);
+  }
+
+  /**
+   * Provides the row of the table shown at a position in the list.
+   *
+   * @param index the position in the list
+   * @return the row
+   */
+  public int rowAt(int index) {
+    return order[index];
+  }
+
+  /**
+   * Shows every sale in the table in date order, which the table already keeps, so no sorting is
+   *   needed.
+   */
+  public void showInDateOrder() {
+    int[] rows = new int[table.size()];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = table.rowInDateOrder(i);
+    }
+    setOrder(rows);
+  }
+
+  /**
+   * Shows every sale in the table sorted by a comparator. Each row is viewed only once however
+   *   many times it is compared.
+   *
+   * @param comparator the order to show the sales in
+   */
+  public void sortBy(Comparator<RealEstateSale> comparator) {
+    RealEstateSale[] sales = new RealEstateSale[table.size()];
+    for (int i = 0; i < sales.length; i++) {
+      sales[i] = table.view(table.rowInDateOrder(i));
+    }
+    Arrays.sort(sales, comparator);
+    int[] rows = new int[sales.length];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = table.rowOf(sales[i]);
+    }
+    setOrder(rows);
+  }
+
+  /**
+   * Shows rows which include every row shown now, in the same order, with more rows among them.
+   *   Only the places of the rows added are reported to the list, so the rows already shown are
+   *   neither repainted nor laid out again. If 'rows' does not keep the rows shown now in order,
+   *   it is shown as 'setOrder' does.
+   *
+   * @param rows the rows to show, by position in the list
+   */
+  public void insertRows(int[] rows) {
+    int[] old = order;
+    int kept = 0;
+    for (int i = 0; i < rows.length && kept < old.length; i++) {
+      if (rows[i] == old[kept]) {
+        kept++;
+      }
+    }
+    if (kept < old.length) {
+      setOrder(rows);
+      return;
+    }
+    order = rows;
+    int i = 0;
+    kept = 0;
+    while (i < rows.length) {
+      if (kept < old.length && rows[i] == old[kept]) {
+        i++;
+        kept++;
+        continue;
+      }
+      int start = i;
+      while (i < rows.length && (kept >= old.length || rows[i] != old[kept])) {
+        i++;
+      }
+      fireIntervalAdded(this, start, i - 1);
+    }
+  }
+
+  /**
+   * Shows the given rows of the table, in the given order.
+   *
+   * @param rows the rows to show, by position in the list
+   */
+  public void setOrder(int[] rows) {
+    int oldSize = order.length;
+    order = rows;
+    if (rows.length > oldSize) {
+      fireIntervalAdded(this, oldSize, rows.length - 1);
+    } else if (rows.length < oldSize) {
+      fireIntervalRemoved(this, rows.length, oldSize - 1);
+    }
+    if (Math.min(oldSize, rows.length) > 0) {
+      fireContentsChanged(this, 0, Math.min(oldSize, rows.length) - 1);
+    }
+  }
+}
@@ -0,0 +1,531 @@
+package projecttwo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Binary snapshot of a 'SalesTable', its converted prices and everything a 'ProgramModel' derives
+ *  from them, opened by mapping it into memory rather than by reading it.
+ *
+ * <p>A snapshot is a 64-byte header followed by one column after another, all little-endian:
+ *  the day of every row, its price in local currency, its converted price, the rows in date
+ *  order, in price order and in country order and finally the country ordinal of every row. The
+ *  header holds the magic bytes "PTSS", the format version, the number of rows, flags (bit 0 set
+ *  if the prices were converted with historical rates), the first and last day of any row, the
+ *  generation of the 'SalesJournal' holding the sales added after the snapshot and the language
+ *  tag of the locale the prices were converted for.
+ *
+ * <p>The columns are followed, from the next multiple of 8 bytes, by the totals: the number of
+ *  countries and the first year and number of years of the 'SalesCube', then the first day and
+ *  number of nodes of the daily totals overall and of those of each country in turn, no nodes
+ *  meaning the country has no sales, then the nodes of each of those 'FenwickTree's and finally
+ *  the cells of the cube, as sales, local sums and converted sums of every country in turn.
+ *
+ * <p>Each column is mapped on its own and nothing is read from them when a snapshot is opened,
+ *  so a snapshot opens in the same time whatever its size and only the pages a reader then
+ *  touches are read from disk: a total reads a few nodes of a tree and a rollup the cells of
+ *  one country. A sorted order is copied onto the heap once it is first asked for, and the
+ *  nodes of a tree or the cells of a country once a sale is added to them.
+ *
+ * @see SalesTable
+ * @see ProgramModel
+ */
+public class SalesSnapshot {
+  /** Version of the format written, the only one read. */
+  public static final int VERSION = 3;
+
+  private static final byte[] MAGIC = "PTSS".getBytes(StandardCharsets.US_ASCII);
+  private static final int HEADER_BYTES = 64;
+  private static final int JOURNAL_OFFSET = 32;
+  private static final int LOCALE_OFFSET = 40;
+  private static final int MAX_LOCALE_BYTES = HEADER_BYTES - LOCALE_OFFSET - Integer.BYTES;
+  private static final int HISTORICAL_FLAG = 1;
+  private static final int ROW_BYTES =
+      Long.BYTES + Double.BYTES + Double.BYTES + 3 * Integer.BYTES + Short.BYTES;
+  private static final int TOTALS_HEADER_BYTES = 16;
+  private static final int TREE_ENTRY_BYTES = 16;
+  private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+  private final SalesTable table;
+  private final IntBuffer dateOrder;
+  private final IntBuffer priceOrder;
+  private final IntBuffer countryOrder;
+  private final FenwickTree dailyTotals;
+  private final FenwickTree[] countryTotals;
+  private final SalesCube cube;
+  private final Locale locale;
+  private final boolean historical;
+  private final long journalGeneration;
+
+  private SalesSnapshot(SalesTable table, IntBuffer dateOrder, IntBuffer priceOrder,
+      IntBuffer countryOrder, FenwickTree dailyTotals, FenwickTree[] countryTotals,
+      SalesCube cube, Locale locale, boolean historical, long journalGeneration) {
+    this.table = table;
+    this.dateOrder = dateOrder;
+    this.priceOrder = priceOrder;
+    this.countryOrder = countryOrder;
+    this.dailyTotals = dailyTotals;
+    this.countryTotals = countryTotals;
+    this.cube = cube;
+    this.locale = locale;
+    this.historical = historical;
+    this.journalGeneration = journalGeneration;
+  }
+
+  /**
+   * Provides the file snapshots are kept in, named by the 'projecttwo.snapshot' system property or
+   *   else 'sales.snapshot' in the '.projecttwo' directory of the user's home.
+   *
+   * @return the path of the snapshot, which may not exist yet
+   */
+  public static Path defaultFile() {
+    String path = System.getProperty("projecttwo.snapshot");
+    if (path != null) {
+      return Paths.get(path);
+    }
+    return Paths.get(System.getProperty("user.home"), ".projecttwo", "sales.snapshot");
+  }
+
+  /**
+   * Opens a snapshot by mapping its columns. The file must not be changed while the table is in
+   *   use, though it may be replaced by 'write'.
+   *
+   * @param path the snapshot file
+   *
+   * @return the snapshot
+   *
+   * @throws IOException if the file cannot be read, is not a snapshot, is of another version, is
+   *     for another number of countries or is cut short
+   */
+  public static SalesSnapshot open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining() && channel.read(header) >= 0) {
+        //keep reading until the header is full or the file ends
+      }
+      header.flip();
+      byte[] magic = new byte[MAGIC.length];
+      if (header.remaining() == HEADER_BYTES) {
+        header.get(magic);
+      }
+      if (!Arrays.equals(magic, MAGIC)) {
+        throw new IOException(path + " is not a sales snapshot");
+      }
+      int version = header.getInt(4);
+      if (version != VERSION) {
+        throw new IOException(path + " is a version " + version + " snapshot, not " + VERSION);
+      }
+      int rows = header.getInt(8);
+      long expected = HEADER_BYTES + (long) ROW_BYTES * rows;
+      if (rows < 0 || channel.size() < expected) {
+        throw new IOException(path + " is cut short");
+      }
+      boolean historical = (header.getInt(12) & HISTORICAL_FLAG) != 0;
+      long firstDay = header.getLong(16);
+      long lastDay = header.getLong(24);
+      long journalGeneration = header.getLong(JOURNAL_OFFSET);
+      int localeLength = header.getInt(LOCALE_OFFSET);
+      if (localeLength < 0 || localeLength > MAX_LOCALE_BYTES) {
+        throw new IOException(path + " has a corrupt header");
+      }
+      byte[] tag = new byte[localeLength];
+      header.position(LOCALE_OFFSET + Integer.BYTES);
+      header.get(tag);
+      Locale locale = Locale.forLanguageTag(new String(tag, StandardCharsets.US_ASCII));
+
+      long offset = HEADER_BYTES;
+      MappedByteBuffer days = map(channel, offset, Long.BYTES, rows);
+      offset += (long) Long.BYTES * rows;
+      MappedByteBuffer prices = map(channel, offset, Double.BYTES, rows);
+      offset += (long) Double.BYTES * rows;
+      MappedByteBuffer converted = map(channel, offset, Double.BYTES, rows);
+      offset += (long) Double.BYTES * rows;
+      MappedByteBuffer order = map(channel, offset, Integer.BYTES, rows);
+      offset += (long) Integer.BYTES * rows;
+      MappedByteBuffer byPrice = map(channel, offset, Integer.BYTES, rows);
+      offset += (long) Integer.BYTES * rows;
+      MappedByteBuffer byCountry = map(channel, offset, Integer.BYTES, rows);
+      offset += (long) Integer.BYTES * rows;
+      MappedByteBuffer countries = map(channel, offset, Short.BYTES, rows);
+      SalesTable table = new SalesTable(rows, days.asLongBuffer(), prices.asDoubleBuffer(),
+          countries.asShortBuffer(), converted.asDoubleBuffer(), order.asIntBuffer(),
+          firstDay, lastDay);
+
+      offset = totalsOffset(rows);
+      ByteBuffer totals = read(channel, offset, TOTALS_HEADER_BYTES, path);
+      int countryCount = totals.getInt(0);
+      int firstYear = totals.getInt(4);
+      int years = totals.getInt(8);
+      if (countryCount != CurrencyConverter.countryCodes.size()) {
+        throw new IOException(path + " is for " + countryCount + " countries, not "
+            + CurrencyConverter.countryCodes.size());
+      }
+      if (years <= 0 || (long) years * (SalesCube.MONTHS + 1) * countryCount > Integer.MAX_VALUE) {
+        throw new IOException(path + " has corrupt totals");
+      }
+      offset += TOTALS_HEADER_BYTES;
+      ByteBuffer entries = read(channel, offset, TREE_ENTRY_BYTES * (countryCount + 1), path);
+      offset += TREE_ENTRY_BYTES * (countryCount + 1);
+      FenwickTree[] trees = new FenwickTree[countryCount + 1];
+      for (int tree = 0; tree <= countryCount; tree++) {
+        long firstKey = entries.getLong(tree * TREE_ENTRY_BYTES);
+        long nodes = entries.getLong(tree * TREE_ENTRY_BYTES + Long.BYTES);
+        if (nodes < 0 || nodes > Integer.MAX_VALUE - 1 || tree == 0 && nodes == 0) {
+          throw new IOException(path + " has corrupt totals");
+        }
+        if (nodes > 0) {
+          checkLength(channel, offset + Double.BYTES * nodes, path);
+          trees[tree] = new FenwickTree(firstKey,
+              map(channel, offset, Double.BYTES, (int) nodes).asDoubleBuffer());
+          offset += Double.BYTES * nodes;
+        }
+      }
+      int cells = years * (SalesCube.MONTHS + 1) * countryCount;
+      checkLength(channel, offset + (long) (Double.BYTES + Double.BYTES + Integer.BYTES) * cells,
+          path);
+      MappedByteBuffer localSums = map(channel, offset, Double.BYTES, cells);
+      offset += (long) Double.BYTES * cells;
+      MappedByteBuffer convertedSums = map(channel, offset, Double.BYTES, cells);
+      offset += (long) Double.BYTES * cells;
+      MappedByteBuffer counts = map(channel, offset, Integer.BYTES, cells);
+      SalesCube cube = new SalesCube(countryCount, firstYear, years, counts.asIntBuffer(),
+          localSums.asDoubleBuffer(), convertedSums.asDoubleBuffer());
+      return new SalesSnapshot(table, order.asIntBuffer(), byPrice.asIntBuffer(),
+          byCountry.asIntBuffer(), trees[0], Arrays.copyOfRange(trees, 1, trees.length), cube,
+          locale, historical, journalGeneration);
+    }
+  }
+
+  /**
+   * Writes a snapshot of every row of a table and of the orders and totals derived from it. The
+   *   snapshot is written beside 'path' and then moved over it in one step, so a snapshot already
+   *   there, even one currently mapped, is never seen half written.
+   *
+   * @param table the sales, which must not change while they are written
+   * @param priceOrder the rows in order of converted price
+   * @param countryOrder the rows in order of country ordinal
+   * @param dailyTotals the converted prices summed by day
+   * @param countryTotals the converted prices of each country summed by day, indexed by country
+   *     ordinal, or null for countries without sales
+   * @param cube the rollups of the sales by country and month
+   * @param locale the locale the converted prices are in
+   * @param historical whether the converted prices used historical rates
+   * @param journalGeneration the generation of the journal the sales added after the snapshot
+   *     will be kept in, or 0 if there is none
+   * @param path the snapshot file
+   *
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(SalesTable table, int[] priceOrder, int[] countryOrder,
+      FenwickTree dailyTotals, FenwickTree[] countryTotals, SalesCube cube, Locale locale,
+      boolean historical, long journalGeneration, Path path) throws IOException {
+    byte[] tag = locale.toLanguageTag().getBytes(StandardCharsets.US_ASCII);
+    if (tag.length > MAX_LOCALE_BYTES) {
+      tag = new Locale(locale.getLanguage(), locale.getCountry()).toLanguageTag()
+          .getBytes(StandardCharsets.US_ASCII);
+    }
+    Path parent = path.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    Path temporary = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING)) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        int rows = table.size();
+        buffer.put(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(rows);
+        buffer.putInt(historical ? HISTORICAL_FLAG : 0);
+        buffer.putLong(table.getFirstEpochDay());
+        buffer.putLong(table.getLastEpochDay());
+        buffer.putLong(journalGeneration);
+        buffer.putInt(tag.length);
+        buffer.put(tag);
+        buffer.position(HEADER_BYTES);
+        for (int row = 0; row < rows; row++) {
+          room(channel, buffer, Long.BYTES).putLong(table.getEpochDay(row));
+        }
+        for (int row = 0; row < rows; row++) {
+          room(channel, buffer, Double.BYTES).putDouble(table.getPrice(row));
+        }
+        for (int row = 0; row < rows; row++) {
+          room(channel, buffer, Double.BYTES).putDouble(table.getConvertedPrice(row));
+        }
+        for (int position = 0; position < rows; position++) {
+          room(channel, buffer, Integer.BYTES).putInt(table.rowInDateOrder(position));
+        }
+        for (int position = 0; position < rows; position++) {
+          room(channel, buffer, Integer.BYTES).putInt(priceOrder[position]);
+        }
+        for (int position = 0; position < rows; position++) {
+          room(channel, buffer, Integer.BYTES).putInt(countryOrder[position]);
+        }
+        for (int row = 0; row < rows; row++) {
+          room(channel, buffer, Short.BYTES)
+              .putShort((short) table.getCountryOrdinal(row));
+        }
+        long padding = totalsOffset(rows) - HEADER_BYTES - (long) ROW_BYTES * rows;
+        for (long i = 0; i < padding; i++) {
+          room(channel, buffer, 1).put((byte) 0);
+        }
+        writeTotals(channel, buffer, dailyTotals, countryTotals, cube);
+        drain(channel, buffer);
+        channel.force(false);
+      }
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Accessor for the sales of the snapshot, whose rows are read from the mapped file.
+   *
+   * @return the table
+   */
+  public SalesTable getTable() {
+    return table;
+  }
+
+  /**
+   * Accessor for the rows of the snapshot in date order, read from the mapped file.
+   *
+   * @return the rows, which must not be changed
+   */
+  IntBuffer getDateOrder() {
+    return dateOrder.duplicate();
+  }
+
+  /**
+   * Accessor for the rows of the snapshot in order of converted price, read from the mapped
+   *   file.
+   *
+   * @return the rows, which must not be changed
+   */
+  IntBuffer getPriceOrder() {
+    return priceOrder.duplicate();
+  }
+
+  /**
+   * Accessor for the rows of the snapshot in order of country ordinal, read from the mapped
+   *   file.
+   *
+   * @return the rows, which must not be changed
+   */
+  IntBuffer getCountryOrder() {
+    return countryOrder.duplicate();
+  }
+
+  /**
+   * Accessor for the converted prices of the snapshot summed by day, read from the mapped file
+   *   until the tree is changed.
+   *
+   * @return the tree
+   */
+  public FenwickTree getDailyTotals() {
+    return dailyTotals;
+  }
+
+  /**
+   * Accessor for the converted prices of each country summed by day, read from the mapped file
+   *   until a tree is changed.
+   *
+   * @return the trees indexed by country ordinal, null for countries without sales
+   */
+  public FenwickTree[] getCountryTotals() {
+    return countryTotals;
+  }
+
+  /**
+   * Accessor for the rollups of the snapshot by country and month, read from the mapped file
+   *   until the cells of a country are changed.
+   *
+   * @return the cube
+   */
+  public SalesCube getCube() {
+    return cube;
+  }
+
+  /**
+   * Accessor for the locale the converted prices of the snapshot are in.
+   *
+   * @return the locale
+   */
+  public Locale getLocale() {
+    return locale;
+  }
+
+  /**
+   * Accessor for whether the converted prices of the snapshot used historical rates.
+   *
+   * @return true if they did
+   */
+  public boolean isHistorical() {
+    return historical;
+  }
+
+  /**
+   * Accessor for the generation of the journal holding the sales added after the snapshot. A
+   *   journal of an earlier generation holds only sales the snapshot already has.
+   *
+   * @return the generation, or 0 if the snapshot was saved without a journal
+   */
+  public long getJournalGeneration() {
+    return journalGeneration;
+  }
+
+  /**
+   * Writes the totals of a snapshot: the sizes of the cube, the span of each tree, the nodes of
+   *  each tree and the cells of the cube.
+   *
+   * @param channel the file being written
+   * @param buffer the write buffer, positioned at the totals
+   * @param dailyTotals the converted prices summed by day
+   * @param countryTotals the converted prices of each country summed by day
+   * @param cube the rollups by country and month
+   * @throws IOException if the file cannot be written
+   */
+  private static void writeTotals(FileChannel channel, ByteBuffer buffer,
+      FenwickTree dailyTotals, FenwickTree[] countryTotals, SalesCube cube) throws IOException {
+    room(channel, buffer, TOTALS_HEADER_BYTES).putInt(cube.getCountries())
+        .putInt(cube.getFirstYear()).putInt(cube.getYears()).putInt(0);
+    FenwickTree[] trees = new FenwickTree[countryTotals.length + 1];
+    trees[0] = dailyTotals;
+    System.arraycopy(countryTotals, 0, trees, 1, countryTotals.length);
+    for (FenwickTree tree : trees) {
+      room(channel, buffer, TREE_ENTRY_BYTES).putLong(tree == null ? 0 : tree.getFirstKey())
+          .putLong(tree == null ? 0 : tree.getSpan());
+    }
+    for (FenwickTree tree : trees) {
+      for (int node = 1; tree != null && node <= tree.getSpan(); node++) {
+        room(channel, buffer, Double.BYTES).putDouble(tree.getNode(node));
+      }
+    }
+    for (int country = 0; country < cube.getCountries(); country++) {
+      for (int cell = 0; cell < cube.getCells(); cell++) {
+        room(channel, buffer, Double.BYTES).putDouble(cube.getLocalSum(country, cell));
+      }
+    }
+    for (int country = 0; country < cube.getCountries(); country++) {
+      for (int cell = 0; cell < cube.getCells(); cell++) {
+        room(channel, buffer, Double.BYTES).putDouble(cube.getConvertedSum(country, cell));
+      }
+    }
+    for (int country = 0; country < cube.getCountries(); country++) {
+      for (int cell = 0; cell < cube.getCells(); cell++) {
+        room(channel, buffer, Integer.BYTES).putInt(cube.getCount(country, cell));
+      }
+    }
+  }
+
+  /**
+   * Provides the position of the totals in a snapshot, the first multiple of 8 bytes after the
+   *  columns.
+   *
+   * @param rows the number of rows
+   * @return the position
+   */
+  private static long totalsOffset(int rows) {
+    long end = HEADER_BYTES + (long) ROW_BYTES * rows;
+    return (end + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+  }
+
+  /**
+   * Reads a few bytes of a snapshot onto the heap.
+   *
+   * @param channel the snapshot file
+   * @param offset the position of the bytes in the file
+   * @param bytes the number of bytes
+   * @param path the snapshot file, to name in errors
+   * @return the bytes, little-endian
+   * @throws IOException if the bytes cannot be read or the file ends before them
+   */
+  private static ByteBuffer read(FileChannel channel, long offset, int bytes, Path path)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, offset + buffer.position()) < 0) {
+        throw new IOException(path + " is cut short");
+      }
+    }
+    return buffer;
+  }
+
+  /**
+   * Checks that a snapshot is long enough to hold what it says it does.
+   *
+   * @param channel the snapshot file
+   * @param end the position the file must reach
+   * @param path the snapshot file, to name in errors
+   * @throws IOException if the file is shorter
+   */
+  private static void checkLength(FileChannel channel, long end, Path path) throws IOException {
+    if (channel.size() < end) {
+      throw new IOException(path + " is cut short");
+    }
+  }
+
+  /**
+   * Maps one column of a snapshot.
+   *
+   * @param channel the snapshot file
+   * @param offset the position of the column in the file
+   * @param width the number of bytes in each value
+   * @param rows the number of values
+   * @return the column, little-endian
+   * @throws IOException if the column cannot be mapped
+   */
+  private static MappedByteBuffer map(FileChannel channel, long offset, int width, int rows)
+      throws IOException {
+    MappedByteBuffer column =
+        channel.map(FileChannel.MapMode.READ_ONLY, offset, (long) width * rows);
+    column.order(ByteOrder.LITTLE_ENDIAN);
+    return column;
+  }
+
+  /**
+   * Makes room in a write buffer for a value, writing out what it holds if it is full.
+   *
+   * @param channel the file being written
+   * @param buffer the write buffer
+   * @param bytes the size of the value
+   * @return the buffer
+   * @throws IOException if the file cannot be written
+   */
+  private static ByteBuffer room(FileChannel channel, ByteBuffer buffer, int bytes)
+      throws IOException {
+    if (buffer.remaining() < bytes) {
+      drain(channel, buffer);
+    }
+    return buffer;
+  }
+
+  /**
+   * Writes out everything a write buffer holds and empties it.
+   *
+   * @param channel the file being written
+   * @param buffer the write buffer
+   * @throws IOException if the file cannot be written
+   */
+  private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+}
@@ -0,0 +1,409 @@
+package projecttwo;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Columnar store of real estate sales.
+ *
+ * <p>Each sale occupies one row across parallel primitive arrays: its day, price in local
+ *  currency, country ordinal and price converted to a common currency. Rows are only ever
+ *  appended, so a row number identifies a sale for good. 'RealEstateSale' instances are created
+ *  only as lightweight views of a row when one is asked for.
+ *
+ * <p>A table opened from a snapshot reads its first rows straight from the snapshot's mapped
+ *  columns rather than copying them onto the heap, so only the pages actually touched are ever
+ *  read from disk. Rows appended afterwards are held in arrays as usual.
+ *
+ * <p>The table is not thread-safe for writers, but the converted price column can be replaced
+ *  as a whole in one atomic step while other threads read it.
+ *
+ * @see RealEstateSale
+ * @see ProgramModel
+ * @see SalesSnapshot
+ */
+public class SalesTable {
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final int baseSize;
+  private final LongBuffer baseDays;
+  private final DoubleBuffer basePrices;
+  private final ShortBuffer baseCountries;
+  private IntBuffer baseDateOrder;
+
+  private long[] epochDays = new long[INITIAL_CAPACITY];
+  private double[] prices = new double[INITIAL_CAPACITY];
+  private short[] countries = new short[INITIAL_CAPACITY];
+  private volatile ConvertedColumn converted;
+  private int[] dateOrder;
+  private int size;
+  private long firstEpochDay;
+  private long lastEpochDay;
+
+  /**
+   * Creates an empty table.
+   */
+  public SalesTable() {
+    this(0, null, null, null, null, null, Long.MAX_VALUE, Long.MIN_VALUE);
+  }
+
+  /**
+   * Creates a table whose first rows are read from mapped columns, which must not change while
+   *   the table is in use.
+   *
+   * @param baseSize the number of rows in the mapped columns
+   * @param days the day of each row
+   * @param localPrices the price of each row in local currency
+   * @param countryOrdinals the country ordinal of each row
+   * @param convertedPrices the converted price of each row
+   * @param order the rows in date order
+   * @param firstDay the day of the earliest row
+   * @param lastDay the day of the latest row
+   */
+  SalesTable(int baseSize, LongBuffer days, DoubleBuffer localPrices, ShortBuffer countryOrdinals,
+      DoubleBuffer convertedPrices, IntBuffer order, long firstDay, long lastDay) {
+    this.baseSize = baseSize;
+    baseDays = days;
+    basePrices = localPrices;
+    baseCountries = countryOrdinals;
+    baseDateOrder = order;
+    converted = new ConvertedColumn(convertedPrices, new double[INITIAL_CAPACITY], baseSize);
+    dateOrder = baseSize == 0 ? new int[INITIAL_CAPACITY] : null;
+    size = baseSize;
+    firstEpochDay = firstDay;
+    lastEpochDay = lastDay;
+  }
+
+  /**
+   * Accessor for the number of sales held.
+   *
+   * @return the number of rows
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Accessor for the length of the columns, the number of rows held before they must grow.
+   *
+   * @return the capacity of the table
+   */
+  public int capacity() {
+    return baseSize + epochDays.length;
+  }
+
+  /**
+   * Accessor for the day of the earliest sale.
+   *
+   * @return the day, counted from January 1, 1970, or Long.MAX_VALUE if the table is empty
+   */
+  public long getFirstEpochDay() {
+    return firstEpochDay;
+  }
+
+  /**
+   * Accessor for the day of the latest sale.
+   *
+   * @return the day, counted from January 1, 1970, or Long.MIN_VALUE if the table is empty
+   */
+  public long getLastEpochDay() {
+    return lastEpochDay;
+  }
+
+  /**
+   * Appends a sale, keeping the date order up to date.
+   *
+   * @param countryOrdinal position of the sale's country in 'CurrencyConverter.countryCodes'
+   * @param price the amount of the sale in local currency
+   * @param epochDay the day of the sale, counted from January 1, 1970
+   *
+   * @return the row of the new sale
+   */
+  public int add(int countryOrdinal, double price, long epochDay) {
+    ensureCapacity(size + 1);
+    int row = size;
+    epochDays[row - baseSize] = epochDay;
+    prices[row - baseSize] = price;
+    countries[row - baseSize] = (short) countryOrdinal;
+    firstEpochDay = Math.min(firstEpochDay, epochDay);
+    lastEpochDay = Math.max(lastEpochDay, epochDay);
+    int position = dateInsertionPoint(epochDay, 0, size);
+    System.arraycopy(dateOrder, position, dateOrder, position + 1, size - position);
+    dateOrder[position] = row;
+    size++;
+    return row;
+  }
+
+  /**
+   * Appends many sales at once, merging them into the date order in a single pass rather than
+   *   inserting them one at a time. The new sales are sorted by day with a radix sort, then
+   *   merged in place from the end of the date order, which grows with the other columns:
+   *   the place of each new sale is found by binary search and the sales after it moved up in
+   *   bulk.
+   *
+   * @param countryOrdinals positions of the sales' countries in 'CurrencyConverter.countryCodes'
+   * @param salePrices the amounts of the sales in local currency
+   * @param saleDays the days of the sales, counted from January 1, 1970
+   * @param count the number of sales to take from the start of the arrays
+   *
+   * @return the row of the first new sale, the others following it in order
+   */
+  public int addAll(int[] countryOrdinals, double[] salePrices, long[] saleDays, int count) {
+    ensureCapacity(size + count);
+    int first = size;
+    for (int i = 0; i < count; i++) {
+      int index = first - baseSize + i;
+      epochDays[index] = saleDays[i];
+      prices[index] = salePrices[i];
+      countries[index] = (short) countryOrdinals[i];
+      firstEpochDay = Math.min(firstEpochDay, saleDays[i]);
+      lastEpochDay = Math.max(lastEpochDay, saleDays[i]);
+    }
+    int[] added = sortByDay(saleDays, count);
+    int old = first;
+    for (int fresh = count - 1; fresh >= 0; fresh--) {
+      int position = dateInsertionPoint(saleDays[added[fresh]], 0, old);
+      System.arraycopy(dateOrder, position, dateOrder, position + fresh + 1, old - position);
+      dateOrder[position + fresh] = first + added[fresh];
+      old = position;
+    }
+    size = first + count;
+    return first;
+  }
+
+  /**
+   * Sorts the positions of some days by day, keeping equal days in position order, by radix
+   *  sort on the days.
+   *
+   * @param days the days
+   * @param count the number of days to sort from the start of the array
+   * @return the positions 0 to 'count' - 1 in order of their days
+   */
+  private static int[] sortByDay(long[] days, int count) {
+    long[] keys = new long[count];
+    for (int i = 0; i < count; i++) {
+      keys[i] = days[i] ^ Long.MIN_VALUE;
+    }
+    return PriceSort.sortKeys(keys);
+  }
+
+  /**
+   * Accessor for the day of a sale.
+   *
+   * @param row the row of the sale
+   * @return the day, counted from January 1, 1970
+   */
+  public long getEpochDay(int row) {
+    return row < baseSize ? baseDays.get(row) : epochDays[row - baseSize];
+  }
+
+  /**
+   * Accessor for the price of a sale in local currency.
+   *
+   * @param row the row of the sale
+   * @return the price
+   */
+  public double getPrice(int row) {
+    return row < baseSize ? basePrices.get(row) : prices[row - baseSize];
+  }
+
+  /**
+   * Accessor for the country of a sale.
+   *
+   * @param row the row of the sale
+   * @return the position of the country in 'CurrencyConverter.countryCodes'
+   */
+  public int getCountryOrdinal(int row) {
+    return row < baseSize ? baseCountries.get(row) : countries[row - baseSize];
+  }
+
+  /**
+   * Accessor for the converted price of a sale.
+   *
+   * @param row the row of the sale
+   * @return the price in the common currency
+   */
+  public double getConvertedPrice(int row) {
+    return converted.get(row);
+  }
+
+  /**
+   * Sets the converted price of a sale. Rows still read from a snapshot cannot be set one at a
+   *   time; their column is replaced as a whole by 'setConvertedPrices'.
+   *
+   * @param row the row of the sale
+   * @param price the price in the common currency
+   */
+  public void setConvertedPrice(int row, double price) {
+    converted.set(row, price);
+  }
+
+  /**
+   * Replaces the whole converted price column in one atomic step.
+   *
+   * @param prices the converted prices indexed by row, at least 'capacity()' long
+   */
+  public void setConvertedPrices(double[] prices) {
+    if (prices.length < capacity()) {
+      throw new IllegalArgumentException("Price column shorter than table capacity");
+    }
+    converted = new ConvertedColumn(null, prices, 0);
+  }
+
+  /**
+   * Provides the row of the sale at a position in date order.
+   *
+   * @param position the position, from zero for the earliest sale
+   * @return the row
+   */
+  public int rowInDateOrder(int position) {
+    int[] order = dateOrder;
+    return order == null ? baseDateOrder.get(position) : order[position];
+  }
+
+  /**
+   * Provides a view of a row as a 'RealEstateSale'.
+   *
+   * @param row the row of the sale
+   * @return a sale reading its fields from this table
+   */
+  public RealEstateSale view(int row) {
+    return new Row(row);
+  }
+
+  /**
+   * Provides the row a sale is a view of.
+   *
+   * @param sale the sale
+   * @return the sale's row, or -1 if 'sale' is not a view of this table
+   */
+  public int rowOf(RealEstateSale sale) {
+    if (sale instanceof Row && ((Row) sale).table() == this) {
+      return ((Row) sale).row;
+    }
+    return -1;
+  }
+
+  /**
+   * Grows the columns, at least doubling them, so that they hold at least 'rows' rows. The date
+   *  order of a snapshot is copied out of its mapped column the first time rows are added.
+   *
+   * @param rows the number of rows needed
+   */
+  private void ensureCapacity(int rows) {
+    if (dateOrder == null) {
+      int[] order = new int[capacity()];
+      baseDateOrder.duplicate().get(order, 0, baseSize);
+      dateOrder = order;
+    }
+    if (rows <= capacity()) {
+      return;
+    }
+    int capacity = Math.max(rows - baseSize, epochDays.length * 2);
+    epochDays = Arrays.copyOf(epochDays, capacity);
+    prices = Arrays.copyOf(prices, capacity);
+    countries = Arrays.copyOf(countries, capacity);
+    converted = converted.grownTo(baseSize + capacity);
+    dateOrder = Arrays.copyOf(dateOrder, baseSize + capacity);
+  }
+
+  /**
+   * Finds where a sale of the given day belongs in part of the date order by binary search,
+   *  after any sales of the same day.
+   *
+   * @param epochDay the day of the sale
+   * @param low the first position searched
+   * @param high one past the last position searched
+   * @return the position in date order
+   */
+  private int dateInsertionPoint(long epochDay, int low, int high) {
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (getEpochDay(dateOrder[mid]) <= epochDay) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * A converted price column: rows before 'offset' are read from a mapped column and the rest
+   *  from an array.
+   */
+  private static final class ConvertedColumn {
+    private final DoubleBuffer base;
+    private final double[] values;
+    private final int offset;
+
+    private ConvertedColumn(DoubleBuffer base, double[] values, int offset) {
+      this.base = base;
+      this.values = values;
+      this.offset = offset;
+    }
+
+    private double get(int row) {
+      return row < offset ? base.get(row) : values[row - offset];
+    }
+
+    private void set(int row, double price) {
+      if (row < offset) {
+        throw new IllegalArgumentException("Row " + row + " is read from a snapshot");
+      }
+      values[row - offset] = price;
+    }
+
+    private ConvertedColumn grownTo(int capacity) {
+      return new ConvertedColumn(base, Arrays.copyOf(values, capacity - offset), offset);
+    }
+  }
+
+  /**
+   * A 'RealEstateSale' reading its fields from a row of the table.
+   */
+  private final class Row extends RealEstateSale {
+    private final int row;
+
+    private Row(int row) {
+      super(null, 0.0, null);
+      this.row = row;
+    }
+
+    private SalesTable table() {
+      return SalesTable.this;
+    }
+
+    @Override
+    public String getCountry() {
+      return CurrencyConverter.countryCodes.get(getCountryOrdinal(row));
+    }
+
+    @Override
+    public double getPrice() {
+      return SalesTable.this.getPrice(row);
+    }
+
+    @Override
+    public Date getDate() {
+      return Date.from(LocalDate.ofEpochDay(getEpochDay(row))
+          .atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Row && ((Row) other).table() == table() && ((Row) other).row == row;
+    }
+
+    @Override
+    public int hashCode() {
+      return row;
+    }
+  }
+}
@@ -0,0 +1,322 @@
+package projecttwo;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Row numbers of a table kept sorted by a key of each row.
+ *
+ * <p>The sorted rows are held in an array which is never changed once published: each merge or
+ *  rebuild replaces it with a new one. Readers may therefore take the array from any thread and
+ *  keep using it, while a single writer updates the index.
+ *
+ * <p>Inserted rows are not merged into the sorted array straight away, which would copy the whole
+ *  array for every insertion. They are appended to a log of added rows, grown by doubling, and
+ *  merged in all at once: by the first reader to ask for the rows, or by the writer once the log
+ *  holds an eighth as many rows as the sorted array. Inserting rows one at a time or in runs
+ *  therefore copies the sorted array once per read at most, and otherwise a number of times
+ *  logarithmic in its final size, rather than once per insertion. Rows are sorted by radix sort
+ *  on their keys, without comparing or boxing them.
+ *
+ * <p>An index may also start from rows saved in a 'SalesSnapshot', which are left where they are
+ *  until first asked for or merged into, so that an order never shown is never read.
+ *
+ * @see ProgramModel
+ * @see PriceSort
+ */
+public class SortedIndex {
+
+  /**
+   * The key of each row of a table, by which rows are sorted.
+   */
+  public interface RowKey {
+
+    /**
+     * Provides the key of a row.
+     *
+     * @param row the row
+     *
+     * @return the key, rows with smaller keys coming first
+     */
+    long key(int row);
+  }
+
+  private static final int MIN_MERGE_ROWS = 1 << 12;
+  private static final int[] NO_ROWS = new int[0];
+
+  private final RowKey key;
+  private final AtomicReference<State> state =
+      new AtomicReference<State>(new State(NO_ROWS, null, NO_ROWS, 0));
+
+  /**
+   * Creates an empty index.
+   *
+   * @param key the key of each row, with rows of equal keys kept in the order they were added
+   */
+  public SortedIndex(RowKey key) {
+    this.key = key;
+  }
+
+  /**
+   * Accessor for the sorted rows, merging in any rows added since they were last asked for. The
+   *   array must not be modified.
+   *
+   * @return the rows of the index in order
+   */
+  public int[] rows() {
+    State current = state.get();
+    if (current.addedCount == 0 && current.sorted != null) {
+      return current.sorted;
+    }
+    State merged = current.merged(key);
+    state.compareAndSet(current, merged);
+    return merged.sorted;
+  }
+
+  /**
+   * Inserts a row, to go after every row it does not come before.
+   *
+   * @param row the row to insert
+   */
+  public void insert(int row) {
+    State current;
+    State updated;
+    do {
+      current = state.get();
+      int[] added = current.reserve(1);
+      added[current.addedCount] = row;
+      updated = new State(current.sorted, current.saved, added, current.addedCount + 1);
+    } while (!state.compareAndSet(current, updated));
+    mergeIfLarge(updated);
+  }
+
+  /**
+   * Inserts a run of consecutive rows, each to go after every row it does not come before.
+   *
+   * <p>The rows are merged into the index together with any others added since the last merge:
+   *   they are sorted among themselves and then merged with the rows of the index in one pass.
+   *
+   * @param first the first row to insert
+   * @param count the number of rows to insert
+   */
+  public void insertAll(int first, int count) {
+    State current;
+    State updated;
+    do {
+      current = state.get();
+      int[] added = current.reserve(count);
+      for (int i = 0; i < count; i++) {
+        added[current.addedCount + i] = first + i;
+      }
+      updated = new State(current.sorted, current.saved, added, current.addedCount + count);
+    } while (!state.compareAndSet(current, updated));
+    mergeIfLarge(updated);
+  }
+
+  /**
+   * Replaces the index with rows 0 to 'count' - 1, sorted afresh. Rows of equal keys are kept
+   *   in row order.
+   *
+   * @param count the number of rows in the table
+   */
+  public void rebuild(int count) {
+    int[] rows = new int[count];
+    for (int row = 0; row < count; row++) {
+      rows[row] = row;
+    }
+    state.set(new State(sort(rows, count, key, new long[count]), null, NO_ROWS, 0));
+  }
+
+  /**
+   * Merges rows into rows already in the order of the index, such as some of the rows of the
+   *   index, each to go after every row it does not come before.
+   *
+   * @param sorted rows in the order of the index, which are not modified
+   * @param added the rows to merge in, in any order, which are not modified
+   * @param count the number of rows to take from the start of 'added'
+   *
+   * @return a new array of the rows of both in order
+   */
+  public int[] merge(int[] sorted, int[] added, int count) {
+    return merge(sorted, added, count, key);
+  }
+
+  /**
+   * Replaces the index with rows already sorted.
+   *
+   * @param sortedRows the rows in order, which must not be modified afterwards
+   */
+  public void set(int[] sortedRows) {
+    state.set(new State(sortedRows, null, NO_ROWS, 0));
+  }
+
+  /**
+   * Replaces the index with saved rows already sorted, which are only copied onto the heap once
+   *   they are first asked for or merged into.
+   *
+   * @param sortedRows the rows in order, which must not change
+   */
+  void set(IntBuffer sortedRows) {
+    state.set(new State(null, sortedRows, NO_ROWS, 0));
+  }
+
+  /**
+   * Merges the rows added into the sorted array if they have grown large, so that the log does
+   *  not grow without bound when the rows are not read.
+   *
+   * @param current the state just published by the writer
+   */
+  private void mergeIfLarge(State current) {
+    if (current.addedCount >= Math.max(MIN_MERGE_ROWS, current.sortedCount() >>> 3)) {
+      state.compareAndSet(current, current.merged(key));
+    }
+  }
+
+  /**
+   * Sorts the first rows of an array by their keys, keeping rows of equal keys in the order
+   *  they are in.
+   *
+   * @param rows the rows
+   * @param count the number of rows to sort from the start of the array
+   * @param key the key of each row
+   * @param sortedKeys receives the key of each row in the order returned
+   * @return the rows in order
+   */
+  private static int[] sort(int[] rows, int count, RowKey key, long[] sortedKeys) {
+    long[] keys = new long[count];
+    for (int i = 0; i < count; i++) {
+      keys[i] = key.key(rows[i]) ^ Long.MIN_VALUE;
+    }
+    int[] order = PriceSort.sortKeys(keys.clone());
+    int[] sorted = new int[count];
+    for (int i = 0; i < count; i++) {
+      sorted[i] = rows[order[i]];
+      sortedKeys[i] = keys[order[i]] ^ Long.MIN_VALUE;
+    }
+    return sorted;
+  }
+
+  /**
+   * Merges rows into rows already sorted, each to go after every row it does not come before.
+   *  When there are few rows to merge, the place of each is found by binary search from the
+   *  place of the one before and the rows between copied across in bulk; otherwise both are
+   *  walked through side by side, which then reads fewer keys.
+   *
+   * @param sorted the rows in order
+   * @param added the rows to merge in, in any order
+   * @param addedCount the number of rows to take from the start of 'added'
+   * @param key the key of each row
+   * @return the rows of both in order
+   */
+  private static int[] merge(int[] sorted, int[] added, int addedCount, RowKey key) {
+    long[] freshKeys = new long[addedCount];
+    int[] fresh = sort(added, addedCount, key, freshKeys);
+    int[] updated = new int[sorted.length + addedCount];
+    if ((long) addedCount * (Integer.SIZE - Integer.numberOfLeadingZeros(sorted.length))
+        > sorted.length) {
+      int old = 0;
+      int i = 0;
+      long oldKey = sorted.length == 0 ? 0 : key.key(sorted[0]);
+      for (int target = 0; target < updated.length; target++) {
+        if (i >= addedCount || old < sorted.length && oldKey <= freshKeys[i]) {
+          updated[target] = sorted[old++];
+          if (old < sorted.length) {
+            oldKey = key.key(sorted[old]);
+          }
+        } else {
+          updated[target] = fresh[i++];
+        }
+      }
+      return updated;
+    }
+    int old = 0;
+    for (int i = 0; i < addedCount; i++) {
+      int low = old;
+      int high = sorted.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (key.key(sorted[mid]) <= freshKeys[i]) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      System.arraycopy(sorted, old, updated, old + i, low - old);
+      updated[low + i] = fresh[i];
+      old = low;
+    }
+    System.arraycopy(sorted, old, updated, old + addedCount, sorted.length - old);
+    return updated;
+  }
+
+  /**
+   * The rows of an index: those merged into sorted order, either on the heap or still saved, and
+   *  those added since, in the order they were added. Never changed once published, except that
+   *  the writer may fill 'added' beyond 'addedCount' before publishing a state which counts them.
+   */
+  private static final class State {
+    private final int[] sorted;
+    private final IntBuffer saved;
+    private final int[] added;
+    private final int addedCount;
+
+    private State(int[] sorted, IntBuffer saved, int[] added, int addedCount) {
+      this.sorted = sorted;
+      this.saved = saved;
+      this.added = added;
+      this.addedCount = addedCount;
+    }
+
+    /**
+     * Provides the number of rows in sorted order.
+     *
+     * @return the number of rows, without copying saved ones
+     */
+    private int sortedCount() {
+      return sorted != null ? sorted.length : saved.limit();
+    }
+
+    /**
+     * Provides the rows in sorted order, copying them onto the heap if they are saved.
+     *
+     * @return the rows
+     */
+    private int[] sortedRows() {
+      if (sorted != null) {
+        return sorted;
+      }
+      int[] rows = new int[saved.limit()];
+      saved.duplicate().get(rows);
+      return rows;
+    }
+
+    /**
+     * Provides the log of added rows with room for some more, growing it by doubling if need be.
+     *
+     * @param count the number of rows to make room for
+     * @return the log, or a longer copy of it
+     */
+    private int[] reserve(int count) {
+      int needed = addedCount + count;
+      if (needed <= added.length) {
+        return added;
+      }
+      return Arrays.copyOf(added, Math.max(needed, Math.max(16, added.length * 2)));
+    }
+
+    /**
+     * Merges the added rows into the sorted ones.
+     *
+     * @param key the key of each row
+     * @return a state with every row sorted
+     */
+    private State merged(RowKey key) {
+      int[] rows = sortedRows();
+      if (addedCount > 0) {
+        rows = merge(rows, added, addedCount, key);
+      }
+      return new State(rows, null, NO_ROWS, 0);
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package projecttwo;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Provides made-up but deterministic exchange rates, for load testing and benchmarking without
+ *  any network or file access.
+ *
+ * <p>Each currency is given a fixed level against an imaginary reference, derived from its code,
+ *  which drifts slowly and smoothly from day to day. The same currency and day always give the
+ *  same rate, and rates between any two currencies are consistent with each other.
+ *
+ * @see RateProvider
+ */
+public class SyntheticRateProvider implements RateProvider {
+  private final LocalDate latestDay;
+
+  /**
+   * Creates a provider whose latest rates are those of April 26, 2019.
+   */
+  public SyntheticRateProvider() {
+    this(LocalDate.of(2019, 4, 26));
+  }
+
+  /**
+   * Creates a provider whose latest rates are those of the given day.
+   *
+   * @param latestDay the day used for latest rates
+   */
+  public SyntheticRateProvider(LocalDate latestDay) {
+    this.latestDay = latestDay;
+  }
+
+  @Override
+  public Map<String, Double> getLatestRates(String base, Collection<String> symbols) {
+    return ratesOn(latestDay.toEpochDay(), base, symbols);
+  }
+
+  @Override
+  public SortedMap<String, Map<String, Double>> getHistoricalRates(
+      String base, Collection<String> symbols, String beginDay, String endDay) {
+    TreeMap<String, Map<String, Double>> published = new TreeMap<String, Map<String, Double>>();
+    long end = LocalDate.parse(endDay).toEpochDay();
+    for (long day = LocalDate.parse(beginDay).toEpochDay(); day <= end; day++) {
+      published.put(LocalDate.ofEpochDay(day).toString(), ratesOn(day, base, symbols));
+    }
+    return published;
+  }
+
+  /**
+   * Provides the synthetic value of a currency against the imaginary reference on a day.
+   *
+   * @param currency ISO currency code
+   * @param epochDay the day, counted from January 1, 1970
+   * @return units of 'currency' per unit of the reference
+   */
+  static double referenceRate(String currency, long epochDay) {
+    int seed = currency.hashCode() & 0x7fffffff;
+    double level = Math.pow(10.0, (seed % 400) / 100.0 - 1.0);
+    double phase = (seed % 360) * Math.PI / 180.0;
+    return level * (1.0 + 0.1 * Math.sin(epochDay * 2 * Math.PI / 365.25 + phase));
+  }
+
+  private static Map<String, Double> ratesOn(long day, String base, Collection<String> symbols) {
+    HashMap<String, Double> rates = new HashMap<String, Double>();
+    double baseRate = referenceRate(base, day);
+    for (String symbol : symbols) {
+      rates.put(symbol, referenceRate(symbol, day) / baseRate);
+    }
+    return rates;
+  }
+}
@@ -0,0 +1,91 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link CellTextCache}.
+ */
+class CellTextCacheTest {
+
+  protected CellTextCache cache = new CellTextCache(6);
+
+  @Test
+  void missesRowsNeverCached() {
+    assertNull(cache.get(0));
+    assertNull(cache.get(5));
+    assertNull(cache.get(-1));
+  }
+
+  @Test
+  void returnsCachedText() {
+    cache.put(3, "three");
+    cache.put(4, "four");
+    assertEquals("three", cache.get(3));
+    assertEquals("four", cache.get(4));
+  }
+
+  @Test
+  void ignoresNegativeRows() {
+    cache.put(-1, "none");
+    assertNull(cache.get(-1));
+    assertNull(cache.get(7));
+  }
+
+  @Test
+  void forgetsEverythingWhenCleared() {
+    cache.put(1, "one");
+    cache.put(2, "two");
+    cache.clear();
+    assertNull(cache.get(1));
+    assertNull(cache.get(2));
+  }
+
+  @Nested
+  class Eviction {
+
+    @Test
+    void roundsCapacityUpToPowerOfTwo() {
+      for (int row = 0; row < 8; row++) {
+        cache.put(row, "row " + row);
+      }
+      for (int row = 0; row < 8; row++) {
+        assertEquals("row " + row, cache.get(row));
+      }
+    }
+
+    @Test
+    void replacesRowSharingSlot() {
+      cache.put(3, "three");
+      cache.put(11, "eleven");
+      assertNull(cache.get(3));
+      assertEquals("eleven", cache.get(11));
+    }
+
+    @Test
+    void keepsRowsInOtherSlots() {
+      cache.put(3, "three");
+      cache.put(4, "four");
+      cache.put(12, "twelve");
+      assertEquals("three", cache.get(3));
+      assertNull(cache.get(4));
+      assertEquals("twelve", cache.get(12));
+    }
+
+    @Test
+    void keepsMostRecentRowsWhenScrolling() {
+      for (int row = 0; row < 100; row++) {
+        cache.put(row, "row " + row);
+      }
+      for (int row = 0; row < 92; row++) {
+        assertNull(cache.get(row));
+      }
+      for (int row = 92; row < 100; row++) {
+        assertEquals("row " + row, cache.get(row));
+      }
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ConversionEngine}.
+ */
+class ConversionEngineTest {
+
+  protected static final String[] COUNTRIES = {"US", "GB", "FR", "JP"};
+  protected static final int ROWS = 100000;
+  protected static final long FIRST_DAY = 18000;
+
+  protected static final ConversionEngine POOLED = new ConversionEngine(4);
+
+  protected ConversionEngine engine = POOLED;
+  protected SalesTable table = new SalesTable();
+  protected double[] latest = new double[CurrencyConverter.getCurrencyCodes().size()];
+  protected int target = CurrencyConverter.currencyOrdinal("USD");
+
+  ConversionEngineTest() {
+    Random random = new Random(8);
+    for (int i = 0; i < ROWS; i++) {
+      table.add(CurrencyConverter.countryOrdinal(COUNTRIES[random.nextInt(COUNTRIES.length)]),
+          1000.0 + random.nextInt(100000), FIRST_DAY + random.nextInt(100));
+    }
+    for (int i = 0; i < latest.length; i++) {
+      latest[i] = 1.0 + i / 100.0;
+    }
+  }
+
+  protected double[] sequential(HistoricalRateStore history) {
+    double[] converted = new double[ROWS];
+    for (int row = 0; row < ROWS; row++) {
+      double[] vector = history == null ? null : history.get(table.getEpochDay(row));
+      converted[row] = ConversionEngine.convertRow(table, row, target, vector, latest);
+    }
+    return converted;
+  }
+
+  @Nested
+  class Conversion {
+
+    @Test
+    void matchesSequentialConversion() {
+      assertArrayEquals(sequential(null), engine.convert(table, ROWS, ROWS, target, latest, null));
+    }
+
+    @Test
+    void usesHistoricalRatesWhereKnown() {
+      HistoricalRateStore history = new HistoricalRateStore(null);
+      for (long day = FIRST_DAY; day < FIRST_DAY + 100; day += 2) {
+        double[] rates = new double[latest.length];
+        Arrays.fill(rates, Double.NaN);
+        rates[target] = 2.0 + (day - FIRST_DAY) / 50.0;
+        rates[CurrencyConverter.currencyOrdinal("GBP")] = 0.8;
+        history.put(day, rates);
+      }
+      assertArrayEquals(sequential(history),
+          engine.convert(table, ROWS, ROWS, target, latest, history));
+    }
+
+    @Test
+    void leavesRoomBeyondCount() {
+      double[] converted = engine.convert(table, 10, 20, target, latest, null);
+      assertEquals(20, converted.length);
+      assertArrayEquals(Arrays.copyOf(sequential(null), 10), Arrays.copyOf(converted, 10));
+      assertEquals(0.0, converted[10]);
+    }
+
+    @Test
+    void givesZeroWithoutRates() {
+      int row = 0;
+      while (CurrencyConverter.countryCurrencyOrdinal(table.getCountryOrdinal(row)) == target) {
+        row++;
+      }
+      assertEquals(0.0, engine.convert(table, ROWS, ROWS, target, null, null)[row]);
+    }
+  }
+
+  @Nested
+  class Pools {
+
+    @Test
+    void shutsDownOwnPoolWhenClosed() {
+      ConversionEngine own = new ConversionEngine(2);
+      own.close();
+      assertThrows(RejectedExecutionException.class,
+          () -> own.convert(table, ROWS, ROWS, target, latest, null));
+    }
+
+    @Test
+    void leavesCommonPoolRunningWhenClosed() {
+      ConversionEngine shared = new ConversionEngine();
+      shared.close();
+      assertArrayEquals(sequential(null),
+          shared.convert(table, ROWS, ROWS, target, latest, null));
+    }
+  }
+
+  @Nested
+  class Cancellation {
+
+    @Test
+    void throwsWhenCancelledBeforehand() {
+      assertThrows(CancellationException.class,
+          () -> engine.convert(table, ROWS, ROWS, target, latest, null, () -> true));
+    }
+
+    @Test
+    void stopsPartWay() {
+      AtomicInteger checks = new AtomicInteger();
+      assertThrows(CancellationException.class, () -> engine.convert(table, ROWS, ROWS, target,
+          latest, null, () -> checks.incrementAndGet() > 2));
+    }
+  }
+}
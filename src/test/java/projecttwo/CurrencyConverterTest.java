@@ -0,0 +1,167 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link CurrencyConverter}.
+ */
+class CurrencyConverterTest {
+
+  protected static final LocalDate FRIDAY = LocalDate.of(2019, 4, 26);
+  protected static final LocalDate SATURDAY = FRIDAY.plusDays(1);
+  protected static final LocalDate MONDAY = FRIDAY.plusDays(3);
+
+  protected static final int USD = CurrencyConverter.currencyOrdinal("USD");
+
+  protected StubProvider provider = new StubProvider();
+
+  CurrencyConverterTest() {
+    CurrencyConverter.setRateProvider(provider, new HistoricalRateStore(null));
+  }
+
+  protected static Date date(LocalDate day) {
+    return Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+  }
+
+  protected static double usd(LocalDate day) {
+    return 1.1 + (day.toEpochDay() - FRIDAY.toEpochDay()) / 1000.0;
+  }
+
+  /**
+   * Publishes rates of USD, GBP and JPY against EUR on weekdays from 'firstDay' to 'lastDay',
+   *  with JPY at zero, counting the requests made.
+   */
+  static class StubProvider implements RateProvider {
+    protected LocalDate firstDay = FRIDAY.minusDays(60);
+    protected LocalDate lastDay = MONDAY.plusDays(30);
+    protected int latestRequests;
+    protected int historyRequests;
+
+    @Override
+    public Map<String, Double> getLatestRates(String base, Collection<String> symbols) {
+      latestRequests++;
+      return ratesOn(lastDay);
+    }
+
+    @Override
+    public SortedMap<String, Map<String, Double>> getHistoricalRates(
+        String base, Collection<String> symbols, String beginDay, String endDay) {
+      historyRequests++;
+      TreeMap<String, Map<String, Double>> published = new TreeMap<String, Map<String, Double>>();
+      LocalDate end = LocalDate.parse(endDay);
+      for (LocalDate day = LocalDate.parse(beginDay); !day.isAfter(end); day = day.plusDays(1)) {
+        if (!day.isBefore(firstDay) && !day.isAfter(lastDay)
+            && day.getDayOfWeek() != DayOfWeek.SATURDAY
+            && day.getDayOfWeek() != DayOfWeek.SUNDAY) {
+          published.put(day.toString(), ratesOn(day));
+        }
+      }
+      return published;
+    }
+
+    private static Map<String, Double> ratesOn(LocalDate day) {
+      HashMap<String, Double> rates = new HashMap<String, Double>();
+      rates.put("USD", usd(day));
+      rates.put("GBP", 0.85);
+      rates.put("JPY", 0.0);
+      return rates;
+    }
+  }
+
+  @Nested
+  class CrossRates {
+
+    @Test
+    void derivesRatesFromPivotVector() {
+      assertEquals(usd(provider.lastDay), (double) CurrencyConverter.getRate("EUR", "USD"));
+      assertEquals(0.85 / usd(provider.lastDay),
+          (double) CurrencyConverter.getRate("USD", "GBP"), 1e-12);
+      assertEquals(1.0, (double) CurrencyConverter.getRate("GBP", "GBP"));
+      assertEquals(1, provider.latestRequests);
+    }
+
+    @Test
+    void derivesHistoricalRatesFromPivotVector() {
+      assertEquals(0.85 / usd(FRIDAY),
+          (double) CurrencyConverter.getRate("USD", "GBP", date(FRIDAY)), 1e-12);
+      assertEquals(200.0 * usd(FRIDAY),
+          (double) CurrencyConverter.currConvert("EUR", "USD", 200.0, date(FRIDAY)), 1e-9);
+    }
+
+    @Test
+    void givesNullForUnknownZeroOrInfiniteRates() {
+      assertNull(CurrencyConverter.getRate("USD", "CHF"));
+      assertNull(CurrencyConverter.getRate("USD", "JPY"));
+      assertNull(CurrencyConverter.getRate("JPY", "USD"));
+      assertNull(CurrencyConverter.getRate("USD", "XXX"));
+      assertNull(CurrencyConverter.currConvert("JPY", "USD", 100.0));
+    }
+  }
+
+  @Nested
+  class History {
+
+    @Test
+    void carriesRatesOverWeekends() {
+      double[] rates = CurrencyConverter.getRates(date(SATURDAY));
+      assertNotNull(rates);
+      assertEquals(usd(FRIDAY), rates[USD]);
+      assertEquals(usd(MONDAY), CurrencyConverter.getRates(date(MONDAY))[USD]);
+    }
+
+    @Test
+    void fetchesRunOfDaysOnce() {
+      CurrencyConverter.prefetchDays(Arrays.asList(FRIDAY.toEpochDay(), SATURDAY.toEpochDay(),
+          MONDAY.toEpochDay()));
+      CurrencyConverter.getRates(date(SATURDAY));
+      CurrencyConverter.getRates(date(MONDAY));
+      assertEquals(1, provider.historyRequests);
+    }
+
+    @Test
+    void leavesDaysAfterLastPublicationUnstored() {
+      provider.lastDay = FRIDAY;
+      assertNull(CurrencyConverter.getRates(date(SATURDAY)));
+      assertNull(CurrencyConverter.getHistoricalRates().get(SATURDAY.toEpochDay()));
+      assertNull(CurrencyConverter.getRates(date(MONDAY)));
+      provider.lastDay = MONDAY;
+      assertEquals(usd(FRIDAY), CurrencyConverter.getRates(date(SATURDAY))[USD]);
+      assertEquals(usd(MONDAY), CurrencyConverter.getRates(date(MONDAY))[USD]);
+      assertEquals(4, provider.historyRequests);
+    }
+
+    @Test
+    void remembersDaysWithoutRates() {
+      long before = provider.firstDay.toEpochDay() - 10;
+      CurrencyConverter.prefetchDays(Arrays.asList(before, FRIDAY.toEpochDay() - 50));
+      assertEquals(1, provider.historyRequests);
+      assertNull(CurrencyConverter.getRates(date(LocalDate.ofEpochDay(before))));
+      CurrencyConverter.prefetchDays(Arrays.asList(before));
+      assertEquals(1, provider.historyRequests);
+    }
+
+    @Test
+    void remembersLongPastDaysOfEmptyResponses() {
+      provider.firstDay = MONDAY;
+      LocalDate early = FRIDAY.minusDays(30);
+      assertNull(CurrencyConverter.getRates(date(early)));
+      assertNull(CurrencyConverter.getRates(date(early)));
+      assertEquals(1, provider.historyRequests);
+    }
+  }
+}
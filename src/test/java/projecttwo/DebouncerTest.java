@@ -0,0 +1,124 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link Debouncer}.
+ */
+class DebouncerTest {
+
+  protected AtomicInteger runs = new AtomicInteger();
+  protected CountDownLatch ran = new CountDownLatch(1);
+  protected Debouncer debouncer = new Debouncer(50, () -> {
+    runs.incrementAndGet();
+    ran.countDown();
+  });
+
+  protected void trigger() throws InterruptedException, InvocationTargetException {
+    SwingUtilities.invokeAndWait(debouncer::trigger);
+  }
+
+  @Nested
+  class Bursts {
+
+    @Test
+    void runsOnceAfterBurst() throws Exception {
+      for (int i = 0; i < 10; i++) {
+        trigger();
+        Thread.sleep(5);
+      }
+      assertTrue(ran.await(5, TimeUnit.SECONDS));
+      Thread.sleep(200);
+      assertEquals(1, runs.get());
+    }
+
+    @Test
+    void runsOncePerBurst() throws Exception {
+      trigger();
+      assertTrue(ran.await(5, TimeUnit.SECONDS));
+      ran = new CountDownLatch(1);
+      trigger();
+      trigger();
+      assertTrue(ran.await(5, TimeUnit.SECONDS));
+      Thread.sleep(200);
+      assertEquals(2, runs.get());
+    }
+
+    @Test
+    void waitsForQuietPeriod() throws Exception {
+      debouncer.setQuietMillis(300);
+      trigger();
+      Thread.sleep(100);
+      assertEquals(0, runs.get());
+      assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+  }
+
+  @Nested
+  class MaxWait {
+
+    @Test
+    void runsDuringLongBurst() throws Exception {
+      debouncer.setMaxWaitMillis(150);
+      long end = System.nanoTime() + 700_000_000L;
+      while (System.nanoTime() < end) {
+        trigger();
+        Thread.sleep(10);
+      }
+      int during = runs.get();
+      assertTrue(during >= 2, "ran " + during + " times during the burst");
+      assertTrue(during <= 6, "ran " + during + " times during the burst");
+    }
+
+    @Test
+    void waitsForQuietWithoutMaxWait() throws Exception {
+      long end = System.nanoTime() + 400_000_000L;
+      while (System.nanoTime() < end) {
+        trigger();
+        Thread.sleep(10);
+      }
+      assertEquals(0, runs.get());
+      assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void runsOnceForShortBurst() throws Exception {
+      debouncer.setMaxWaitMillis(1000);
+      trigger();
+      trigger();
+      assertTrue(ran.await(5, TimeUnit.SECONDS));
+      Thread.sleep(1200);
+      assertEquals(1, runs.get());
+    }
+  }
+
+  @Nested
+  class QuietPeriod {
+
+    @Test
+    void setsQuietPeriod() {
+      debouncer.setQuietMillis(120);
+      assertEquals(120, debouncer.getQuietMillis());
+      debouncer.setMaxWaitMillis(300);
+      assertEquals(300, debouncer.getMaxWaitMillis());
+    }
+
+    @Test
+    void rejectsNegativeQuietPeriod() {
+      assertThrows(IllegalArgumentException.class, () -> new Debouncer(-1, () -> { }));
+      assertThrows(IllegalArgumentException.class, () -> debouncer.setQuietMillis(-1));
+      assertThrows(IllegalArgumentException.class, () -> new Debouncer(1, -1, () -> { }));
+      assertThrows(IllegalArgumentException.class, () -> debouncer.setMaxWaitMillis(-1));
+    }
+  }
+}
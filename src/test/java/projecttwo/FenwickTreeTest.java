@@ -0,0 +1,115 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.DoubleBuffer;
+import java.util.Random;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link FenwickTree}.
+ */
+class FenwickTreeTest {
+
+  protected FenwickTree tree = new FenwickTree(100, 10);
+
+  @Test
+  void startsAtZero() {
+    assertEquals(0.0, tree.sum(0, 1000));
+  }
+
+  @Test
+  void sumsInclusiveRange() {
+    tree.add(101, 1.0);
+    tree.add(103, 2.0);
+    tree.add(105, 4.0);
+    assertEquals(7.0, tree.sum(101, 105));
+    assertEquals(6.0, tree.sum(102, 105));
+    assertEquals(3.0, tree.sum(101, 104));
+    assertEquals(0.0, tree.sum(105, 101));
+  }
+
+  @Nested
+  class Growth {
+
+    @Test
+    void keepsSumsWhenGrowingUpward() {
+      tree.add(101, 1.0);
+      tree.add(500, 2.0);
+      assertEquals(3.0, tree.sum(0, 1000));
+      assertEquals(2.0, tree.sum(200, 500));
+    }
+
+    @Test
+    void keepsSumsWhenGrowingDownward() {
+      tree.add(101, 1.0);
+      tree.add(-50, 2.0);
+      assertEquals(3.0, tree.sum(-100, 200));
+      assertEquals(2.0, tree.sum(-50, 100));
+    }
+
+    @Test
+    void matchesNaiveSums() {
+      Random random = new Random(42);
+      double[] naive = new double[2000];
+      for (int i = 0; i < 5000; i++) {
+        int key = random.nextInt(naive.length);
+        double amount = random.nextInt(1000);
+        naive[key] += amount;
+        tree.add(key - 1000, amount);
+      }
+      for (int i = 0; i < 200; i++) {
+        int from = random.nextInt(naive.length);
+        int to = from + random.nextInt(naive.length - from);
+        double expected = 0.0;
+        for (int key = from; key <= to; key++) {
+          expected += naive[key];
+        }
+        assertEquals(expected, tree.sum(from - 1000, to - 1000), 1e-6);
+      }
+    }
+  }
+
+  @Nested
+  class SavedNodes {
+
+    protected FenwickTree saved() {
+      double[] nodes = new double[tree.getSpan()];
+      for (int node = 1; node <= nodes.length; node++) {
+        nodes[node - 1] = tree.getNode(node);
+      }
+      return new FenwickTree(tree.getFirstKey(), DoubleBuffer.wrap(nodes));
+    }
+
+    @Test
+    void sumsSavedNodes() {
+      tree.add(101, 1.0);
+      tree.add(103, 2.0);
+      tree.add(109, 4.0);
+      FenwickTree saved = saved();
+      assertEquals(7.0, saved.sum(0, 1000));
+      assertEquals(6.0, saved.sum(102, 109));
+      assertEquals(2.0, saved.sum(103, 108));
+    }
+
+    @Test
+    void recoversValuesWhenChanged() {
+      Random random = new Random(5);
+      double[] naive = new double[10];
+      for (int i = 0; i < 50; i++) {
+        int key = random.nextInt(naive.length);
+        naive[key] += random.nextInt(100);
+        tree.add(100 + key, naive[key] - tree.sum(100 + key, 100 + key));
+      }
+      FenwickTree saved = saved();
+      saved.add(104, 1.0);
+      saved.add(130, 2.0);
+      naive[4] += 1.0;
+      for (int key = 0; key < naive.length; key++) {
+        assertEquals(naive[key], saved.sum(100 + key, 100 + key), 1e-9);
+      }
+      assertEquals(2.0, saved.sum(110, 200));
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link FileRateProvider}.
+ */
+class FileRateProviderTest {
+
+  protected static File rateTable(String... lines) throws IOException {
+    Path file = Files.createTempFile("rates", ".csv");
+    file.toFile().deleteOnExit();
+    Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+    return file.toFile();
+  }
+
+  protected FileRateProvider provider;
+
+  FileRateProviderTest() throws IOException {
+    provider = new FileRateProvider(rateTable("date,currency,rate",
+        "2019-04-25,USD,1.10", "2019-04-25,GBP,0.80",
+        "2019-04-26,USD,1.20", "2019-04-26,GBP,0.90", "2019-04-26,JPY,oops",
+        "2019-04-29,USD,1.30"));
+  }
+
+  @Test
+  void rejectsMissingFile() {
+    assertThrows(IOException.class, () -> new FileRateProvider(new File("no/such/rates.csv")));
+  }
+
+  @Nested
+  class Latest {
+
+    @Test
+    void givesRatesOfLastDay() {
+      Map<String, Double> rates = provider.getLatestRates("EUR", Arrays.asList("USD", "GBP"));
+      assertEquals(1.30, (double) rates.get("USD"));
+      assertNull(rates.get("GBP"));
+    }
+
+    @Test
+    void derivesRatesAgainstOtherBase() {
+      Map<String, Double> rates = provider.getLatestRates("USD", Arrays.asList("EUR", "USD"));
+      assertEquals(1.0 / 1.30, rates.get("EUR"), 1e-12);
+      assertEquals(1.0, rates.get("USD"), 1e-12);
+    }
+
+    @Test
+    void givesNoRatesForEmptyTable() throws IOException {
+      FileRateProvider empty = new FileRateProvider(rateTable());
+      assertTrue(empty.getLatestRates("EUR", Arrays.asList("USD")).isEmpty());
+    }
+  }
+
+  @Nested
+  class History {
+
+    @Test
+    void givesDaysInRange() {
+      SortedMap<String, Map<String, Double>> published = provider.getHistoricalRates("EUR",
+          Arrays.asList("USD", "GBP"), "2019-04-26", "2019-04-29");
+      assertEquals(Arrays.asList("2019-04-26", "2019-04-29"),
+          Arrays.asList(published.keySet().toArray()));
+      assertEquals(0.90, (double) published.get("2019-04-26").get("GBP"));
+    }
+
+    @Test
+    void derivesCrossRatesThroughReference() {
+      SortedMap<String, Map<String, Double>> published = provider.getHistoricalRates("GBP",
+          Arrays.asList("USD"), "2019-04-25", "2019-04-29");
+      assertEquals(1.10 / 0.80, published.get("2019-04-25").get("USD"), 1e-12);
+      assertNull(published.get("2019-04-29"));
+    }
+
+    @Test
+    void givesVectorsByEpochDay() throws IOException {
+      NavigableMap<Long, double[]> vectors = provider.getHistoricalRateVectors("EUR",
+          Arrays.asList("EUR", "USD", "JPY"), "2019-04-25", "2019-04-26");
+      double[] rates = vectors.get(18012L);
+      assertEquals(1.0, rates[0]);
+      assertEquals(1.20, rates[1]);
+      assertTrue(Double.isNaN(rates[2]));
+    }
+  }
+}
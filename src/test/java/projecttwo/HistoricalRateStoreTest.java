@@ -0,0 +1,111 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link HistoricalRateStore}.
+ */
+class HistoricalRateStoreTest {
+
+  protected static final long DAY = 18000;
+
+  protected static final int USD = CurrencyConverter.currencyOrdinal("USD");
+  protected static final int GBP = CurrencyConverter.currencyOrdinal("GBP");
+
+  protected static File storeFile() throws IOException {
+    Path file = Files.createTempFile("rates", ".csv");
+    file.toFile().deleteOnExit();
+    Files.delete(file);
+    return file.toFile();
+  }
+
+  protected static double[] rates(int currency, double rate) {
+    double[] rates = new double[CurrencyConverter.getCurrencyCodes().size()];
+    Arrays.fill(rates, Double.NaN);
+    rates[currency] = rate;
+    return rates;
+  }
+
+  @Test
+  void startsEmptyWithoutFile() {
+    HistoricalRateStore store = new HistoricalRateStore(null);
+    assertEquals(0, store.size());
+    assertNull(store.get(DAY));
+  }
+
+  @Test
+  void holdsPivotAtOne() {
+    HistoricalRateStore store = new HistoricalRateStore(null);
+    store.put(DAY, rates(USD, 1.1));
+    double[] stored = store.get(DAY);
+    assertEquals(1.1, stored[USD]);
+    assertEquals(1.0, stored[CurrencyConverter.currencyOrdinal(CurrencyConverter.PIVOT_CURRENCY)]);
+    assertTrue(Double.isNaN(stored[GBP]));
+  }
+
+  @Test
+  void keepsRatesAlreadyStored() {
+    HistoricalRateStore store = new HistoricalRateStore(null);
+    store.put(DAY, rates(USD, 1.1));
+    store.put(DAY, rates(USD, 2.0));
+    assertEquals(1.1, store.get(DAY)[USD]);
+  }
+
+  @Nested
+  class Persistence {
+
+    @Test
+    void reloadsStoredRates() throws IOException {
+      File file = storeFile();
+      HistoricalRateStore store = new HistoricalRateStore(file);
+      store.put(DAY, rates(USD, 1.1));
+      store.put(DAY, rates(GBP, 0.85));
+      store.put(DAY + 1, rates(USD, 1.2));
+      HistoricalRateStore reloaded = new HistoricalRateStore(file);
+      assertEquals(2, reloaded.size());
+      assertEquals(1.1, reloaded.get(DAY)[USD]);
+      assertEquals(0.85, reloaded.get(DAY)[GBP]);
+      assertEquals(1.2, reloaded.get(DAY + 1)[USD]);
+    }
+
+    @Test
+    void appendsOnlyNewRates() throws IOException {
+      File file = storeFile();
+      HistoricalRateStore store = new HistoricalRateStore(file);
+      store.put(DAY, rates(USD, 1.1));
+      store.put(DAY, rates(USD, 1.1));
+      assertEquals(1, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+    }
+
+    @Test
+    void invertsRatesIntoPivot() throws IOException {
+      File file = storeFile();
+      Files.write(file.toPath(), Arrays.asList("USD,EUR,2019-04-14,0.5"), StandardCharsets.UTF_8);
+      HistoricalRateStore store = new HistoricalRateStore(file);
+      assertEquals(2.0, store.get(DAY)[USD]);
+    }
+
+    @Test
+    void skipsMalformedLines() throws IOException {
+      File file = storeFile();
+      Files.write(file.toPath(), Arrays.asList("EUR,USD,2019-04-14,1.1", "EUR,USD,2019-04-",
+          "EUR,GBP,2019-04-14,abc", "USD,GBP,2019-04-14,0.9", "EUR,GBP"),
+          StandardCharsets.UTF_8);
+      HistoricalRateStore store = new HistoricalRateStore(file);
+      assertEquals(1, store.size());
+      assertEquals(1.1, store.get(DAY)[USD]);
+      assertTrue(Double.isNaN(store.get(DAY)[GBP]));
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link HttpRateProvider} against a stub of the rate API on the loopback interface.
+ */
+class HttpRateProviderTest {
+
+  protected static final List<String> SYMBOLS = Arrays.asList("EUR", "JPY", "USD");
+  protected static final String LATEST = "{\"rates\":{\"USD\":1.1215,\"JPY\":124.8},"
+      + "\"base\":\"EUR\",\"date\":\"2019-04-26\"}";
+
+  protected ExecutorService handlers = Executors.newCachedThreadPool();
+  protected HttpServer server;
+  protected AtomicInteger requests = new AtomicInteger();
+  protected AtomicInteger inFlight = new AtomicInteger();
+  protected AtomicInteger mostInFlight = new AtomicInteger();
+  protected ArrayList<String> queries = new ArrayList<String>();
+  protected Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+  protected CountDownLatch release = new CountDownLatch(0);
+  protected int status = 200;
+  protected boolean stallBody = false;
+
+  protected HttpRateProvider start(Duration requestTimeout, int maxInFlight) throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.setExecutor(handlers);
+    server.createContext("/", this::respond);
+    server.start();
+    return new HttpRateProvider("http://127.0.0.1:" + server.getAddress().getPort(),
+        Duration.ofSeconds(5), requestTimeout, maxInFlight);
+  }
+
+  protected void respond(HttpExchange exchange) throws IOException {
+    requests.incrementAndGet();
+    clientPorts.add(exchange.getRemoteAddress().getPort());
+    mostInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    synchronized (queries) {
+      queries.add(exchange.getRequestURI().getPath() + "?" + exchange.getRequestURI().getQuery());
+    }
+    byte[] body = LATEST.getBytes(StandardCharsets.UTF_8);
+    if (stallBody) {
+      exchange.sendResponseHeaders(status, body.length);
+    }
+    try {
+      release.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    inFlight.decrementAndGet();
+    if (!stallBody) {
+      exchange.sendResponseHeaders(status, body.length);
+    }
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  @AfterEach
+  void stop() {
+    release.countDown();
+    server.stop(0);
+    handlers.shutdownNow();
+  }
+
+  @Test
+  void readsLatestRates() throws IOException {
+    HttpRateProvider provider = start(Duration.ofSeconds(5), 4);
+    double[] rates = provider.getLatestRateVector("EUR", SYMBOLS);
+    assertEquals(1.0, rates[0]);
+    assertEquals(124.8, rates[1]);
+    assertEquals(1.1215, rates[2]);
+    assertEquals("/latest?base=EUR&symbols=JPY,USD", queries.get(0));
+  }
+
+  @Test
+  void reusesConnections() throws IOException {
+    HttpRateProvider provider = start(Duration.ofSeconds(5), 4);
+    for (int i = 0; i < 20; i++) {
+      provider.getLatestRates("EUR", SYMBOLS);
+    }
+    assertEquals(20, requests.get());
+    assertEquals(1, clientPorts.size());
+  }
+
+  @Test
+  void sharesFetchInFlight() throws Exception {
+    release = new CountDownLatch(1);
+    HttpRateProvider provider = start(Duration.ofSeconds(5), 4);
+    Metrics.Counter shared = Metrics.counter("http.shared");
+    long sharedBefore = shared.getCount();
+    ArrayList<CompletableFuture<double[]>> callers = new ArrayList<CompletableFuture<double[]>>();
+    for (int i = 0; i < 4; i++) {
+      callers.add(CompletableFuture.supplyAsync(() -> {
+        try {
+          return provider.getLatestRateVector("EUR", SYMBOLS);
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }, handlers));
+    }
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (shared.getCount() - sharedBefore < 3 && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    release.countDown();
+    double[] first = callers.get(0).get(10, TimeUnit.SECONDS);
+    for (CompletableFuture<double[]> caller : callers) {
+      assertSame(first, caller.get(10, TimeUnit.SECONDS));
+    }
+    assertEquals(1, requests.get());
+  }
+
+  @Test
+  void boundsRequestsInFlight() throws Exception {
+    release = new CountDownLatch(1);
+    HttpRateProvider provider = start(Duration.ofSeconds(5), 2);
+    ArrayList<CompletableFuture<double[]>> callers = new ArrayList<CompletableFuture<double[]>>();
+    for (int i = 0; i < 6; i++) {
+      List<String> symbols = Arrays.asList("EUR", "USD", "JPY", "X" + i);
+      callers.add(CompletableFuture.supplyAsync(() -> {
+        try {
+          return provider.getLatestRateVector("EUR", symbols);
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }, handlers));
+    }
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (requests.get() < 2 && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    Thread.sleep(100);
+    assertEquals(2, requests.get());
+    release.countDown();
+    for (CompletableFuture<double[]> caller : callers) {
+      assertEquals(124.8, caller.get(10, TimeUnit.SECONDS)[2]);
+    }
+    assertEquals(6, requests.get());
+    assertTrue(mostInFlight.get() <= 2);
+  }
+
+  @Test
+  void timesOutSlowResponse() throws IOException {
+    release = new CountDownLatch(1);
+    HttpRateProvider provider = start(Duration.ofMillis(100), 4);
+    assertThrows(IOException.class, () -> provider.getLatestRateVector("EUR", SYMBOLS));
+  }
+
+  @Test
+  void timesOutStalledBody() throws Exception {
+    release = new CountDownLatch(1);
+    stallBody = true;
+    HttpRateProvider provider = start(Duration.ofMillis(200), 1);
+    long begin = System.nanoTime();
+    assertThrows(IOException.class, () -> provider.getLatestRateVector("EUR", SYMBOLS));
+    assertTrue(System.nanoTime() - begin < TimeUnit.SECONDS.toNanos(5));
+    release.countDown();
+    stallBody = false;
+    assertEquals(124.8, provider.getLatestRateVector("EUR", SYMBOLS)[1]);
+  }
+
+  @Test
+  void rejectsErrorStatus() throws IOException {
+    status = 400;
+    HttpRateProvider provider = start(Duration.ofSeconds(5), 4);
+    assertThrows(IOException.class, () -> provider.getLatestRateVector("EUR", SYMBOLS));
+  }
+}
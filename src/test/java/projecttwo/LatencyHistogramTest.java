@@ -0,0 +1,53 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link LatencyHistogram} and {@link Metrics}.
+ */
+class LatencyHistogramTest {
+
+  protected LatencyHistogram histogram = new LatencyHistogram("test");
+
+  @Nested
+  class Buckets {
+
+    @Test
+    void holdEveryLatencyWithinPrecision() {
+      for (long nanos = 1; nanos > 0 && nanos < Long.MAX_VALUE / 3; nanos = nanos * 3 + 1) {
+        int bucket = LatencyHistogram.bucketOf(nanos);
+        long highest = LatencyHistogram.highestOf(bucket);
+        assertTrue(highest >= nanos);
+        assertTrue(highest - nanos <= nanos / 16);
+        assertEquals(bucket, LatencyHistogram.bucketOf(highest));
+        assertEquals(bucket + 1, LatencyHistogram.bucketOf(highest + 1));
+      }
+    }
+  }
+
+  @Test
+  void readsPercentiles() {
+    for (long millis = 1; millis <= 100; millis++) {
+      histogram.record(millis * 1000000);
+    }
+    assertEquals(100, histogram.getCount());
+    assertEquals(50.5, histogram.getMeanMillis(), 1e-9);
+    assertEquals(50.0, histogram.getP50Millis(), 50.0 * 0.04);
+    assertEquals(99.0, histogram.getP99Millis(), 99.0 * 0.04);
+    assertEquals(100.0, histogram.getMaxMillis(), 1e-9);
+  }
+
+  @Test
+  void registersEachNameOnce() {
+    Metrics.Counter counter = Metrics.counter("test.events");
+    counter.add(2);
+    assertSame(counter, Metrics.counter("test.events"));
+    assertSame(Metrics.histogram("test.latency"), Metrics.histogram("test.latency"));
+    assertTrue(Metrics.dump().contains("test.events"));
+  }
+}
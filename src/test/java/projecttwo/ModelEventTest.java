@@ -0,0 +1,98 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Locale;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ModelEvent} delivery to {@link ModelListener}s.
+ */
+class ModelEventTest {
+
+  protected ProgramModel model = new ProgramModel(new SyntheticRateProvider());
+  protected ArrayList<Runnable> deliveries = new ArrayList<Runnable>();
+  protected ArrayList<String> received = new ArrayList<String>();
+
+  protected ModelListener recorder = new ModelListener() {
+    @Override
+    public void salesAdded(int firstRow, int count) {
+      received.add("salesAdded " + count);
+    }
+
+    @Override
+    public void rangeChanged(Date begin, Date end) {
+      received.add("rangeChanged");
+    }
+
+    @Override
+    public void localeChanged(Locale locale) {
+      received.add("localeChanged " + locale);
+    }
+
+    @Override
+    public void pricesRegenerated(Locale locale, boolean historical) {
+      received.add("pricesRegenerated " + locale);
+    }
+
+    @Override
+    public void batchEnded() {
+      received.add("batchEnded");
+    }
+  };
+
+  ModelEventTest() {
+    model.setNotificationExecutor(deliveries::add);
+    model.setUserLocale(Locale.US);
+    model.addModelListener(recorder);
+  }
+
+  @Nested
+  class Batching {
+
+    @Test
+    void deliversChangesMadeBeforeDeliveryInOneBatch() {
+      model.addRows(new int[] {1, 2, 3}, new double[] {1.0, 2.0, 3.0}, new long[] {1, 2, 3}, 3);
+      model.setDateRange(new Date(0), new Date());
+      model.setUserLocale(Locale.JAPAN);
+      assertEquals(1, deliveries.size());
+      deliveries.get(0).run();
+      assertEquals("[salesAdded 3, rangeChanged, localeChanged ja_JP, pricesRegenerated ja_JP,"
+          + " batchEnded]", received.toString());
+    }
+
+    @Test
+    void deliversOneEventForManySales() {
+      ArrayList<RealEstateSale> sales = new ArrayList<RealEstateSale>();
+      for (int i = 0; i < 1000; i++) {
+        sales.add(RealEstateSale.make("US", 1000.0 + i, new Date(i * 86400000L)));
+      }
+      int size = model.getSalesTable().size();
+      int first = model.addSales(sales);
+      assertEquals(size, first);
+      assertEquals(size + 1000, model.getSalesTable().size());
+      assertEquals(1999.0, model.getSalesTable().getPrice(first + 999));
+      assertEquals(1, deliveries.size());
+      deliveries.get(0).run();
+      assertEquals("[salesAdded 1000, batchEnded]", received.toString());
+    }
+
+    @Test
+    void startsNewBatchAfterDelivery() {
+      model.setDateRange(new Date(0), new Date());
+      deliveries.get(0).run();
+      model.setDateRange(new Date(0), new Date());
+      assertEquals(2, deliveries.size());
+    }
+  }
+
+  @Test
+  void dropsEventsWithoutListeners() {
+    model.removeModelListener(recorder);
+    model.setDateRange(new Date(0), new Date());
+    assertEquals(0, deliveries.size());
+  }
+}
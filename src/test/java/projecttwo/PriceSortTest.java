@@ -0,0 +1,72 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link PriceSort}.
+ */
+class PriceSortTest {
+
+  /**
+   * Sorts rows by price the slow way, for comparison.
+   */
+  protected static int[] sortByComparison(double[] prices) {
+    Integer[] rows = new Integer[prices.length];
+    for (int row = 0; row < rows.length; row++) {
+      rows[row] = row;
+    }
+    Arrays.sort(rows, (one, two) -> Double.compare(prices[one], prices[two]));
+    return Arrays.stream(rows).mapToInt(Integer::intValue).toArray();
+  }
+
+  @Test
+  void sortsEmptyColumn() {
+    assertArrayEquals(new int[0], PriceSort.sort(new double[4], 0));
+  }
+
+  @Test
+  void keepsEqualPricesInRowOrder() {
+    double[] prices = {2.0, 1.0, 2.0, 1.0, 2.0};
+    assertArrayEquals(new int[] {1, 3, 0, 2, 4}, PriceSort.sort(prices, prices.length));
+  }
+
+  @Test
+  void ordersPricesLessThanOneApart() {
+    double[] prices = {0.75, 0.5, 0.25};
+    assertArrayEquals(new int[] {2, 1, 0}, PriceSort.sort(prices, prices.length));
+  }
+
+  @Test
+  void ordersSpecialValuesAsDoubleCompare() {
+    double[] prices = {Double.NaN, 0.0, Double.POSITIVE_INFINITY, -0.0, -1.0,
+        Double.NEGATIVE_INFINITY, Double.MIN_VALUE, 3.0e12};
+    assertArrayEquals(sortByComparison(prices), PriceSort.sort(prices, prices.length));
+  }
+
+  @Nested
+  class LargeColumns {
+
+    @Test
+    void matchesComparisonSort() {
+      Random random = new Random(42);
+      double[] prices = new double[100000];
+      for (int row = 0; row < prices.length; row++) {
+        prices[row] = random.nextInt(4) == 0
+            ? random.nextInt(1000)
+            : (random.nextDouble() - 0.1) * Math.pow(10, random.nextInt(14));
+      }
+      assertArrayEquals(sortByComparison(prices), PriceSort.sort(prices, prices.length));
+    }
+
+    @Test
+    void sortsOnlyTheRowsCounted() {
+      double[] prices = {3.0, 1.0, 2.0, -5.0};
+      assertArrayEquals(new int[] {1, 2, 0}, PriceSort.sort(prices, 3));
+    }
+  }
+}
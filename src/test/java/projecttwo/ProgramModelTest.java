@@ -0,0 +1,197 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ProgramModel}.
+ */
+class ProgramModelTest {
+
+  protected static final YearMonth FIRST = YearMonth.of(1900, 1);
+  protected static final YearMonth LAST = YearMonth.of(2100, 12);
+  protected static final Date BEGIN = new Date(0);
+
+  protected ProgramModel model = new ProgramModel(new SyntheticRateProvider());
+
+  ProgramModelTest() {
+    model.setNotificationExecutor(Runnable::run);
+  }
+
+  protected static RealEstateSale sale(String country, double price, int daysAgo) {
+    return RealEstateSale.make(country, price, new Date(System.currentTimeMillis()
+        - daysAgo * 86400000L));
+  }
+
+  protected int[] filtered(int[] rows, List<String> countries) {
+    SalesTable table = model.getSalesTable();
+    return Arrays.stream(rows).filter(row -> countries.contains(
+        CurrencyConverter.countryCodes.get(table.getCountryOrdinal(row)))).toArray();
+  }
+
+  @Nested
+  class CountryFilter {
+
+    protected List<String> countries = Arrays.asList("US", "GB");
+
+    CountryFilter() {
+      model.setDateRange(BEGIN, new Date());
+      Random random = new Random(15);
+      ArrayList<RealEstateSale> sales = new ArrayList<RealEstateSale>();
+      for (int i = 0; i < 200; i++) {
+        sales.add(sale(i % 3 == 0 ? "US" : i % 3 == 1 ? "GB" : "FR",
+            1000.0 + random.nextInt(100000), random.nextInt(3000)));
+      }
+      model.addSales(sales);
+      model.setCountryFilter(countries);
+    }
+
+    protected double naiveTotal(List<String> countries) {
+      SalesTable table = model.getSalesTable();
+      long first = CurrencyConverter.epochDay(BEGIN);
+      long last = CurrencyConverter.epochDay(model.getEndDate());
+      double sum = 0.0;
+      for (int row = 0; row < table.size(); row++) {
+        long day = table.getEpochDay(row);
+        if (day >= first && day <= last && countries.contains(
+            CurrencyConverter.countryCodes.get(table.getCountryOrdinal(row)))) {
+          sum += table.getConvertedPrice(row);
+        }
+      }
+      return sum;
+    }
+
+    @Test
+    void showsRowsOfFilteredCountriesInEachOrder() {
+      for (ProgramModel.SortOrder order : ProgramModel.SortOrder.values()) {
+        assertArrayEquals(filtered(model.getSortedRows(order), countries),
+            model.getShownRows(order));
+      }
+    }
+
+    @Test
+    void keepsShownRowsUpToDateAsSalesAreAdded() {
+      for (ProgramModel.SortOrder order : ProgramModel.SortOrder.values()) {
+        model.getShownRows(order);
+      }
+      model.addSale(sale("US", 5000.0, 10));
+      model.addSale(sale("FR", 6000.0, 20));
+      model.addSales(Arrays.asList(sale("GB", 7000.0, 5), sale("US", 5000.0, 10)));
+      for (ProgramModel.SortOrder order : ProgramModel.SortOrder.values()) {
+        assertArrayEquals(filtered(model.getSortedRows(order), countries),
+            model.getShownRows(order));
+      }
+    }
+
+    @Test
+    void refiltersWhenPricesAreRegenerated() {
+      model.getShownRows(ProgramModel.SortOrder.PRICE);
+      model.setUserLocale(Locale.JAPAN);
+      assertArrayEquals(filtered(model.getSortedRows(ProgramModel.SortOrder.PRICE), countries),
+          model.getShownRows(ProgramModel.SortOrder.PRICE));
+    }
+
+    @Test
+    void totalsFilteredCountries() {
+      assertEquals(naiveTotal(countries), model.getTotal(), 1e-6 * model.getTotal());
+      model.setCountryFilter(Arrays.asList("FR"));
+      assertEquals(naiveTotal(Arrays.asList("FR")), model.getTotal(), 1e-6 * model.getTotal());
+    }
+
+    @Test
+    void addsSalesToCountryTotals() {
+      model.setCountryFilter(Arrays.asList("US", "JP"));
+      model.addSale(sale("JP", 9000000.0, 3));
+      model.addSale(sale("US", 8000.0, 3));
+      List<String> filter = Arrays.asList("US", "JP");
+      assertEquals(naiveTotal(filter), model.getTotal(), 1e-6 * model.getTotal());
+    }
+  }
+
+  @Nested
+  class AddedRows {
+
+    @Test
+    void rejectsUnknownCountryOrdinals() {
+      int size = model.getSalesTable().size();
+      for (int ordinal : new int[] {-1, CurrencyConverter.countryCodes.size(), 70000}) {
+        assertThrows(IllegalArgumentException.class, () -> model.addRows(
+            new int[] {1, ordinal}, new double[] {1.0, 2.0}, new long[] {1, 2}, 2));
+      }
+      assertEquals(size, model.getSalesTable().size());
+      assertEquals(size, model.getSortedRows(ProgramModel.SortOrder.PRICE).length);
+    }
+
+    @Test
+    void rejectsInvalidPrices() {
+      int size = model.getSalesTable().size();
+      for (double price : new double[] {-1.0, Double.NaN, Double.POSITIVE_INFINITY}) {
+        assertThrows(IllegalArgumentException.class,
+            () -> model.addRows(new int[] {1}, new double[] {price}, new long[] {1}, 1));
+      }
+      assertEquals(size, model.getSalesTable().size());
+    }
+
+    @Test
+    void rejectsCountBeyondArrays() {
+      assertThrows(IllegalArgumentException.class,
+          () -> model.addRows(new int[] {1}, new double[] {1.0}, new long[] {1}, 2));
+      assertThrows(IllegalArgumentException.class,
+          () -> model.addRowsAsync(new int[] {1}, new double[] {1.0}, new long[] {1}, -1));
+    }
+  }
+
+  @Nested
+  class ExchangeRateSources {
+
+    @Test
+    void keepsOwnRatesWhenAnotherModelIsCreated() {
+      RateProvider provider = model.getExchangeRates().getRateProvider();
+      RateProvider shared = CurrencyConverter.getRateProvider();
+      double[] rates = model.getExchangeRates().getRates().clone();
+      ProgramModel other = new ProgramModel(new SyntheticRateProvider(LocalDate.of(2000, 1, 1)));
+      assertSame(provider, model.getExchangeRates().getRateProvider());
+      assertArrayEquals(rates, model.getExchangeRates().getRates(), 0.0);
+      assertSame(shared, CurrencyConverter.getRateProvider());
+      assertEquals(false, Arrays.equals(rates, other.getExchangeRates().getRates()));
+    }
+
+    @Test
+    void sharesProcessWideRatesForTheirProvider() {
+      CurrencyConverter.setRateProvider(new SyntheticRateProvider());
+      ProgramModel shared = new ProgramModel(CurrencyConverter.getRateProvider());
+      assertSame(CurrencyConverter.getExchangeRates(), shared.getExchangeRates());
+    }
+  }
+
+  @Nested
+  class Rollups {
+
+    @Test
+    void countsAddedSale() {
+      int before = model.getRollup("US", FIRST, LAST).getCount();
+      model.addSale(RealEstateSale.make("US", 1000.0, new Date(0)));
+      assertEquals(before + 1, model.getRollup("US", FIRST, LAST).getCount());
+    }
+
+    @Test
+    void rejectsUnknownCountry() {
+      assertThrows(IllegalArgumentException.class, () -> model.getRollup("XX", FIRST, LAST));
+      assertThrows(IllegalArgumentException.class,
+          () -> model.getRollupsByMonth("XX", FIRST, LAST));
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link RateCache}.
+ */
+class RateCacheTest {
+
+  protected long now = 0;
+  protected RateCache<String, Double> cache = new RateCache<String, Double>(2, 100, () -> now);
+
+  @Test
+  void missesWhenEmpty() {
+    assertNull(cache.get("USD:EUR"));
+    assertEquals(1, cache.getMisses());
+    assertEquals(0, cache.getHits());
+  }
+
+  @Test
+  void hitsAfterPut() {
+    cache.put("USD:EUR", 0.9);
+    assertEquals(0.9, (double) cache.get("USD:EUR"));
+    assertEquals(1, cache.getHits());
+  }
+
+  @Nested
+  class Eviction {
+
+    @Test
+    void removesLeastRecentlyUsed() {
+      cache.put("USD:EUR", 0.9);
+      cache.put("USD:JPY", 110.0);
+      cache.get("USD:EUR");
+      cache.put("USD:GBP", 0.8);
+      assertEquals(1, cache.getEvictions());
+      assertNull(cache.get("USD:JPY"));
+      assertEquals(0.9, (double) cache.get("USD:EUR"));
+      assertEquals(0.8, (double) cache.get("USD:GBP"));
+    }
+  }
+
+  @Nested
+  class Expiry {
+
+    @Test
+    void keepsEntriesWithinTtl() {
+      cache.put("USD:EUR", 0.9);
+      now = 100;
+      assertEquals(0.9, (double) cache.get("USD:EUR"));
+    }
+
+    @Test
+    void dropsEntriesOlderThanTtl() {
+      cache.put("USD:EUR", 0.9);
+      now = 101;
+      assertNull(cache.get("USD:EUR"));
+      assertEquals(0, cache.size());
+      assertEquals(1, cache.getMisses());
+    }
+  }
+}
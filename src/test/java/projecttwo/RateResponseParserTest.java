@@ -0,0 +1,107 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.NavigableMap;
+import java.util.Random;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link RateResponseParser}.
+ */
+class RateResponseParserTest {
+
+  protected RateResponseParser parser =
+      new RateResponseParser(Arrays.asList("EUR", "GBP", "JPY", "USD"));
+
+  protected static InputStream json(String text) {
+    return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Nested
+  class Latest {
+
+    @Test
+    void readsRatesOfEverySymbol() throws IOException {
+      double[] rates = parser.parseLatest(json("{\"rates\":{\"USD\":1.1215,\"JPY\":124.8,"
+          + "\"GBP\":0.86275},\"base\":\"EUR\",\"date\":\"2019-04-26\"}"), "EUR");
+      assertEquals(1.0, rates[0]);
+      assertEquals(0.86275, rates[1]);
+      assertEquals(124.8, rates[2]);
+      assertEquals(1.1215, rates[3]);
+    }
+
+    @Test
+    void skipsOtherMembersAndSymbols() throws IOException {
+      double[] rates = parser.parseLatest(json(" {\n \"base\" : \"USD\", \"note\": \"a \\\"}\","
+          + " \"extra\": [1, {\"x\": null}, true], \"rates\" : { \"CAD\" : 1.35, \"EUR\" : 0.89,"
+          + " \"GBP\": null } }"), "USD");
+      assertEquals(0.89, rates[0]);
+      assertTrue(Double.isNaN(rates[1]));
+      assertTrue(Double.isNaN(rates[2]));
+      assertEquals(1.0, rates[3]);
+    }
+
+    @Test
+    void rejectsResponseWithoutRates() {
+      assertThrows(IOException.class,
+          () -> parser.parseLatest(json("{\"error\":\"Base 'XXX' is not supported.\"}"), "XXX"));
+    }
+
+    @Test
+    void rejectsTruncatedResponse() {
+      assertThrows(IOException.class,
+          () -> parser.parseLatest(json("{\"rates\":{\"USD\":1.12"), "EUR"));
+    }
+  }
+
+  @Nested
+  class History {
+
+    @Test
+    void readsEachDayApart() throws IOException {
+      NavigableMap<Long, double[]> days = parser.parseHistory(json("{\"rates\":{"
+          + "\"2019-04-25\":{\"USD\":1.1155,\"JPY\":124.71},"
+          + "\"2019-04-26\":{\"USD\":1.1139,\"JPY\":124.38}},"
+          + "\"start_at\":\"2019-04-24\",\"base\":\"EUR\",\"end_at\":\"2019-04-26\"}"), "EUR");
+      assertEquals(2, days.size());
+      double[] first = days.get(LocalDate.of(2019, 4, 25).toEpochDay());
+      double[] last = days.get(LocalDate.of(2019, 4, 26).toEpochDay());
+      assertEquals(1.1155, first[3]);
+      assertEquals(124.71, first[2]);
+      assertEquals(1.1139, last[3]);
+      assertEquals(124.38, last[2]);
+      assertEquals(1.0, last[0]);
+    }
+
+    @Test
+    void rejectsDayWhichIsNotADate() {
+      assertThrows(IOException.class,
+          () -> parser.parseHistory(json("{\"rates\":{\"2019-02-30\":{\"USD\":1.1}}}"), "EUR"));
+    }
+  }
+
+  @Test
+  void roundsNumbersAsParseDoubleDoes() throws IOException {
+    Random random = new Random(26);
+    String[] samples = new String[2000];
+    for (int i = 0; i < samples.length; i++) {
+      double value = Math.pow(10, random.nextInt(24) - 12) * random.nextDouble();
+      samples[i] = i % 4 == 0 ? Double.toString(value) : i % 4 == 1 ? String.format("%.6f", value)
+          : i % 4 == 2 ? String.format("%.17e", value) : Long.toString(random.nextLong());
+    }
+    for (String sample : samples) {
+      double[] rates = parser.parseLatest(json("{\"rates\":{\"USD\":" + sample + "}}"), "EUR");
+      assertEquals(Double.parseDouble(sample), rates[3], sample);
+    }
+  }
+}
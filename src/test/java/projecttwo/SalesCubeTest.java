@@ -0,0 +1,142 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Random;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SalesCube}.
+ */
+class SalesCubeTest {
+
+  protected SalesCube cube = new SalesCube(3, 2000, 2);
+
+  protected static long day(int year, int month, int dayOfMonth) {
+    return LocalDate.of(year, month, dayOfMonth).toEpochDay();
+  }
+
+  @Test
+  void startsEmpty() {
+    SalesCube.Rollup rollup = cube.rollup(0, YearMonth.of(1990, 1), YearMonth.of(2030, 12));
+    assertEquals(0, rollup.getCount());
+    assertEquals(0.0, rollup.getConvertedSum());
+  }
+
+  @Test
+  void rollsUpByCountryAndMonth() {
+    cube.add(0, day(2000, 3, 5), 100.0, 10.0);
+    cube.add(0, day(2000, 3, 20), 50.0, 5.0);
+    cube.add(1, day(2000, 3, 1), 70.0, 7.0);
+    cube.add(0, day(2001, 1, 1), 30.0, 3.0);
+    SalesCube.Rollup march = cube.rollup(0, YearMonth.of(2000, 3), YearMonth.of(2000, 3));
+    assertEquals(2, march.getCount());
+    assertEquals(150.0, march.getLocalSum());
+    assertEquals(15.0, march.getConvertedSum());
+    assertEquals(18.0,
+        cube.rollup(0, YearMonth.of(2000, 1), YearMonth.of(2001, 12)).getConvertedSum());
+    assertEquals(7.0,
+        cube.rollupByCountry(YearMonth.of(2000, 1), YearMonth.of(2000, 12))[1].getConvertedSum());
+    assertEquals(0, cube.rollupByMonth(0, YearMonth.of(2000, 2), YearMonth.of(2000, 4))[0]
+        .getCount());
+    assertEquals(2, cube.rollupByMonth(0, YearMonth.of(2000, 2), YearMonth.of(2000, 4))[1]
+        .getCount());
+  }
+
+  @Nested
+  class Growth {
+
+    @Test
+    void keepsRollupsWhenGrowing() {
+      cube.add(2, day(2000, 6, 1), 1.0, 1.0);
+      cube.add(2, day(1985, 6, 1), 2.0, 2.0);
+      cube.add(2, day(2020, 6, 1), 4.0, 4.0);
+      assertEquals(7.0,
+          cube.rollup(2, YearMonth.of(1900, 1), YearMonth.of(2100, 1)).getConvertedSum());
+      assertEquals(2.0,
+          cube.rollup(2, YearMonth.of(1985, 6), YearMonth.of(1999, 12)).getConvertedSum());
+    }
+
+    @Test
+    void matchesNaiveSums() {
+      Random random = new Random(42);
+      long first = day(1990, 1, 1);
+      long[] days = new long[3000];
+      double[] prices = new double[days.length];
+      for (int i = 0; i < days.length; i++) {
+        days[i] = first + random.nextInt(365 * 30);
+        prices[i] = random.nextInt(1000);
+        cube.add(1, days[i], prices[i], prices[i]);
+      }
+      for (int i = 0; i < 200; i++) {
+        YearMonth from = YearMonth.of(1988 + random.nextInt(34), 1 + random.nextInt(12));
+        YearMonth to = from.plusMonths(random.nextInt(200));
+        double expected = 0.0;
+        int count = 0;
+        for (int sale = 0; sale < days.length; sale++) {
+          YearMonth month = YearMonth.from(LocalDate.ofEpochDay(days[sale]));
+          if (!month.isBefore(from) && !month.isAfter(to)) {
+            expected += prices[sale];
+            count++;
+          }
+        }
+        SalesCube.Rollup rollup = cube.rollup(1, from, to);
+        assertEquals(count, rollup.getCount());
+        assertEquals(expected, rollup.getLocalSum(), 1e-6);
+      }
+    }
+  }
+
+  @Nested
+  class SavedCells {
+
+    protected SalesCube saved() {
+      int cells = cube.getCells();
+      int[] counts = new int[3 * cells];
+      double[] local = new double[counts.length];
+      double[] converted = new double[counts.length];
+      for (int country = 0; country < 3; country++) {
+        for (int cell = 0; cell < cells; cell++) {
+          counts[country * cells + cell] = cube.getCount(country, cell);
+          local[country * cells + cell] = cube.getLocalSum(country, cell);
+          converted[country * cells + cell] = cube.getConvertedSum(country, cell);
+        }
+      }
+      return new SalesCube(3, cube.getFirstYear(), cube.getYears(), IntBuffer.wrap(counts),
+          DoubleBuffer.wrap(local), DoubleBuffer.wrap(converted));
+    }
+
+    @Test
+    void rollsUpSavedCells() {
+      cube.add(0, day(2000, 3, 5), 100.0, 10.0);
+      cube.add(1, day(2001, 7, 1), 70.0, 7.0);
+      SalesCube saved = saved();
+      SalesCube.Rollup all = saved.rollup(0, YearMonth.of(2000, 1), YearMonth.of(2001, 12));
+      assertEquals(1, all.getCount());
+      assertEquals(100.0, all.getLocalSum());
+      assertEquals(7.0, saved.rollupByMonth(1, YearMonth.of(2001, 7), YearMonth.of(2001, 7))[0]
+          .getConvertedSum());
+    }
+
+    @Test
+    void addsToSavedCells() {
+      cube.add(0, day(2000, 3, 5), 100.0, 10.0);
+      cube.add(1, day(2001, 7, 1), 70.0, 7.0);
+      SalesCube saved = saved();
+      saved.add(0, day(2001, 2, 1), 5.0, 0.5);
+      assertEquals(10.5,
+          saved.rollup(0, YearMonth.of(2000, 1), YearMonth.of(2001, 12)).getConvertedSum());
+      saved.add(1, day(1990, 1, 1), 1.0, 1.0);
+      SalesCube.Rollup[] rollups =
+          saved.rollupByCountry(YearMonth.of(1990, 1), YearMonth.of(2001, 12));
+      assertEquals(105.0, rollups[0].getLocalSum());
+      assertEquals(2, rollups[1].getCount());
+      assertEquals(8.0, rollups[1].getConvertedSum());
+    }
+  }
+}
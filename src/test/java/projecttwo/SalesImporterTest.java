@@ -0,0 +1,94 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SalesImporter}.
+ */
+class SalesImporterTest {
+
+  protected ProgramModel model = new ProgramModel(new SyntheticRateProvider());
+  protected SalesImporter importer = new SalesImporter(model, 3);
+
+  protected static Path csv(String contents) throws IOException {
+    Path file = Files.createTempFile("sales", ".csv");
+    file.toFile().deleteOnExit();
+    Files.write(file, contents.getBytes(StandardCharsets.US_ASCII));
+    return file;
+  }
+
+  @Test
+  void countsDaysLikeLocalDate() {
+    for (long day = -200000; day < 200000; day += 37) {
+      LocalDate date = LocalDate.ofEpochDay(day);
+      assertEquals(day,
+          SalesImporter.epochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+    }
+    assertEquals(Long.MIN_VALUE, SalesImporter.epochDay(2019, 2, 29));
+    assertEquals(Long.MIN_VALUE, SalesImporter.epochDay(2019, 13, 1));
+  }
+
+  @Nested
+  class Csv {
+
+    @Test
+    void importsValidLinesInChunks() throws IOException {
+      int before = model.getSalesTable().size();
+      importer.importCsv(csv("day,country,price\r\n"
+          + "2010-03-15,US,250000\n"
+          + "2011-01-02,DE,99500.50\n"
+          + "2011-02-30,DE,1\n"
+          + "2012-07-04,XX,1\n"
+          + "2013-12-31,JP,-5\n"
+          + "2014-06-01,FR,12.5.0\n"
+          + "2015-05-05,FR,1000\n"
+          + "2016-01-01,US,1"));
+      assertEquals(4, importer.getImported());
+      assertEquals(5, importer.getRejected());
+      SalesTable table = model.getSalesTable();
+      assertEquals(before + 4, table.size());
+      assertEquals("US", table.view(before).getCountry());
+      assertEquals(LocalDate.of(2010, 3, 15).toEpochDay(), table.getEpochDay(before));
+      assertEquals(99500.5, table.getPrice(before + 1));
+      assertEquals(before + 4, model.getSortedRows(ProgramModel.SortOrder.PRICE).length);
+    }
+  }
+
+  @Nested
+  class Binary {
+
+    @Test
+    void roundTripsTable() throws IOException {
+      Path file = Files.createTempFile("sales", ".bin");
+      file.toFile().deleteOnExit();
+      SalesTable original = model.getSalesTable();
+      int count = original.size();
+      SalesImporter.exportBinary(original, file);
+      importer.importFile(file);
+      assertEquals(count, importer.getImported());
+      assertEquals(0, importer.getRejected());
+      for (int row = 0; row < count; row++) {
+        assertEquals(original.getEpochDay(row), original.getEpochDay(count + row));
+        assertEquals(original.getPrice(row), original.getPrice(count + row));
+        assertEquals(original.getCountryOrdinal(row), original.getCountryOrdinal(count + row));
+      }
+    }
+
+    @Test
+    void rejectsTruncatedFile() throws IOException {
+      Path file = Files.createTempFile("sales", ".bin");
+      file.toFile().deleteOnExit();
+      Files.write(file, new byte[] {'P', 'T', 'S', '1', 'U', 'S', 0});
+      assertThrows(IOException.class, () -> importer.importBinary(file));
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SalesJournal}.
+ */
+class SalesJournalTest {
+
+  protected static Path journalFile() throws IOException {
+    Path file = Files.createTempFile("sales", ".journal");
+    file.toFile().deleteOnExit();
+    Files.delete(file);
+    return file;
+  }
+
+  protected static ArrayList<Double> replayPrices(Path file) throws IOException {
+    ArrayList<Double> prices = new ArrayList<Double>();
+    try (SalesJournal journal = new SalesJournal(file, 1, 4)) {
+      journal.replay((countries, salePrices, days, count) -> {
+        for (int i = 0; i < count; i++) {
+          prices.add(salePrices[i]);
+        }
+      });
+    }
+    return prices;
+  }
+
+  @Nested
+  class Replay {
+
+    @Test
+    void returnsCommittedSalesInOrder() throws IOException {
+      Path file = journalFile();
+      try (SalesJournal journal = new SalesJournal(file, 1, 4)) {
+        journal.replay((countries, prices, days, count) -> { });
+        CompletableFuture<Void> last = null;
+        for (int i = 0; i < 10; i++) {
+          last = journal.append(i, 1000.0 + i, 15000 + i);
+        }
+        last.join();
+        journal.appendAll(new int[] {7, 8}, new double[] {5.5, 6.5}, new long[] {1, 2}, 2).join();
+      }
+      ArrayList<Double> prices = replayPrices(file);
+      assertEquals(12, prices.size());
+      assertEquals(1000.0, (double) prices.get(0));
+      assertEquals(1009.0, (double) prices.get(9));
+      assertEquals(6.5, (double) prices.get(11));
+    }
+
+    @Test
+    void cutsOffTornBatch() throws IOException {
+      Path file = journalFile();
+      try (SalesJournal journal = new SalesJournal(file, 1, 4)) {
+        journal.replay((countries, prices, days, count) -> { });
+        journal.append(1, 42.0, 100).join();
+      }
+      long committed = Files.size(file);
+      Files.write(file, new byte[] {3, 0, 0, 0, 1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+      assertEquals(1, replayPrices(file).size());
+      assertEquals(committed, Files.size(file));
+    }
+  }
+
+  @Test
+  void resetDropsEverySale() throws IOException {
+    Path file = journalFile();
+    try (SalesJournal journal = new SalesJournal(file, 1, 4)) {
+      journal.replay((countries, prices, days, count) -> { });
+      journal.append(1, 42.0, 100).join();
+      journal.reset(1);
+      journal.append(2, 43.0, 101).join();
+    }
+    ArrayList<Double> prices = replayPrices(file);
+    assertEquals(1, prices.size());
+    assertEquals(43.0, (double) prices.get(0));
+  }
+
+  @Test
+  void keepsGenerationAcrossReopening() throws IOException {
+    Path file = journalFile();
+    try (SalesJournal journal = new SalesJournal(file, 1, 4)) {
+      journal.reset(3);
+    }
+    try (SalesJournal journal = new SalesJournal(file, 1, 4)) {
+      assertEquals(3, journal.getGeneration());
+      assertThrows(IllegalArgumentException.class, () -> journal.reset(3));
+    }
+  }
+
+  @Test
+  void skipsJournalSnapshotAlreadyHolds() throws IOException {
+    Path snapshot = Files.createTempFile("sales", ".snapshot");
+    snapshot.toFile().deleteOnExit();
+    Files.delete(snapshot);
+    Path file = journalFile();
+    int saved;
+    byte[] unemptied;
+    try (SalesJournal journal = new SalesJournal(file, 1, 4)) {
+      ProgramModel model = new ProgramModel(new SyntheticRateProvider(), snapshot, journal);
+      model.setNotificationExecutor(Runnable::run);
+      model.addSale(RealEstateSale.make("US", 123456.0, new Date(0)));
+      model.setEndDate(model.getEndDate());
+      saved = model.getSalesTable().size();
+      unemptied = Files.readAllBytes(file);
+      model.saveSnapshot(snapshot);
+    }
+    Files.write(file, unemptied);
+    try (SalesJournal journal = new SalesJournal(file, 1, 4)) {
+      ProgramModel restored = new ProgramModel(new SyntheticRateProvider(), snapshot, journal);
+      restored.setNotificationExecutor(Runnable::run);
+      restored.setEndDate(restored.getEndDate());
+      assertEquals(saved, restored.getSalesTable().size());
+      assertEquals(1, journal.getGeneration());
+    }
+    assertEquals(0, replayPrices(file).size());
+  }
+
+  @Test
+  void keepsRejectedSalesOutOfJournal() throws IOException {
+    Path snapshot = Files.createTempFile("sales", ".snapshot");
+    snapshot.toFile().deleteOnExit();
+    Files.delete(snapshot);
+    Path file = journalFile();
+    try (SalesJournal journal = new SalesJournal(file, 1, 4)) {
+      ProgramModel model = new ProgramModel(new SyntheticRateProvider(), snapshot, journal);
+      model.setNotificationExecutor(Runnable::run);
+      assertThrows(IllegalArgumentException.class, () -> model.addRows(
+          new int[] {-1}, new double[] {1.0}, new long[] {1}, 1));
+      model.addSale(RealEstateSale.make("US", 123456.0, new Date(0)));
+    }
+    ArrayList<Double> prices = replayPrices(file);
+    assertEquals(1, prices.size());
+    assertEquals(123456.0, (double) prices.get(0));
+  }
+
+  @Test
+  void replaysSalesAddedSinceSnapshot() throws IOException {
+    Path snapshot = Files.createTempFile("sales", ".snapshot");
+    snapshot.toFile().deleteOnExit();
+    Files.delete(snapshot);
+    Path file = journalFile();
+    int saved;
+    try (SalesJournal journal = new SalesJournal(file, 1, 4)) {
+      ProgramModel model = new ProgramModel(new SyntheticRateProvider(), snapshot, journal);
+      model.setNotificationExecutor(Runnable::run);
+      model.saveSnapshot(snapshot);
+      saved = model.getSalesTable().size();
+      model.addSale(RealEstateSale.make("US", 123456.0, new Date(0)));
+    }
+    try (SalesJournal journal = new SalesJournal(file, 1, 4)) {
+      ProgramModel restored = new ProgramModel(new SyntheticRateProvider(), snapshot, journal);
+      restored.setNotificationExecutor(Runnable::run);
+      restored.setEndDate(restored.getEndDate());
+      SalesTable table = restored.getSalesTable();
+      assertEquals(saved + 1, table.size());
+      assertEquals(123456.0, table.getPrice(saved));
+      assertEquals(CurrencyConverter.epochDay(new Date(0)), table.getEpochDay(saved));
+      assertEquals(saved + 1, restored.getSortedRows(ProgramModel.SortOrder.PRICE).length);
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SalesListModel}.
+ */
+class SalesListModelTest {
+
+  protected SalesTable table = new SalesTable();
+  protected SalesListModel model = new SalesListModel(table);
+  protected List<String> events = new ArrayList<String>();
+
+  SalesListModelTest() {
+    for (int row = 0; row < 10; row++) {
+      table.add(CurrencyConverter.countryOrdinal(row % 2 == 0 ? "US" : "GB"), 100.0 * (10 - row),
+          row % 3);
+    }
+    model.addListDataListener(new ListDataListener() {
+      @Override
+      public void intervalAdded(ListDataEvent event) {
+        events.add("added " + event.getIndex0() + "-" + event.getIndex1());
+      }
+
+      @Override
+      public void intervalRemoved(ListDataEvent event) {
+        events.add("removed " + event.getIndex0() + "-" + event.getIndex1());
+      }
+
+      @Override
+      public void contentsChanged(ListDataEvent event) {
+        events.add("changed " + event.getIndex0() + "-" + event.getIndex1());
+      }
+    });
+  }
+
+  protected int[] shownRows() {
+    int[] rows = new int[model.getSize()];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = model.rowAt(i);
+    }
+    return rows;
+  }
+
+  @Test
+  void startsEmpty() {
+    assertEquals(0, model.getSize());
+  }
+
+  @Test
+  void viewsRowsOfTable() {
+    model.setOrder(new int[] {4, 2});
+    assertEquals(table.view(4), model.getElementAt(0));
+    assertEquals(200.0 * 3, model.getElementAt(0).getPrice());
+  }
+
+  @Nested
+  class Order {
+
+    @Test
+    void showsInDateOrder() {
+      model.showInDateOrder();
+      assertEquals("[0, 3, 6, 9, 1, 4, 7, 2, 5, 8]", Arrays.toString(shownRows()));
+    }
+
+    @Test
+    void sortsByComparator() {
+      model.sortBy(Comparator.comparingDouble(RealEstateSale::getPrice));
+      assertEquals("[9, 8, 7, 6, 5, 4, 3, 2, 1, 0]", Arrays.toString(shownRows()));
+    }
+
+    @Test
+    void reportsGrowthAndChange() {
+      model.setOrder(new int[] {1, 2});
+      events.clear();
+      model.setOrder(new int[] {3, 4, 5});
+      assertEquals(Arrays.asList("added 2-2", "changed 0-1"), events);
+    }
+
+    @Test
+    void reportsShrinkingAndChange() {
+      model.setOrder(new int[] {1, 2, 3});
+      events.clear();
+      model.setOrder(new int[] {5});
+      assertEquals(Arrays.asList("removed 1-2", "changed 0-0"), events);
+    }
+  }
+
+  @Nested
+  class Insertion {
+
+    @Test
+    void reportsOnlyInsertedRuns() {
+      model.setOrder(new int[] {1, 3, 5});
+      events.clear();
+      model.insertRows(new int[] {0, 1, 3, 4, 6, 5, 7, 8});
+      assertEquals(Arrays.asList("added 0-0", "added 3-4", "added 6-7"), events);
+      assertEquals("[0, 1, 3, 4, 6, 5, 7, 8]", Arrays.toString(shownRows()));
+    }
+
+    @Test
+    void fallsBackWhenOrderChanged() {
+      model.setOrder(new int[] {1, 3, 5});
+      events.clear();
+      model.insertRows(new int[] {5, 3, 1, 0});
+      assertEquals(Arrays.asList("added 3-3", "changed 0-2"), events);
+      assertEquals(4, model.getSize());
+    }
+
+    @Test
+    void fallsBackWhenRowsRemoved() {
+      model.setOrder(new int[] {1, 3, 5});
+      events.clear();
+      model.insertRows(new int[] {1, 5});
+      assertEquals(Arrays.asList("removed 2-2", "changed 0-1"), events);
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SalesSnapshot}.
+ */
+class SalesSnapshotTest {
+
+  protected ProgramModel model = new ProgramModel(new SyntheticRateProvider());
+
+  protected static Path snapshotFile() throws IOException {
+    Path file = Files.createTempFile("sales", ".snapshot");
+    file.toFile().deleteOnExit();
+    return file;
+  }
+
+  protected static ProgramModel restore(Path file) throws IOException {
+    ProgramModel restored = new ProgramModel(new SyntheticRateProvider(), file);
+    restored.setNotificationExecutor(Runnable::run);
+    restored.setEndDate(restored.getEndDate());
+    return restored;
+  }
+
+  @Nested
+  class RoundTrip {
+
+    @Test
+    void restoresSalesPricesAndSettings() throws IOException {
+      model.setUserLocale(Locale.JAPAN);
+      Path file = snapshotFile();
+      model.saveSnapshot(file);
+      ProgramModel restored = restore(file);
+      SalesTable original = model.getSalesTable();
+      SalesTable mapped = restored.getSalesTable();
+      assertEquals(original.size(), mapped.size());
+      for (int row = 0; row < original.size(); row++) {
+        assertEquals(original.getEpochDay(row), mapped.getEpochDay(row));
+        assertEquals(original.getPrice(row), mapped.getPrice(row));
+        assertEquals(original.getCountryOrdinal(row), mapped.getCountryOrdinal(row));
+        assertEquals(original.getConvertedPrice(row), mapped.getConvertedPrice(row));
+        assertEquals(original.rowInDateOrder(row), mapped.rowInDateOrder(row));
+      }
+      assertEquals(Locale.JAPAN, restored.getUserLocale());
+      for (ProgramModel.SortOrder order : ProgramModel.SortOrder.values()) {
+        assertArrayEquals(model.getSortedRows(order), restored.getSortedRows(order));
+      }
+      assertEquals(model.getTotal(), restored.getTotal(), 1e-6 * Math.abs(model.getTotal()));
+    }
+
+    @Test
+    void restoresTotalsAndRollups() throws IOException {
+      model.setCountryFilter(Arrays.asList("US", "GB", "JP"));
+      Path file = snapshotFile();
+      model.saveSnapshot(file);
+      ProgramModel restored = restore(file);
+      restored.setCountryFilter(model.getCountryFilter());
+      assertEquals(model.getTotal(), restored.getTotal(), 1e-6 * Math.abs(model.getTotal()));
+      YearMonth from = YearMonth.of(1990, 1);
+      YearMonth to = YearMonth.of(2030, 12);
+      SalesCube.Rollup[] expected = model.getRollupsByCountry(from, to);
+      SalesCube.Rollup[] actual = restored.getRollupsByCountry(from, to);
+      for (int country = 0; country < expected.length; country++) {
+        assertEquals(expected[country].getCount(), actual[country].getCount());
+        assertEquals(expected[country].getConvertedSum(), actual[country].getConvertedSum());
+      }
+    }
+
+    @Test
+    void updatesRestoredTotals() throws IOException {
+      Path file = snapshotFile();
+      model.saveSnapshot(file);
+      ProgramModel restored = restore(file);
+      double before = restored.getTotal();
+      restored.addSale(RealEstateSale.make("US", 100000.0, new Date()));
+      restored.setEndDate(restored.getEndDate());
+      assertEquals(before + restored.getSalesTable().getConvertedPrice(model.getSalesTable()
+          .size()), restored.getTotal(), 1e-6 * Math.abs(before));
+      YearMonth now = YearMonth.now();
+      assertEquals(1 + model.getRollup("US", now, now).getCount(),
+          restored.getRollup("US", now, now).getCount());
+    }
+
+    @Test
+    void restoresHistoricalSetting() throws IOException {
+      model.setHistorical(true);
+      Path file = snapshotFile();
+      model.saveSnapshot(file);
+      assertTrue(restore(file).isHistorical());
+    }
+
+    @Test
+    void appendsAfterMappedRows() throws IOException {
+      Path file = snapshotFile();
+      model.saveSnapshot(file);
+      ProgramModel restored = restore(file);
+      SalesTable table = restored.getSalesTable();
+      int count = table.size();
+      restored.addSale(RealEstateSale.make("US", 100000.0, new Date(0)));
+      assertEquals(count + 1, table.size());
+      assertEquals(count, table.rowInDateOrder(0));
+      assertEquals(count + 1, restored.getSortedRows(ProgramModel.SortOrder.PRICE).length);
+      for (int row = 0; row < count; row++) {
+        assertEquals(model.getSalesTable().getPrice(row), table.getPrice(row));
+      }
+    }
+  }
+
+  @Test
+  void fallsBackToGeneratedSalesWithoutSnapshot() throws IOException {
+    Path file = snapshotFile();
+    Files.delete(file);
+    assertEquals(20, restore(file).getSalesTable().size());
+  }
+
+  @Test
+  void rejectsOtherVersions() throws IOException {
+    Path file = snapshotFile();
+    model.saveSnapshot(file);
+    try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+      raw.seek(4);
+      raw.write(SalesSnapshot.VERSION + 1);
+    }
+    assertThrows(IOException.class, () -> SalesSnapshot.open(file));
+  }
+}
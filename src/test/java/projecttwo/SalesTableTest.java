@@ -0,0 +1,197 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.Random;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SalesTable}.
+ */
+class SalesTableTest {
+
+  protected static final int US = CurrencyConverter.countryOrdinal("US");
+  protected static final int GB = CurrencyConverter.countryOrdinal("GB");
+
+  protected SalesTable table = new SalesTable();
+
+  protected static void assertInDateOrder(SalesTable table) {
+    for (int position = 1; position < table.size(); position++) {
+      int before = table.rowInDateOrder(position - 1);
+      int after = table.rowInDateOrder(position);
+      assertTrue(table.getEpochDay(before) < table.getEpochDay(after)
+          || table.getEpochDay(before) == table.getEpochDay(after) && before < after);
+    }
+  }
+
+  @Test
+  void startsEmpty() {
+    assertEquals(0, table.size());
+    assertEquals(Long.MAX_VALUE, table.getFirstEpochDay());
+    assertEquals(Long.MIN_VALUE, table.getLastEpochDay());
+  }
+
+  @Test
+  void holdsAddedSales() {
+    assertEquals(0, table.add(US, 1000.0, 30));
+    assertEquals(1, table.add(GB, 2000.0, 10));
+    assertEquals(2, table.size());
+    assertEquals(GB, table.getCountryOrdinal(1));
+    assertEquals(2000.0, table.getPrice(1));
+    assertEquals(10, table.getEpochDay(1));
+    assertEquals(10, table.getFirstEpochDay());
+    assertEquals(30, table.getLastEpochDay());
+  }
+
+  @Nested
+  class Growth {
+
+    @Test
+    void growsPastInitialCapacity() {
+      int initial = table.capacity();
+      for (int i = 0; i < initial * 5; i++) {
+        table.add(US, i, 1000 - i % 7);
+        table.setConvertedPrice(i, 2.0 * i);
+      }
+      assertTrue(table.capacity() >= initial * 5);
+      for (int i = 0; i < initial * 5; i++) {
+        assertEquals((double) i, table.getPrice(i));
+        assertEquals(2.0 * i, table.getConvertedPrice(i));
+      }
+    }
+
+    @Test
+    void growsForRunsOfSales() {
+      int count = table.capacity() * 3;
+      int[] countries = new int[count];
+      double[] prices = new double[count];
+      long[] days = new long[count];
+      for (int i = 0; i < count; i++) {
+        countries[i] = i % 2 == 0 ? US : GB;
+        prices[i] = i;
+        days[i] = 500 - i;
+      }
+      table.add(US, 1.0, 100);
+      assertEquals(1, table.addAll(countries, prices, days, count));
+      assertEquals(count + 1, table.size());
+      assertEquals(GB, table.getCountryOrdinal(2));
+      assertEquals(100, table.getFirstEpochDay());
+      assertEquals(500, table.getLastEpochDay());
+      assertInDateOrder(table);
+    }
+
+    @Test
+    void rejectsShortPriceColumn() {
+      table.add(US, 1.0, 1);
+      assertThrows(IllegalArgumentException.class,
+          () -> table.setConvertedPrices(new double[table.capacity() - 1]));
+    }
+  }
+
+  @Nested
+  class DateOrder {
+
+    @Test
+    void keepsSalesInDateOrder() {
+      Random random = new Random(7);
+      for (int i = 0; i < 300; i++) {
+        table.add(US, i, random.nextInt(50));
+      }
+      assertInDateOrder(table);
+    }
+
+    @Test
+    void mergesRunsIntoDateOrder() {
+      Random random = new Random(11);
+      for (int run = 0; run < 10; run++) {
+        int count = 1 + random.nextInt(100);
+        int[] countries = new int[count];
+        double[] prices = new double[count];
+        long[] days = new long[count];
+        for (int i = 0; i < count; i++) {
+          countries[i] = US;
+          days[i] = random.nextInt(60);
+        }
+        table.addAll(countries, prices, days, count);
+        table.add(GB, 1.0, random.nextInt(60));
+      }
+      assertInDateOrder(table);
+    }
+  }
+
+  @Nested
+  class Views {
+
+    @Test
+    void readsFieldsOfRow() {
+      table.add(GB, 1234.5, LocalDate.of(2019, 4, 26).toEpochDay());
+      RealEstateSale sale = table.view(0);
+      assertEquals("GB", sale.getCountry());
+      assertEquals(1234.5, sale.getPrice());
+      assertEquals(LocalDate.of(2019, 4, 26).toEpochDay(),
+          CurrencyConverter.epochDay(sale.getDate()));
+    }
+
+    @Test
+    void findsRowOfView() {
+      table.add(US, 1.0, 1);
+      table.add(US, 2.0, 2);
+      assertEquals(1, table.rowOf(table.view(1)));
+      assertEquals(table.view(1), table.view(1));
+      assertFalse(table.view(0).equals(table.view(1)));
+      assertEquals(-1, new SalesTable().rowOf(table.view(1)));
+      assertEquals(-1, table.rowOf(RealEstateSale.make("US", 2.0, new Date(0))));
+    }
+  }
+
+  @Nested
+  class SnapshotRows {
+
+    protected SalesTable mapped = new SalesTable(3, LongBuffer.wrap(new long[] {20, 10, 30}),
+        DoubleBuffer.wrap(new double[] {1.0, 2.0, 3.0}), ShortBuffer.wrap(new short[] {1, 2, 3}),
+        DoubleBuffer.wrap(new double[] {10.0, 20.0, 30.0}), IntBuffer.wrap(new int[] {1, 0, 2}),
+        10, 30);
+
+    @Test
+    void readsBaseRows() {
+      assertEquals(3, mapped.size());
+      assertEquals(10, mapped.getEpochDay(1));
+      assertEquals(3.0, mapped.getPrice(2));
+      assertEquals(2, mapped.getCountryOrdinal(1));
+      assertEquals(20.0, mapped.getConvertedPrice(1));
+      assertEquals(1, mapped.rowInDateOrder(0));
+    }
+
+    @Test
+    void appendsAfterBaseRows() {
+      assertEquals(3, mapped.add(US, 4.0, 15));
+      mapped.setConvertedPrice(3, 40.0);
+      assertEquals(4.0, mapped.getPrice(3));
+      assertEquals(40.0, mapped.getConvertedPrice(3));
+      assertEquals(20.0, mapped.getConvertedPrice(1));
+      assertEquals(3, mapped.rowInDateOrder(1));
+      assertInDateOrder(mapped);
+    }
+
+    @Test
+    void replacesWholeConvertedColumn() {
+      assertThrows(IllegalArgumentException.class, () -> mapped.setConvertedPrice(0, 1.0));
+      double[] prices = new double[mapped.capacity()];
+      prices[0] = 5.0;
+      mapped.setConvertedPrices(prices);
+      assertEquals(5.0, mapped.getConvertedPrice(0));
+      mapped.setConvertedPrice(0, 6.0);
+      assertEquals(6.0, mapped.getConvertedPrice(0));
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.nio.IntBuffer;
+import java.util.Random;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SortedIndex}.
+ */
+class SortedIndexTest {
+
+  protected int[] keys = {5, 3, 9, 3, 1};
+  protected SortedIndex index = new SortedIndex(row -> keys[row]);
+
+  @Test
+  void rebuildsInKeyThenRowOrder() {
+    index.rebuild(keys.length);
+    assertArrayEquals(new int[] {4, 1, 3, 0, 2}, index.rows());
+  }
+
+  @Test
+  void insertsAfterEqualRows() {
+    index.rebuild(4);
+    index.insert(4);
+    keys = new int[] {5, 3, 9, 3, 1, 3};
+    index.insert(5);
+    assertArrayEquals(new int[] {4, 1, 3, 5, 0, 2}, index.rows());
+  }
+
+  @Test
+  void replacesRatherThanModifiesRows() {
+    index.rebuild(3);
+    int[] before = index.rows();
+    index.insert(3);
+    assertNotSame(before, index.rows());
+    assertArrayEquals(new int[] {1, 0, 2}, before);
+  }
+
+  @Nested
+  class Insertion {
+
+    @Test
+    void matchesRebuild() {
+      Random random = new Random(42);
+      keys = new int[1000];
+      for (int row = 0; row < keys.length; row++) {
+        keys[row] = random.nextInt(50);
+        index.insert(row);
+      }
+      int[] inserted = index.rows();
+      index.rebuild(keys.length);
+      assertArrayEquals(index.rows(), inserted);
+    }
+
+    @Test
+    void matchesRebuildInRuns() {
+      Random random = new Random(7);
+      keys = new int[20000];
+      for (int row = 0; row < keys.length; row++) {
+        keys[row] = random.nextInt(500) - 250;
+      }
+      for (int first = 0; first < keys.length; first += 1000) {
+        index.insertAll(first, 1000);
+        if (first % 5000 == 0) {
+          index.rows();
+        }
+      }
+      int[] inserted = index.rows();
+      index.rebuild(keys.length);
+      assertArrayEquals(index.rows(), inserted);
+    }
+  }
+
+  @Nested
+  class SavedRows {
+
+    @Test
+    void readsSavedRows() {
+      index.set(IntBuffer.wrap(new int[] {4, 1, 3, 0, 2}));
+      assertArrayEquals(new int[] {4, 1, 3, 0, 2}, index.rows());
+    }
+
+    @Test
+    void mergesIntoSavedRows() {
+      index.set(IntBuffer.wrap(new int[] {1, 3, 0, 2}));
+      keys = new int[] {5, 3, 9, 3, 1, 3};
+      index.insertAll(4, 2);
+      assertArrayEquals(new int[] {4, 1, 3, 5, 0, 2}, index.rows());
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package projecttwo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SyntheticRateProvider}.
+ */
+class SyntheticRateProviderTest {
+
+  protected static final List<String> SYMBOLS = Arrays.asList("USD", "GBP", "JPY");
+
+  protected SyntheticRateProvider provider = new SyntheticRateProvider();
+
+  @Test
+  void givesSameRatesEveryTime() {
+    assertEquals(provider.getLatestRates("EUR", SYMBOLS),
+        new SyntheticRateProvider().getLatestRates("EUR", SYMBOLS));
+  }
+
+  @Test
+  void givesLatestRatesOfLatestDay() {
+    Map<String, Double> latest = provider.getLatestRates("EUR", SYMBOLS);
+    SortedMap<String, Map<String, Double>> published =
+        provider.getHistoricalRates("EUR", SYMBOLS, "2019-04-26", "2019-04-26");
+    assertEquals(published.get("2019-04-26"), latest);
+    assertFalse(latest.equals(new SyntheticRateProvider(LocalDate.of(2019, 1, 1))
+        .getLatestRates("EUR", SYMBOLS)));
+  }
+
+  @Test
+  void givesEveryDayOfRange() {
+    assertEquals(31, provider.getHistoricalRates("EUR", SYMBOLS, "2019-01-01", "2019-01-31")
+        .size());
+  }
+
+  @Test
+  void keepsCrossRatesConsistent() {
+    Map<String, Double> fromEuro = provider.getLatestRates("EUR", SYMBOLS);
+    Map<String, Double> fromDollar = provider.getLatestRates("USD", SYMBOLS);
+    assertEquals(fromEuro.get("GBP") / fromEuro.get("USD"), fromDollar.get("GBP"), 1e-12);
+    assertEquals(1.0, fromDollar.get("USD"), 1e-12);
+  }
+
+  @Test
+  void driftsSlowly() {
+    for (String currency : SYMBOLS) {
+      double today = SyntheticRateProvider.referenceRate(currency, 18000);
+      double tomorrow = SyntheticRateProvider.referenceRate(currency, 18001);
+      assertTrue(today > 0.0);
+      assertTrue(Math.abs(tomorrow / today - 1.0) < 0.01);
+    }
+  }
+}